@@ -0,0 +1,144 @@
+package jcifs.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量删除/重命名/上传的逐项结果报告；各项顺序与请求顺序一致
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class BatchReport {
+
+	public static enum Status {
+		/** 操作成功 */
+		SUCCESS,
+		/** 文件不存在；对删除而言视为成功 */
+		NOT_FOUND,
+		/** 操作失败，原因见 {@link Item#getError()} */
+		FAILED,
+		/** 文件未变化，无需处理 */
+		SKIPPED
+	}
+
+	public static class Item {
+
+		/** 请求处理的文件路径 */
+		private final String path;
+		/** 重命名的目标路径;删除时为null */
+		private final String target;
+		private final Status status;
+		private final Throwable error;
+
+		public Item(String path, String target, Status status, Throwable error) {
+			this.path = path;
+			this.target = target;
+			this.status = status;
+			this.error = error;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public String getTarget() {
+			return target;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		public Throwable getError() {
+			return error;
+		}
+
+		public boolean isSuccess() {
+			return status != Status.FAILED;
+		}
+
+		@Override
+		public String toString() {
+			return path + (target == null ? "" : " -> " + target) + " : " + status + (error == null ? "" : " (" + error.getMessage() + ")");
+		}
+
+	}
+
+	private final Item[] items;
+	/** 批量操作耗时（毫秒） */
+	private volatile long elapsed;
+
+	public BatchReport(int size) {
+		this.items = new Item[size];
+	}
+
+	/**
+	 * 记录第 index 项的结果；不同项可由不同线程并发记录
+	 */
+	public void set(int index, Item item) {
+		items[index] = item;
+	}
+
+	public Item get(int index) {
+		return items[index];
+	}
+
+	public int size() {
+		return items.length;
+	}
+
+	public List<Item> getItems() {
+		return Collections.unmodifiableList(Arrays.asList(items));
+	}
+
+	public List<Item> getFailedItems() {
+		List<Item> failed = new ArrayList<Item>();
+		for (Item item : items) {
+			if (item != null && !item.isSuccess()) {
+				failed.add(item);
+			}
+		}
+		return failed;
+	}
+
+	public int getCount(Status status) {
+		int count = 0;
+		for (Item item : items) {
+			if (item != null && item.getStatus() == status) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public long getElapsed() {
+		return elapsed;
+	}
+
+	public void setElapsed(long elapsed) {
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * 每秒处理的项数
+	 */
+	public double getThroughput() {
+		return elapsed <= 0 ? items.length : items.length * 1000.0 / elapsed;
+	}
+
+	/**
+	 * 所有项均成功（含不存在）时返回true
+	 */
+	public boolean isSuccess() {
+		return getFailedItems().isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BatchReport [total=" + items.length + ", success=" + getCount(Status.SUCCESS) + ", notFound="
+				+ getCount(Status.NOT_FOUND) + ", skipped=" + getCount(Status.SKIPPED) + ", failed=" + getCount(Status.FAILED) + ", elapsed=" + elapsed
+				+ "ms, throughput=" + String.format("%.1f", getThroughput()) + "/s]";
+	}
+
+}
@@ -0,0 +1,147 @@
+package jcifs.io;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按规格分级的共享缓冲区池：缓冲区大小按2的幂向上取整到对应规格，归还后供后续拷贝复用；
+ * 池中保留的总字节数不超过 maxPoolSize，超出部分直接丢弃交由GC回收。<br/>
+ * 只提供堆内缓冲区：jcifs 的 SmbFileInputStream/SmbFileOutputStream 及 SmbRandomAccessFile 只接受 byte[]，
+ * 直接缓冲区写入共享文件前仍需拷贝到堆内数组，池化直接缓冲区不能减少拷贝
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class BufferPool {
+
+	/** 最小缓冲区规格： 4K */
+	public static final int MIN_BUFFER_SIZE = 4 * 1024;
+	/** 可复用的最大缓冲区规格： 16M；超出该规格的缓冲区不进入缓冲池 */
+	public static final int MAX_BUFFER_SIZE = 16 * 1024 * 1024;
+	/** 默认缓冲池可保留的最大字节数： 64M */
+	public static final long DEFAULT_POOL_SIZE = 64 * 1024 * 1024;
+
+	/** 未指定缓冲池时使用的全局共享缓冲池 */
+	private static final BufferPool DEFAULT_POOL = new BufferPool(DEFAULT_POOL_SIZE);
+
+	/** 各规格的空闲缓冲区队列；下标 i 对应规格 MIN_BUFFER_SIZE << i */
+	private final ConcurrentLinkedQueue<byte[]>[] freeBuffers;
+	/** 缓冲池可保留的最大字节数;0 表示不保留即不复用 */
+	private final long maxPoolSize;
+	/** 当前池中空闲缓冲区的总字节数 */
+	private final AtomicLong pooledBytes = new AtomicLong();
+	/** 已借出尚未归还的总字节数 */
+	private final AtomicLong outstandingBytes = new AtomicLong();
+	/** 从池中直接取得缓冲区的次数 */
+	private final AtomicLong hits = new AtomicLong();
+	/** 池中无可用缓冲区而新分配的次数 */
+	private final AtomicLong misses = new AtomicLong();
+
+	@SuppressWarnings("unchecked")
+	public BufferPool(long maxPoolSize) {
+		this.maxPoolSize = Math.max(0, maxPoolSize);
+		int classes = Integer.numberOfTrailingZeros(MAX_BUFFER_SIZE / MIN_BUFFER_SIZE) + 1;
+		this.freeBuffers = new ConcurrentLinkedQueue[classes];
+		for (int i = 0; i < classes; i++) {
+			freeBuffers[i] = new ConcurrentLinkedQueue<byte[]>();
+		}
+	}
+
+	public static BufferPool getDefault() {
+		return DEFAULT_POOL;
+	}
+
+	/**
+	 * 借出一个不小于 size 的缓冲区；使用完毕后须调用 {@link #release(byte[])} 归还
+	 * @param size	：需要的最小长度
+	 * @return
+	 */
+	public byte[] acquire(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("buffer size must be positive : " + size);
+		}
+		byte[] bytes = null;
+		if (size <= MAX_BUFFER_SIZE) {
+			int index = indexOf(size);
+			bytes = freeBuffers[index].poll();
+			if (bytes != null) {
+				pooledBytes.addAndGet(-bytes.length);
+				hits.incrementAndGet();
+			} else {
+				misses.incrementAndGet();
+				bytes = new byte[MIN_BUFFER_SIZE << index];
+			}
+		} else {
+			//超大缓冲区不复用
+			misses.incrementAndGet();
+			bytes = new byte[size];
+		}
+		outstandingBytes.addAndGet(bytes.length);
+		return bytes;
+	}
+
+	/**
+	 * 归还通过 {@link #acquire(int)} 借出的缓冲区
+	 * @param bytes	：缓冲区;可为null
+	 */
+	public void release(byte[] bytes) {
+		if (bytes == null) {
+			return;
+		}
+		outstandingBytes.addAndGet(-bytes.length);
+		//只回收规格内的缓冲区
+		if (bytes.length > MAX_BUFFER_SIZE || bytes.length < MIN_BUFFER_SIZE || Integer.bitCount(bytes.length) != 1) {
+			return;
+		}
+		//超出池容量则丢弃
+		if (pooledBytes.addAndGet(bytes.length) > maxPoolSize) {
+			pooledBytes.addAndGet(-bytes.length);
+			return;
+		}
+		freeBuffers[indexOf(bytes.length)].offer(bytes);
+	}
+
+	/**
+	 * 清空池中的空闲缓冲区
+	 */
+	public void clear() {
+		for (ConcurrentLinkedQueue<byte[]> queue : freeBuffers) {
+			byte[] bytes = null;
+			while ((bytes = queue.poll()) != null) {
+				pooledBytes.addAndGet(-bytes.length);
+			}
+		}
+	}
+
+	private static int indexOf(int size) {
+		int normalized = Math.max(size, MIN_BUFFER_SIZE);
+		//向上取整到2的幂
+		int ceiling = Integer.highestOneBit(normalized - 1) << 1;
+		return Integer.numberOfTrailingZeros(ceiling / MIN_BUFFER_SIZE);
+	}
+
+	public long getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	public long getPooledBytes() {
+		return pooledBytes.get();
+	}
+
+	public long getOutstandingBytes() {
+		return outstandingBytes.get();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return "BufferPool [maxPoolSize=" + maxPoolSize + ", pooledBytes=" + pooledBytes.get() + ", outstandingBytes="
+				+ outstandingBytes.get() + ", hits=" + hits.get() + ", misses=" + misses.get() + "]";
+	}
+
+}
@@ -0,0 +1,161 @@
+package jcifs.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 文件的字节区间 [start, end]，两端均包含，与 HTTP Range / Content-Range 的表示方式一致
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public final class ByteRange {
+
+	/** HTTP Range 请求头中唯一支持的单位 */
+	public static final String BYTES_UNIT = "bytes";
+
+	private final long start;
+	private final long end;
+
+	public ByteRange(long start, long end) {
+		if (start < 0 || end < start) {
+			throw new IllegalArgumentException("Invalid byte range [" + start + "-" + end + "]");
+		}
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * 解析 HTTP Range 请求头，例如 bytes=0-499、bytes=500-、bytes=-500、bytes=0-0,-1
+	 * @param header	：Range 请求头的值
+	 * @param length	：文件大小
+	 * @return 请求头为空或格式不正确时返回null，应忽略请求头返回完整文件；所有区间均超出文件大小时返回空列表，应返回 416
+	 */
+	public static List<ByteRange> parse(String header, long length) {
+		if (StringUtils.isBlank(header)) {
+			return null;
+		}
+		String value = header.trim();
+		if (!StringUtils.startsWithIgnoreCase(value, BYTES_UNIT + "=")) {
+			return null;
+		}
+		String[] specs = StringUtils.split(value.substring(BYTES_UNIT.length() + 1), ',');
+		if (specs == null || specs.length == 0) {
+			return null;
+		}
+		List<ByteRange> ranges = new ArrayList<ByteRange>(specs.length);
+		for (String spec : specs) {
+			spec = spec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+			if ((first.length() > 0 && !StringUtils.isNumeric(first)) || (last.length() > 0 && !StringUtils.isNumeric(last))) {
+				return null;
+			}
+			try {
+				if (first.length() == 0) {
+					//后缀区间：文件最后 n 个字节
+					if (last.length() == 0) {
+						return null;
+					}
+					long suffix = Long.parseLong(last);
+					if (suffix > 0 && length > 0) {
+						ranges.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+					}
+					continue;
+				}
+				long start = Long.parseLong(first);
+				//未指定结束位置时到文件末尾；起始位置超出文件大小的区间不可满足，而不是格式错误
+				long end = last.length() == 0 ? Long.MAX_VALUE : Long.parseLong(last);
+				if (end < start) {
+					return null;
+				}
+				if (start < length) {
+					ranges.add(new ByteRange(start, Math.min(end, length - 1)));
+				}
+			} catch (NumberFormatException e) {
+				//数值超出 long 范围
+				return null;
+			}
+		}
+		return ranges;
+	}
+
+	/**
+	 * 合并相互重叠或相邻的区间并按起始位置排序，避免同一段数据被重复读取
+	 */
+	public static List<ByteRange> coalesce(List<ByteRange> ranges) {
+		if (ranges == null || ranges.size() <= 1) {
+			return ranges;
+		}
+		List<ByteRange> sorted = new ArrayList<ByteRange>(ranges);
+		Collections.sort(sorted, new Comparator<ByteRange>() {
+
+			@Override
+			public int compare(ByteRange o1, ByteRange o2) {
+				return o1.start < o2.start ? -1 : (o1.start == o2.start ? 0 : 1);
+			}
+
+		});
+		List<ByteRange> merged = new ArrayList<ByteRange>(sorted.size());
+		ByteRange current = sorted.get(0);
+		for (int i = 1; i < sorted.size(); i++) {
+			ByteRange next = sorted.get(i);
+			if (next.start <= current.end + 1) {
+				current = new ByteRange(current.start, Math.max(current.end, next.end));
+			} else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		merged.add(current);
+		return merged;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	public long getLength() {
+		return end - start + 1;
+	}
+
+	/**
+	 * Content-Range 响应头的值，例如 bytes 0-499/1234
+	 */
+	public String toContentRange(long length) {
+		return BYTES_UNIT + " " + start + "-" + end + "/" + length;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ByteRange)) {
+			return false;
+		}
+		ByteRange other = (ByteRange) obj;
+		return start == other.start && end == other.end;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (start ^ (start >>> 32)) * 31 + (int) (end ^ (end >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "ByteRange [" + start + "-" + end + "]";
+	}
+
+}
@@ -0,0 +1,78 @@
+package jcifs.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 可注册完成回调的 {@link FutureTask}：任务完成、失败或被取消时依次通知已注册的回调，完成后注册的回调立即在注册线程中执行。<br/>
+ * 以 cancel(true) 取消时中断执行任务的线程，阻塞在借出对象或传输中的任务随之中止
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class CallbackFuture<V> extends FutureTask<V> {
+
+	protected static Logger LOG = LoggerFactory.getLogger(CallbackFuture.class);
+	/** 尚未通知的回调;任务完成后置为null */
+	private List<FutureCallback<? super V>> callbacks = new ArrayList<FutureCallback<? super V>>(2);
+
+	public CallbackFuture(Callable<V> callable) {
+		super(callable);
+	}
+
+	/**
+	 * 注册完成回调；回调在完成任务的线程中执行，任务已完成时在当前线程中立即执行
+	 * @param callback	：完成回调
+	 * @return 当前对象
+	 */
+	public CallbackFuture<V> addCallback(FutureCallback<? super V> callback) {
+		synchronized (this) {
+			if (callbacks != null) {
+				callbacks.add(callback);
+				return this;
+			}
+		}
+		fire(callback);
+		return this;
+	}
+
+	@Override
+	protected void done() {
+		List<FutureCallback<? super V>> pending = null;
+		synchronized (this) {
+			pending = callbacks;
+			callbacks = null;
+		}
+		for (FutureCallback<? super V> callback : pending) {
+			fire(callback);
+		}
+	}
+
+	private void fire(FutureCallback<? super V> callback) {
+		try {
+			V result = null;
+			try {
+				result = get();
+			} catch (CancellationException e) {
+				callback.onFailure(e);
+				return;
+			} catch (ExecutionException e) {
+				callback.onFailure(e.getCause());
+				return;
+			}
+			callback.onSuccess(result);
+		} catch (InterruptedException e) {
+			//任务已完成，get()不会阻塞
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			//回调的异常不影响其他回调及执行任务的线程
+			LOG.warn("Future callback failed : " + e.getMessage());
+		}
+	}
+
+}
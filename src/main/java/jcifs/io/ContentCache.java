@@ -0,0 +1,336 @@
+package jcifs.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * 共享文件的本地读穿透缓存：以共享文件路径、修改时间及大小作为键，文件内容缓存在本地目录中，
+ * 远程文件被修改后键随之变化，旧内容不再命中并最终被淘汰；本地缓存按总大小以最近最少使用淘汰。<br/>
+ * 同一键同时只会有一个线程从共享服务器读取，其他线程等待其读取完成后共享结果；
+ * 可选的内存层缓存较小的文件，命中时不再读取本地磁盘
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class ContentCache {
+
+	/** 默认本地缓存可占用的最大字节数： 1G */
+	public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+	/** 可进入内存层的最大文件大小： 256K */
+	public static final int MAX_MEMORY_ENTRY_SIZE = 256 * 1024;
+	/** 缓存文件后缀 */
+	protected static final String CACHE_SUFFIX = ".cache";
+	/** 缓存文件及加载中的临时文件名 */
+	protected static final Pattern CACHE_FILE_PATTERN = Pattern.compile("[0-9a-f]{40}(\\.cache|\\d*\\.tmp)");
+
+	/**
+	 * 缓存未命中时从共享服务器读取文件内容
+	 */
+	public static interface Loader {
+
+		/**
+		 * 将共享文件内容完整写入本地文件
+		 * @param target	：本地临时文件
+		 */
+		void load(File target) throws IOException;
+
+	}
+
+	private static class CacheFile {
+
+		private final File file;
+		private final long length;
+
+		CacheFile(File file, long length) {
+			this.file = file;
+			this.length = length;
+		}
+
+	}
+
+	/** 本地缓存目录 */
+	private final File cacheDir;
+	/** 本地缓存可占用的最大字节数 */
+	private final long maxSize;
+	/** 内存层可占用的最大字节数;0 表示不启用内存层 */
+	private final long maxMemorySize;
+	/** 按访问顺序排列的本地缓存文件 */
+	private final LinkedHashMap<String, CacheFile> files = new LinkedHashMap<String, CacheFile>(16, 0.75f, true);
+	/** 按访问顺序排列的内存层缓存 */
+	private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+	/** 正在从共享服务器读取的键 */
+	private final ConcurrentMap<String, FutureTask<File>> loading = new ConcurrentHashMap<String, FutureTask<File>>();
+	private long size = 0;
+	private long memorySize = 0;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong memoryHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public ContentCache(File cacheDir) throws IOException {
+		this(cacheDir, DEFAULT_MAX_SIZE, 0);
+	}
+
+	public ContentCache(File cacheDir, long maxSize, long maxMemorySize) throws IOException {
+		this.cacheDir = cacheDir;
+		this.maxSize = Math.max(0, maxSize);
+		this.maxMemorySize = Math.max(0, maxMemorySize);
+		FileUtils.forceMkdir(cacheDir);
+		//上次运行遗留的缓存文件无索引，直接清除
+		File[] leftovers = cacheDir.listFiles();
+		for (int i = 0; leftovers != null && i < leftovers.length; i++) {
+			if (leftovers[i].isFile() && CACHE_FILE_PATTERN.matcher(leftovers[i].getName()).matches()) {
+				FileUtils.deleteQuietly(leftovers[i]);
+			}
+		}
+	}
+
+	/**
+	 * 生成缓存键
+	 * @param path			：共享文件路径
+	 * @param lastModified	：共享文件修改时间
+	 * @param length		：共享文件大小
+	 */
+	public static String key(String path, long lastModified, long length) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] hash = digest.digest((path + "|" + lastModified + "|" + length).getBytes(Charset.forName("UTF-8")));
+			StringBuilder builder = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 获取缓存的本地文件，未命中时通过 loader 读取；同一键并发未命中时只读取一次
+	 * @param key		：缓存键，见 {@link #key(String, long, long)}
+	 * @param loader	：未命中时的读取逻辑
+	 * @return 本地缓存文件；文件可能在之后被淘汰删除，应尽快使用
+	 */
+	public File get(final String key, final Loader loader) throws IOException {
+		File cached = lookup(key);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+
+			@Override
+			public File call() throws Exception {
+				//等待期间可能已由其他线程加载完成
+				File cached = lookup(key);
+				if (cached != null) {
+					return cached;
+				}
+				misses.incrementAndGet();
+				return load(key, loader);
+			}
+
+		});
+		FutureTask<File> existing = loading.putIfAbsent(key, task);
+		if (existing == null) {
+			try {
+				task.run();
+			} finally {
+				loading.remove(key, task);
+			}
+			existing = task;
+		}
+		try {
+			return existing.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Waiting for cache load of [" + key + "] interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * 将缓存内容写出到输出流；本地文件通过 {@link FileChannel#transferTo(long, long, WritableByteChannel)} 写出，不经过应用层缓冲区
+	 * @return 写出的字节数
+	 */
+	public long transferTo(String key, Loader loader, OutputStream output) throws IOException {
+		byte[] bytes = lookupMemory(key);
+		if (bytes != null) {
+			memoryHits.incrementAndGet();
+			output.write(bytes);
+			return bytes.length;
+		}
+		File file = get(key, loader);
+		FileInputStream input = null;
+		try {
+			input = new FileInputStream(file);
+			FileChannel channel = input.getChannel();
+			WritableByteChannel target = Channels.newChannel(output);
+			long length = channel.size();
+			long position = 0;
+			while (position < length) {
+				position += channel.transferTo(position, length - position, target);
+			}
+			return length;
+		} finally {
+			IOUtils.closeQuietly(input);
+		}
+	}
+
+	protected synchronized File lookup(String key) {
+		CacheFile cached = files.get(key);
+		if (cached == null) {
+			return null;
+		}
+		if (!cached.file.exists()) {
+			//缓存文件被外部删除
+			files.remove(key);
+			size -= cached.length;
+			removeMemory(key);
+			return null;
+		}
+		return cached.file;
+	}
+
+	protected synchronized byte[] lookupMemory(String key) {
+		return memory.get(key);
+	}
+
+	protected File load(String key, Loader loader) throws IOException {
+		File tmpFile = File.createTempFile(key, ".tmp", cacheDir);
+		try {
+			loader.load(tmpFile);
+			File cacheFile = new File(cacheDir, key + CACHE_SUFFIX);
+			FileUtils.deleteQuietly(cacheFile);
+			if (!tmpFile.renameTo(cacheFile)) {
+				throw new IOException("Rename [" + tmpFile + "] to [" + cacheFile + "] failed");
+			}
+			byte[] bytes = null;
+			if (maxMemorySize > 0 && cacheFile.length() <= MAX_MEMORY_ENTRY_SIZE) {
+				bytes = FileUtils.readFileToByteArray(cacheFile);
+			}
+			register(key, cacheFile, bytes);
+			return cacheFile;
+		} finally {
+			FileUtils.deleteQuietly(tmpFile);
+		}
+	}
+
+	protected synchronized void register(String key, File cacheFile, byte[] bytes) {
+		CacheFile previous = files.put(key, new CacheFile(cacheFile, cacheFile.length()));
+		size += cacheFile.length() - (previous == null ? 0 : previous.length);
+		if (bytes != null && memory.put(key, bytes) == null) {
+			memorySize += bytes.length;
+		}
+		//淘汰最久未访问的缓存，刚加载的文件即使超出上限也保留到下次淘汰
+		Iterator<Map.Entry<String, CacheFile>> ite = files.entrySet().iterator();
+		while (size > maxSize && ite.hasNext()) {
+			Map.Entry<String, CacheFile> eldest = ite.next();
+			if (eldest.getKey().equals(key)) {
+				continue;
+			}
+			ite.remove();
+			size -= eldest.getValue().length;
+			removeMemory(eldest.getKey());
+			evictions.incrementAndGet();
+			if (!eldest.getValue().file.delete()) {
+				//文件仍被读取时部分系统无法删除，退出时再删除
+				eldest.getValue().file.deleteOnExit();
+			}
+		}
+		Iterator<Map.Entry<String, byte[]>> mite = memory.entrySet().iterator();
+		while (memorySize > maxMemorySize && mite.hasNext()) {
+			Map.Entry<String, byte[]> eldest = mite.next();
+			mite.remove();
+			memorySize -= eldest.getValue().length;
+		}
+	}
+
+	private void removeMemory(String key) {
+		byte[] bytes = memory.remove(key);
+		if (bytes != null) {
+			memorySize -= bytes.length;
+		}
+	}
+
+	/**
+	 * 清空缓存并删除本地缓存文件
+	 */
+	public synchronized void clear() {
+		for (CacheFile cached : files.values()) {
+			FileUtils.deleteQuietly(cached.file);
+		}
+		files.clear();
+		memory.clear();
+		size = 0;
+		memorySize = 0;
+	}
+
+	public File getCacheDir() {
+		return cacheDir;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public long getMaxMemorySize() {
+		return maxMemorySize;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized long getMemorySize() {
+		return memorySize;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMemoryHits() {
+		return memoryHits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ContentCache [cacheDir=" + cacheDir + ", maxSize=" + maxSize + ", size=" + getSize() + ", memorySize="
+				+ getMemorySize() + ", hits=" + hits.get() + ", memoryHits=" + memoryHits.get() + ", misses="
+				+ misses.get() + ", evictions=" + evictions.get() + "]";
+	}
+
+}
@@ -0,0 +1,133 @@
+package jcifs.io;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已知存在的共享目录缓存：以目录的完整 URL（含服务器及共享名）为键，创建目录前先查询缓存，
+ * 已知存在的目录及其上级目录不再逐级检查；按条目过期并按最近最少使用淘汰，删除目录时该目录及其下级目录失效
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class DirectoryCache {
+
+	/** 默认最大缓存目录数：10000 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+	/** 默认条目有效期：60秒；其他客户端删除目录后，最迟在有效期后重新检查 */
+	public static final long DEFAULT_TTL = 60 * 1000;
+
+	/** 未指定时使用的全局共享目录缓存 */
+	private static final DirectoryCache DEFAULT_CACHE = new DirectoryCache(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+
+	/** 最大缓存目录数 */
+	private final int maxEntries;
+	/** 条目有效期（毫秒） */
+	private final long ttl;
+	/** 按访问顺序排列的目录及其过期时间 */
+	private final LinkedHashMap<String, Long> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public DirectoryCache(final int maxEntries, long ttl) {
+		this.maxEntries = Math.max(1, maxEntries);
+		this.ttl = Math.max(0, ttl);
+		this.entries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > DirectoryCache.this.maxEntries;
+			}
+
+		};
+	}
+
+	public static DirectoryCache getDefault() {
+		return DEFAULT_CACHE;
+	}
+
+	/**
+	 * 统一目录 URL 格式：以 / 结尾；SMB 路径不区分大小写，统一转为小写
+	 */
+	public static String normalize(String url) {
+		String normalized = url.replace('\\', '/').toLowerCase();
+		return normalized.endsWith("/") ? normalized : normalized + "/";
+	}
+
+	/**
+	 * 目录是否已知存在
+	 * @param url	：目录的完整 URL
+	 */
+	public synchronized boolean contains(String url) {
+		String key = normalize(url);
+		Long expireTime = entries.get(key);
+		if (expireTime != null && expireTime < System.currentTimeMillis()) {
+			entries.remove(key);
+			expireTime = null;
+		}
+		if (expireTime == null) {
+			misses.incrementAndGet();
+			return false;
+		}
+		hits.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * 记录目录已存在
+	 * @param url	：目录的完整 URL
+	 */
+	public synchronized void add(String url) {
+		if (ttl == 0) {
+			return;
+		}
+		entries.put(normalize(url), System.currentTimeMillis() + ttl);
+	}
+
+	/**
+	 * 目录被删除：该目录及其下级目录全部失效
+	 * @param url	：目录的完整 URL
+	 */
+	public synchronized void invalidate(String url) {
+		String prefix = normalize(url);
+		Iterator<String> ite = entries.keySet().iterator();
+		while (ite.hasNext()) {
+			if (ite.next().startsWith(prefix)) {
+				ite.remove();
+			}
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return "DirectoryCache [maxEntries=" + maxEntries + ", ttl=" + ttl + ", size=" + getSize() + ", hits="
+				+ hits.get() + ", misses=" + misses.get() + "]";
+	}
+
+}
@@ -0,0 +1,65 @@
+package jcifs.io;
+
+import java.io.Serializable;
+
+/**
+ * 目录列举时记录的文件元数据快照：属性取自列举时服务端返回的目录项，不引用任何SMBClient对象或会话，
+ * 可安全地放入元数据缓存，命中时在调用方自己的SMBClient对象上按路径重新包装
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+@SuppressWarnings("serial")
+public final class FileMetadata implements Serializable {
+
+	/** 相对SMBClient的路径；目录以 / 结尾 */
+	private final String path;
+	/** 文件名；目录以 / 结尾 */
+	private final String name;
+	private final boolean directory;
+	private final long length;
+	private final long lastModified;
+
+	public FileMetadata(String path, String name, boolean directory, long length, long lastModified) {
+		this.path = path;
+		this.name = name;
+		this.directory = directory;
+		this.length = length;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * 相对根路径的路径；不在根路径下时返回文件名
+	 * @param rootPath	：SMBClient对象的URL路径
+	 * @param path		：目录项的URL路径
+	 * @param name		：目录项的文件名
+	 */
+	public static String relativize(String rootPath, String path, String name) {
+		return path.startsWith(rootPath) ? path.substring(rootPath.length()) : name;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isDirectory() {
+		return directory;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	@Override
+	public String toString() {
+		return "FileMetadata [path=" + path + ", directory=" + directory + ", length=" + length + ", lastModified="
+				+ lastModified + "]";
+	}
+
+}
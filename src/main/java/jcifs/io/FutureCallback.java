@@ -0,0 +1,21 @@
+package jcifs.io;
+
+/**
+ * {@link CallbackFuture} 完成时的回调
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public interface FutureCallback<V> {
+
+	/**
+	 * 任务正常完成
+	 * @param result	：任务结果
+	 */
+	void onSuccess(V result);
+
+	/**
+	 * 任务失败或被取消；被取消时为 {@link java.util.concurrent.CancellationException}
+	 * @param e		：失败原因
+	 */
+	void onFailure(Throwable e);
+
+}
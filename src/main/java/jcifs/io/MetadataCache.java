@@ -0,0 +1,186 @@
+package jcifs.io;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 共享目录元数据缓存：缓存目录列举结果及文件是否存在/是否目录等属性，按条目过期并按最近最少使用淘汰；
+ * 本客户端修改路径（上传、删除、重命名、创建目录）时，该路径、其上级目录及其下级路径的条目全部失效
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class MetadataCache {
+
+	/** 默认最大缓存条目数：10000 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+	/** 默认条目有效期：30秒 */
+	public static final long DEFAULT_TTL = 30 * 1000;
+
+	/** 条目类型：目录下的文件名 */
+	public static final String NAMES = "names";
+	/** 条目类型：目录下的文件元数据 */
+	public static final String FILES = "files";
+	/** 条目类型：递归列举的目录下的文件元数据 */
+	public static final String FILES_RECURSIVE = "files-r";
+	/** 条目类型：路径是否存在 */
+	public static final String EXISTS = "exists";
+	/** 条目类型：路径是否是目录 */
+	public static final String DIRECTORY = "directory";
+
+	private static class CacheEntry {
+
+		private final String path;
+		private final Object value;
+		private final long expireTime;
+
+		CacheEntry(String path, Object value, long expireTime) {
+			this.path = path;
+			this.value = value;
+			this.expireTime = expireTime;
+		}
+
+	}
+
+	/** 最大缓存条目数 */
+	private final int maxEntries;
+	/** 条目有效期（毫秒） */
+	private final long ttl;
+	/** 按访问顺序排列的缓存条目，超出容量时淘汰最久未访问的条目 */
+	private final LinkedHashMap<String, CacheEntry> entries;
+	/** 失效次数；读取期间发生过失效时，读取结果不再放入缓存 */
+	private long generation = 0;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public MetadataCache() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+	}
+
+	public MetadataCache(final int maxEntries, long ttl) {
+		this.maxEntries = Math.max(1, maxEntries);
+		this.ttl = Math.max(0, ttl);
+		this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				if (size() > MetadataCache.this.maxEntries) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+
+		};
+	}
+
+	/**
+	 * 统一路径格式：使用 / 分隔，去除首尾的 /
+	 */
+	public static String normalize(String path) {
+		String normalized = StringUtils.defaultString(path).replace('\\', '/');
+		return StringUtils.strip(normalized, "/");
+	}
+
+	/**
+	 * 读取缓存条目
+	 * @param kind	：条目类型
+	 * @param path	：相对SMBClient路径的路径
+	 * @return 缓存值；未命中或已过期时返回null
+	 */
+	public synchronized Object get(String kind, String path) {
+		String key = kind + ":" + normalize(path);
+		CacheEntry entry = entries.get(key);
+		if (entry != null && entry.expireTime < System.currentTimeMillis()) {
+			entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * 当前失效次数；读取服务端前获取，放入缓存时传入 {@link #put(String, String, Object, long)}
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * 放入缓存条目；自 generation 之后发生过失效则放弃，避免缓存修改前读取到的旧数据
+	 */
+	public synchronized void put(String kind, String path, Object value, long generation) {
+		if (value == null || ttl == 0 || generation != this.generation) {
+			return;
+		}
+		String normalized = normalize(path);
+		entries.put(kind + ":" + normalized, new CacheEntry(normalized, value, System.currentTimeMillis() + ttl));
+	}
+
+	/**
+	 * 路径发生变化：该路径本身、其上级目录（列举结果及存在性）及其下级路径的条目全部失效
+	 */
+	public synchronized void invalidate(String path) {
+		generation++;
+		String normalized = normalize(path);
+		Iterator<CacheEntry> ite = entries.values().iterator();
+		while (ite.hasNext()) {
+			String cached = ite.next().path;
+			if (isAncestorOrSelf(cached, normalized) || isAncestorOrSelf(normalized, cached)) {
+				ite.remove();
+			}
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		entries.clear();
+	}
+
+	private static boolean isAncestorOrSelf(String ancestor, String path) {
+		if (ancestor.length() == 0 || ancestor.equals(path)) {
+			return true;
+		}
+		return path.startsWith(ancestor) && path.charAt(ancestor.length()) == '/';
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "MetadataCache [maxEntries=" + maxEntries + ", ttl=" + ttl + ", size=" + getSize() + ", hits="
+				+ hits.get() + ", misses=" + misses.get() + ", evictions=" + evictions.get() + "]";
+	}
+
+}
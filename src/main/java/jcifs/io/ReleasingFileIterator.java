@@ -0,0 +1,68 @@
+package jcifs.io;
+
+import java.io.IOException;
+
+/**
+ * 持有借出的SMBClient对象的遍历器包装：遍历结束或关闭时关闭被包装的遍历器，并通过 {@link #release()} 归还SMBClient对象
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public abstract class ReleasingFileIterator<T> implements SmbFileIterator<T> {
+
+	private final SmbFileIterator<T> delegate;
+	private boolean released = false;
+
+	public ReleasingFileIterator(SmbFileIterator<T> delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * 归还遍历器占用的SMBClient对象;只会调用一次
+	 */
+	protected abstract void release() throws Exception;
+
+	@Override
+	public boolean hasNext() {
+		boolean hasNext = false;
+		try {
+			hasNext = delegate.hasNext();
+			return hasNext;
+		} finally {
+			//遍历结束或出错时自动归还
+			if (!hasNext) {
+				releaseQuietly();
+			}
+		}
+	}
+
+	@Override
+	public T next() {
+		return delegate.next();
+	}
+
+	@Override
+	public void remove() {
+		delegate.remove();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			delegate.close();
+		} finally {
+			releaseQuietly();
+		}
+	}
+
+	private void releaseQuietly() {
+		if (released) {
+			return;
+		}
+		released = true;
+		try {
+			release();
+		} catch (Exception e) {
+			//归还失败不影响遍历结果
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+package jcifs.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 共享目录的流式遍历器：目录项按服务端分页逐批取回，过滤后逐个返回，内存占用与目录大小无关；
+ * 遍历结束时自动关闭，提前结束遍历时须调用 {@link #close()} 释放服务端的目录句柄及借出的SMBClient对象
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public interface SmbFileIterator<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * 关闭遍历器;可重复调用
+	 */
+	@Override
+	public void close() throws IOException;
+
+}
@@ -0,0 +1,84 @@
+package jcifs.io;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 预编译的后缀匹配器：按后缀长度分组，匹配时只需对每种长度截取一次文件名尾部并做哈希查找，
+ * 耗时与后缀的种类长度数相关，而与后缀个数无关
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+@SuppressWarnings("serial")
+public final class SuffixMatcher implements Serializable {
+
+	/** 后缀集合；不区分大小写时已转为小写 */
+	private final Set<String> suffixes;
+	/** 所有后缀的不同长度，从小到大 */
+	private final int[] lengths;
+	private final boolean caseSensitive;
+
+	public SuffixMatcher(final Collection<String> suffixes, final boolean caseSensitive) {
+		this.caseSensitive = caseSensitive;
+		this.suffixes = new HashSet<String>(suffixes.size() * 2);
+		Set<Integer> lengths = new TreeSet<Integer>();
+		for (String suffix : suffixes) {
+			if (suffix == null) {
+				continue;
+			}
+			String key = normalize(suffix);
+			this.suffixes.add(key);
+			lengths.add(key.length());
+		}
+		this.lengths = new int[lengths.size()];
+		int index = 0;
+		for (Integer length : lengths) {
+			this.lengths[index++] = length;
+		}
+	}
+
+	public SuffixMatcher(final String[] suffixes, final boolean caseSensitive) {
+		this(Arrays.asList(suffixes), caseSensitive);
+	}
+
+	private String normalize(String value) {
+		return caseSensitive ? value : value.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * 文件名是否以任一后缀结尾
+	 */
+	public boolean matches(final String name) {
+		if (name == null) {
+			return false;
+		}
+		String key = normalize(name);
+		for (int length : lengths) {
+			if (length > key.length()) {
+				break;
+			}
+			if (suffixes.contains(key.substring(key.length() - length))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
+	public int size() {
+		return suffixes.size();
+	}
+
+	@Override
+	public String toString() {
+		return "SuffixMatcher [suffixes=" + suffixes + ", caseSensitive=" + caseSensitive + "]";
+	}
+
+}
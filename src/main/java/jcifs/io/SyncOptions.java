@@ -0,0 +1,59 @@
+package jcifs.io;
+
+/**
+ * 本地目录同步到共享目录的参数
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SyncOptions {
+
+	/** 默认比较块大小： 1M */
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+	/** 大小或修改时间不一致时是否按块比较内容，只写入内容不同的块;默认 false 即整文件上传 */
+	private boolean checksum = false;
+	/** 比较块大小;默认 1M */
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	/** 并行度，即同时使用的连接数;默认 4 */
+	private int parallelism = 4;
+	/** 是否删除共享目录中本地已不存在的文件;默认 false */
+	private boolean delete = false;
+
+	public boolean isChecksum() {
+		return checksum;
+	}
+
+	public void setChecksum(boolean checksum) {
+		this.checksum = checksum;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public boolean isDelete() {
+		return delete;
+	}
+
+	public void setDelete(boolean delete) {
+		this.delete = delete;
+	}
+
+	@Override
+	public String toString() {
+		return "SyncOptions [checksum=" + checksum + ", blockSize=" + blockSize + ", parallelism=" + parallelism
+				+ ", delete=" + delete + "]";
+	}
+
+}
@@ -0,0 +1,151 @@
+package jcifs.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 本地目录同步到共享目录的执行计划：列出每个文件需要执行的操作及需要传输的字节数；
+ * 仅生成计划而不执行即为演练（dry-run）
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SyncPlan {
+
+	public static enum Action {
+		/** 共享目录中不存在，上传完整文件 */
+		CREATE,
+		/** 内容不同，重新上传完整文件 */
+		REPLACE,
+		/** 只写入内容不同的块，并调整文件长度 */
+		PATCH,
+		/** 本地已不存在，删除共享文件 */
+		DELETE,
+		/** 大小及修改时间一致，无需传输 */
+		SKIP
+	}
+
+	public static class Entry {
+
+		/** 相对同步目录的文件路径，使用 / 分隔 */
+		private final String path;
+		private final Action action;
+		/** 本地文件大小;删除时为0 */
+		private final long length;
+		/** 需要写入的块的起始位置，仅 PATCH 时有效 */
+		private final long[] blocks;
+		/** 需要传输的字节数 */
+		private final long transferBytes;
+		/** 生成该操作的原因 */
+		private final String reason;
+
+		public Entry(String path, Action action, long length, long[] blocks, long transferBytes, String reason) {
+			this.path = path;
+			this.action = action;
+			this.length = length;
+			this.blocks = blocks;
+			this.transferBytes = transferBytes;
+			this.reason = reason;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public Action getAction() {
+			return action;
+		}
+
+		public long getLength() {
+			return length;
+		}
+
+		public long[] getBlocks() {
+			return blocks;
+		}
+
+		public long getTransferBytes() {
+			return transferBytes;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+
+		@Override
+		public String toString() {
+			return action + " " + path + " (" + transferBytes + " bytes" + (blocks == null ? "" : ", " + blocks.length + " blocks")
+					+ (reason == null ? "" : ", " + reason) + ")";
+		}
+
+	}
+
+	/** 比较块大小 */
+	private final int blockSize;
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	public SyncPlan(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public synchronized void add(Entry entry) {
+		entries.add(entry);
+	}
+
+	public synchronized List<Entry> getEntries() {
+		return Collections.unmodifiableList(new ArrayList<Entry>(entries));
+	}
+
+	/**
+	 * 需要执行的操作，不含 SKIP
+	 */
+	public synchronized List<Entry> getChanges() {
+		List<Entry> changes = new ArrayList<Entry>();
+		for (Entry entry : entries) {
+			if (entry.getAction() != Action.SKIP) {
+				changes.add(entry);
+			}
+		}
+		return changes;
+	}
+
+	public synchronized int getCount(Action action) {
+		int count = 0;
+		for (Entry entry : entries) {
+			if (entry.getAction() == action) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public synchronized long getTransferBytes() {
+		long total = 0;
+		for (Entry entry : entries) {
+			total += entry.getTransferBytes();
+		}
+		return total;
+	}
+
+	/**
+	 * 逐行列出需要执行的操作，用于演练时输出
+	 */
+	public String describe() {
+		StringBuilder builder = new StringBuilder(toString());
+		for (Entry entry : getChanges()) {
+			builder.append('\n').append(entry);
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "SyncPlan [create=" + getCount(Action.CREATE) + ", replace=" + getCount(Action.REPLACE) + ", patch="
+				+ getCount(Action.PATCH) + ", delete=" + getCount(Action.DELETE) + ", skip=" + getCount(Action.SKIP)
+				+ ", transferBytes=" + getTransferBytes() + "]";
+	}
+
+}
@@ -0,0 +1,64 @@
+package jcifs.smb;
+
+import java.net.MalformedURLException;
+import java.net.UnknownHostException;
+
+import jcifs.io.FileMetadata;
+
+/**
+ * 由元数据缓存包装出的文件对象：类型、大小与修改时间取自列举时记录的元数据快照，读取时不再访问服务器；
+ * 快照在缓存失效前不会刷新，需要最新属性时使用 {@link SmbFile2#get(String)} 重新获取，读写内容仍通过所属的SMBClient对象进行
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class CachedSmbFile2 extends SmbFile2 {
+
+	private final FileMetadata metadata;
+
+	public CachedSmbFile2(SmbFile2 context, FileMetadata metadata) throws MalformedURLException, UnknownHostException {
+		super(context, metadata.getPath());
+		this.metadata = metadata;
+	}
+
+	public static CachedSmbFile2[] fromMetadata(SmbFile2 context, FileMetadata[] metadata) throws MalformedURLException, UnknownHostException {
+		CachedSmbFile2[] files = new CachedSmbFile2[metadata.length];
+		for (int i = 0; i < metadata.length; i++) {
+			files[i] = new CachedSmbFile2(context, metadata[i]);
+		}
+		return files;
+	}
+
+	public FileMetadata getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public boolean exists() {
+		return true;
+	}
+
+	@Override
+	public boolean isDirectory() {
+		return metadata.isDirectory();
+	}
+
+	@Override
+	public boolean isFile() {
+		return !metadata.isDirectory();
+	}
+
+	@Override
+	public long length() {
+		return metadata.getLength();
+	}
+
+	@Override
+	public long lastModified() {
+		return metadata.getLastModified();
+	}
+
+	@Override
+	public long getLastModified() {
+		return metadata.getLastModified();
+	}
+
+}
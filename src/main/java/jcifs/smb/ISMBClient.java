@@ -3,9 +3,17 @@ package jcifs.smb;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Map;
 
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import jcifs.io.BatchReport;
+import jcifs.io.CopyStreamProcessListener;
+import jcifs.io.FileMetadata;
+import jcifs.io.SmbFileIterator;
+import jcifs.smb.filter.Smb2FileFilter;
 import jcifs.smb1.SmbFile1;
 
 /**
@@ -20,6 +28,16 @@ public interface ISMBClient {
 	
 	public void downloadToDir(String sharedDir,File localDir) throws Exception;
 	
+	/**
+	 * 并行递归镜像共享目录到本地目录，大小及修改时间未变化的文件跳过，大文件分段并行下载，失败的分段按 rangeRetries 重试
+	 * @param sharedDir		：相对SMBClient路径的共享目录
+	 * @param localDir		：本地目录
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @param listener		：汇总进度监听;可为null
+	 * @return 逐个文件的结果报告
+	 */
+	public BatchReport downloadToDir(String sharedDir,File localDir,int parallelism,CopyStreamProcessListener listener) throws Exception;
+	
 	public void downloadToFile(String filepath, String localFile) throws Exception;
 	
 	public void downloadToFile(String filepath, File localFile) throws Exception;
@@ -36,6 +54,11 @@ public interface ISMBClient {
 	
 	public void downloadToResponse(String sharedDir,String fileName,ServletResponse response) throws Exception;
 	
+	/**
+	 * 根据请求中的 Range 请求头下载共享文件的部分内容至响应（206 Partial Content），未携带 Range 时下载完整文件
+	 */
+	public void downloadToResponse(String filepath,HttpServletRequest request,HttpServletResponse response) throws Exception;
+	
 	public boolean remove(String filepath) throws Exception;
 	
 	public boolean remove(String[] filepaths) throws Exception;
@@ -44,12 +67,24 @@ public interface ISMBClient {
 	
 	public boolean remove(String sharedDir,String[] ftpFiles) throws Exception;
 	
+	public BatchReport remove(String[] filepaths,int parallelism) throws Exception;
+	
 	public boolean removeDir(String sharedDir) throws Exception;
 	
 	public boolean rename(String filepath,String fileName) throws Exception;
 	
 	public boolean renameTo(String filepath,String destpath) throws Exception;
 	
+	public BatchReport rename(Map<String, String> filepaths,int parallelism) throws Exception;
+	
+	/**
+	 * 并行批量上传小文件，文件直接覆盖创建，上级目录仅在不存在时创建
+	 * @param files			：相对SMBClient路径的文件路径与文件内容的映射
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @return 逐项结果报告
+	 */
+	public BatchReport upload(Map<String, byte[]> files,int parallelism) throws Exception;
+	
 	public String[] listNames(String sharedDir) throws Exception;
 	
 	public SmbFile[] listFiles(String sharedDir) throws Exception;
@@ -64,10 +99,20 @@ public interface ISMBClient {
 		
 	public SmbFile[] listFiles(String sharedDir, SmbFileFilter filter,boolean recursion) throws Exception;
 	
+	public FileMetadata[] listMetadata(String sharedDir, Smb2FileFilter fileFilter, Smb2FileFilter dirFilter,int parallelism) throws Exception;
+	
+	public SmbFileIterator<SmbFile2> children(String sharedDir) throws Exception;
+	
+	public SmbFileIterator<SmbFile2> children(String sharedDir, Smb2FileFilter filter) throws Exception;
+	
 	public SmbFile getFile(String ftpFilePath) throws Exception;
 	
 	public SmbFile getFile(String sharedDir,String fileName) throws Exception;
 	
+	public boolean exists(String filepath) throws Exception;
+	
+	public boolean isDirectory(String filepath) throws Exception;
+	
 	public InputStream getInputStream(String filepath) throws Exception;
 	
 	public boolean upload(byte[] bytes,String destpath) throws Exception;
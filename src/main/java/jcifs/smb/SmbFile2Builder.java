@@ -5,13 +5,11 @@ import java.io.IOException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.Builder;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.commons.lang3.reflect.ConstructorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jcifs.SmbTransportPool;
 import jcifs.context.BaseContext;
-import jcifs.io.CopyStreamProcessListener;
 import jcifs.netbios.UniAddress;
 import jcifs.smb1.smb1.NtlmPasswordAuthentication;
 import jcifs.utils.SMBPathUtils;
@@ -24,8 +22,12 @@ public class SmbFile2Builder implements Builder<SmbFile2> {
 	
 	protected static Logger LOG = LoggerFactory.getLogger(SmbFile2Builder.class);
 	private BaseContext context;
+	private SmbFile2Config clientConfig;
+	
+	public SmbFile2Builder(SmbFile2Config config) {
+		this.clientConfig = config;
+	}
 	 
-	@SuppressWarnings("unchecked")
 	public SmbFile2 build() {
 		
 		//基于smb协议的共享文件访问对象
@@ -62,20 +64,9 @@ public class SmbFile2Builder implements Builder<SmbFile2> {
 			smbClient.setDefaultUseCaches(clientConfig.isUsecaches());
 			smbClient.setUseCaches(clientConfig.isUsecaches());
 			
-			smbClient.setAutoFlush(clientConfig.isAutoFlush());
-			smbClient.setAutoFlushBlockSize(clientConfig.getAutoFlushBlockSize());
-			smbClient.setBufferSize(clientConfig.getBufferSize());
-			smbClient.setChannelReadBufferSize(clientConfig.getChannelReadBufferSize());
-			smbClient.setChannelWriteBufferSize(clientConfig.getChannelWriteBufferSize());
-			smbClient.setLogDebug(clientConfig.isLogDebug());
-			
-			//进行存储时/检索操作时数据处理进度监听对象
-			if(StringUtils.isNotEmpty(clientConfig.getCopyStreamProcessListenerName())){
-				Class<CopyStreamProcessListener> listenerClazz = (Class<CopyStreamProcessListener>) Class.forName(clientConfig.getCopyStreamProcessListenerName());
-				smbClient.setCopyStreamProcessListener((CopyStreamProcessListener) ConstructorUtils.invokeConstructor(listenerClazz));
-			}else{
-				smbClient.setCopyStreamProcessListener(clientConfig.getCopyStreamProcessListener());
-			}
+			//传输参数由配置缓存，同一配置创建的对象共享；监听对象有状态，每个对象单独创建
+			smbClient.setSettings(clientConfig.getSettings());
+			smbClient.setCopyStreamProcessListener(clientConfig.getSettings().newCopyStreamProcessListener());
 		} catch (Exception e) {
 			LOG.error(ExceptionUtils.getStackTrace(e));
 		}
@@ -1,11 +1,15 @@
 package jcifs.smb;
 
+import java.io.File;
+import java.io.IOException;
 import java.beans.BeanInfo;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 
 import org.apache.commons.lang3.SystemUtils;
 
+import jcifs.io.BufferPool;
+import jcifs.io.ContentCache;
 import jcifs.io.CopyStreamProcessListener;
 
 /**
@@ -24,6 +28,8 @@ public class SmbFile2Config {
 	public static final int DEFAULT_BUFFER_SIZE = 8 * 1024 * 1024;
 	/** 默认FileChannel缓存大小： 2M */
 	public static final int DEFAULT_CHANNEL_SIZE = 2 * 1024 * 1024;
+	/** 默认分段上传/下载时每个分段的大小： 16M */
+	public static final long DEFAULT_RANGE_SIZE = 16 * 1024 * 1024;
 
 	// ===============================================================================
 	// =============SMBClient对象池配置===================================================
@@ -51,6 +57,16 @@ public class SmbFile2Config {
 	protected int channelReadBufferSize = DEFAULT_CHANNEL_SIZE;
 	/** 文件通道写出缓冲区大小;默认 2M */
 	protected int channelWriteBufferSize = DEFAULT_CHANNEL_SIZE;
+	/** 拷贝缓冲区池可保留的最大字节数，同一配置创建的所有对象共享该缓冲池;0 表示不复用缓冲区;默认 64M */
+	protected long bufferPoolSize = BufferPool.DEFAULT_POOL_SIZE;
+	/** 拷贝缓冲区池;未指定时根据 bufferPoolSize 创建 */
+	protected BufferPool bufferPool;
+	/** 分段并行上传/下载时每个分段的大小;默认 16M */
+	protected long rangeSize = DEFAULT_RANGE_SIZE;
+	/** 分段并行上传/下载的线程数，每个线程使用独立的SmbFile2对象;默认 1 即不分段 */
+	protected int rangeThreads = 1;
+	/** 分段并行上传时单个分段写入失败后的重试次数;默认 3 */
+	protected int rangeRetries = 3;
 	/** 连接超时时间，单位为秒，默认30秒 */
 	protected int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
 	/** 进行存储时/检索操作时数据处理进度监听对象 */
@@ -63,10 +79,18 @@ public class SmbFile2Config {
 	protected boolean localBackupAble = false;
 	/** 本地备份路径 ;默认userdir,如果开启了本地备份功能，建议指定该目录地址 */
 	protected String localBackupDir = SystemUtils.getUserDir().getAbsolutePath();
+	/** 本地备份（读穿透缓存）可占用的最大磁盘空间;默认 1G */
+	protected long localBackupMaxSize = ContentCache.DEFAULT_MAX_SIZE;
+	/** 本地备份的内存层可占用的最大字节数，仅缓存较小的文件;0 表示不启用内存层;默认 0 */
+	protected long localBackupMemorySize = 0;
+	/** 根据本地备份参数创建的读穿透缓存 */
+	private ContentCache contentCache;
 	/** 是否使用Log4j记录命令信息,默认打印出命令，如果开启日志则关闭打印;默认 false */
 	protected boolean logDebug = false;
 	/** 启用或禁用在条件允许情况下允许协议使用缓存 */
 	protected boolean usecaches = false;
+	/** 由上述参数生成的传输参数，供该配置创建的所有对象共享;相关参数修改后重新生成 */
+	private SmbFile2Settings settings;
 
 	public String getDomain() {
 		return domain;
@@ -114,6 +138,7 @@ public class SmbFile2Config {
 
 	public void setAutoFlush(boolean autoFlush) {
 		this.autoFlush = autoFlush;
+		this.settings = null;
 	}
 
 	public int getAutoFlushBlockSize() {
@@ -122,6 +147,7 @@ public class SmbFile2Config {
 
 	public void setAutoFlushBlockSize(int autoFlushBlockSize) {
 		this.autoFlushBlockSize = autoFlushBlockSize;
+		this.settings = null;
 	}
 
 	public int getBufferSize() {
@@ -130,6 +156,7 @@ public class SmbFile2Config {
 
 	public void setBufferSize(int bufferSize) {
 		this.bufferSize = bufferSize;
+		this.settings = null;
 	}
 
 	public int getChannelReadBufferSize() {
@@ -138,6 +165,7 @@ public class SmbFile2Config {
 
 	public void setChannelReadBufferSize(int channelReadBufferSize) {
 		this.channelReadBufferSize = channelReadBufferSize;
+		this.settings = null;
 	}
 
 	public int getChannelWriteBufferSize() {
@@ -146,6 +174,65 @@ public class SmbFile2Config {
 
 	public void setChannelWriteBufferSize(int channelWriteBufferSize) {
 		this.channelWriteBufferSize = channelWriteBufferSize;
+		this.settings = null;
+	}
+
+	public long getBufferPoolSize() {
+		return bufferPoolSize;
+	}
+
+	public void setBufferPoolSize(long bufferPoolSize) {
+		this.bufferPoolSize = bufferPoolSize;
+		this.settings = null;
+	}
+
+	public synchronized BufferPool getBufferPool() {
+		if (bufferPool == null) {
+			bufferPool = new BufferPool(bufferPoolSize);
+		}
+		return bufferPool;
+	}
+
+	public synchronized void setBufferPool(BufferPool bufferPool) {
+		this.bufferPool = bufferPool;
+		this.settings = null;
+	}
+
+	/**
+	 * 获取共享的传输参数；监听对象类名只在首次生成时解析
+	 */
+	public synchronized SmbFile2Settings getSettings() {
+		if (settings == null) {
+			settings = SmbFile2Settings.of(this);
+		}
+		return settings;
+	}
+
+	public long getRangeSize() {
+		return rangeSize;
+	}
+
+	public void setRangeSize(long rangeSize) {
+		this.rangeSize = rangeSize;
+		this.settings = null;
+	}
+
+	public int getRangeThreads() {
+		return rangeThreads;
+	}
+
+	public void setRangeThreads(int rangeThreads) {
+		this.rangeThreads = rangeThreads;
+		this.settings = null;
+	}
+
+	public int getRangeRetries() {
+		return rangeRetries;
+	}
+
+	public void setRangeRetries(int rangeRetries) {
+		this.rangeRetries = rangeRetries;
+		this.settings = null;
 	}
 
 	public int getConnectTimeout() {
@@ -163,6 +250,7 @@ public class SmbFile2Config {
 	public void setCopyStreamProcessListener(
 			CopyStreamProcessListener copyStreamProcessListener) {
 		this.copyStreamProcessListener = copyStreamProcessListener;
+		this.settings = null;
 	}
 
 	public String getCopyStreamProcessListenerName() {
@@ -172,6 +260,7 @@ public class SmbFile2Config {
 	public void setCopyStreamProcessListenerName(
 			String copyStreamProcessListenerName) {
 		this.copyStreamProcessListenerName = copyStreamProcessListenerName;
+		this.settings = null;
 	}
 
 	public int getReadTimeout() {
@@ -206,12 +295,43 @@ public class SmbFile2Config {
 		this.localBackupDir = localBackupDir;
 	}
 
+	public long getLocalBackupMaxSize() {
+		return localBackupMaxSize;
+	}
+
+	public void setLocalBackupMaxSize(long localBackupMaxSize) {
+		this.localBackupMaxSize = localBackupMaxSize;
+	}
+
+	public long getLocalBackupMemorySize() {
+		return localBackupMemorySize;
+	}
+
+	public void setLocalBackupMemorySize(long localBackupMemorySize) {
+		this.localBackupMemorySize = localBackupMemorySize;
+	}
+
+	/**
+	 * 获取本地备份的读穿透缓存，缓存文件存放在 localBackupDir 下的 smb-cache 目录中
+	 * @return 未开启本地备份时返回null
+	 */
+	public synchronized ContentCache getContentCache() throws IOException {
+		if (!localBackupAble) {
+			return null;
+		}
+		if (contentCache == null) {
+			contentCache = new ContentCache(new File(localBackupDir, "smb-cache"), localBackupMaxSize, localBackupMemorySize);
+		}
+		return contentCache;
+	}
+
 	public boolean isLogDebug() {
 		return logDebug;
 	}
 
 	public void setLogDebug(boolean logDebug) {
 		this.logDebug = logDebug;
+		this.settings = null;
 	}
 
 	public boolean isUsecaches() {
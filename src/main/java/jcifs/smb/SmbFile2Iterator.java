@@ -0,0 +1,90 @@
+package jcifs.smb;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import jcifs.CIFSException;
+import jcifs.CloseableIterator;
+import jcifs.ResourceFilter;
+import jcifs.SmbResource;
+import jcifs.io.SmbFileIterator;
+import jcifs.smb.filter.Smb2FileFilter;
+
+/**
+ * 基于 {@link SmbFile#children(ResourceFilter)} 的流式目录遍历器：目录项由服务端按页返回，过滤器在取回时即时执行，
+ * 仅被接受的目录项才包装为 {@link SmbFile2} 对象；关闭时释放服务端的目录句柄
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile2Iterator implements SmbFileIterator<SmbFile2> {
+
+	/** 用于包装目录项的SMBClient对象，目录项沿用其参数 */
+	private final SmbFile2 smbClient;
+	private final CloseableIterator<SmbResource> children;
+	private boolean closed = false;
+
+	public SmbFile2Iterator(SmbFile2 smbClient, SmbFile directory, final Smb2FileFilter filter) throws CIFSException {
+		this.smbClient = smbClient;
+		if (filter == null) {
+			this.children = directory.children();
+		} else {
+			this.children = directory.children(new ResourceFilter() {
+
+				@Override
+				public boolean accept(SmbResource resource) throws CIFSException {
+					return filter.accept((SmbFile) resource);
+				}
+
+			});
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (children.hasNext()) {
+			return true;
+		}
+		//遍历结束后自动关闭
+		closeQuietly();
+		return false;
+	}
+
+	@Override
+	public SmbFile2 next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		SmbResource resource = children.next();
+		try {
+			return smbClient.wrap((SmbFile) resource);
+		} finally {
+			//已包装为新对象，释放原目录项对树连接的引用
+			resource.close();
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		children.close();
+	}
+
+	protected void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {
+			SmbFile2.LOG.warn("Close directory iterator failed : " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package jcifs.smb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.FileNotifyInformation;
+import jcifs.SmbWatchHandle;
+import jcifs.io.MetadataCache;
+import jcifs.utils.SMBPathUtils;
+
+/**
+ * 基于 SMB2 CHANGE_NOTIFY 的元数据缓存失效器：在后台线程中持续监听共享目录的变化，
+ * 收到变化通知后使对应路径的缓存条目失效；监听期间独占一个SMBClient对象，关闭时归还
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile2MetadataWatcher implements Closeable {
+
+	protected static Logger LOG = LoggerFactory.getLogger(SmbFile2MetadataWatcher.class);
+
+	/** 监听的变化类型：文件名、目录名、属性、大小及修改时间 */
+	public static final int WATCH_FILTER = FileNotifyInformation.FILE_NOTIFY_CHANGE_NAME
+			| FileNotifyInformation.FILE_NOTIFY_CHANGE_ATTRIBUTES | FileNotifyInformation.FILE_NOTIFY_CHANGE_SIZE
+			| FileNotifyInformation.FILE_NOTIFY_CHANGE_LAST_WRITE;
+
+	private static final ThreadFactory WATCH_THREAD_FACTORY = new BasicThreadFactory.Builder()
+			.namingPattern("smb-watch-%d").daemon(true).build();
+
+	private final ISMBClient client;
+	private final SmbFile2 smbClient;
+	private final MetadataCache metadataCache;
+	private final String sharedDir;
+	private final SmbWatchHandle handle;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param client		：SMBClient共享文件资源服务客户端，用于借出及归还SMBClient对象
+	 * @param metadataCache	：需要失效的元数据缓存
+	 * @param sharedDir		：相对SMBClient路径的监听目录
+	 * @param recursive		：是否同时监听子目录
+	 */
+	public SmbFile2MetadataWatcher(ISMBClient client, MetadataCache metadataCache, String sharedDir, boolean recursive) throws Exception {
+		this.client = client;
+		this.metadataCache = metadataCache;
+		this.sharedDir = sharedDir;
+		this.smbClient = client.getSMBClient();
+		try {
+			SmbFile2 currentDir = new SmbFile2(smbClient, SMBPathUtils.getSharedDir(sharedDir));
+			this.handle = currentDir.watch(WATCH_FILTER, recursive);
+		} catch (Exception e) {
+			client.releaseClient(smbClient);
+			throw e;
+		}
+		WATCH_THREAD_FACTORY.newThread(new Runnable() {
+
+			@Override
+			public void run() {
+				watchLoop();
+			}
+
+		}).start();
+	}
+
+	protected void watchLoop() {
+		try {
+			while (!closed) {
+				List<FileNotifyInformation> changes = handle.watch();
+				if (closed) {
+					break;
+				}
+				if (changes == null || changes.isEmpty()) {
+					//通知缓冲区溢出时服务端不返回变化明细，整个目录失效
+					metadataCache.invalidate(sharedDir);
+					continue;
+				}
+				for (FileNotifyInformation change : changes) {
+					metadataCache.invalidate(sharedDir + "/" + change.getFileName().replace('\\', '/'));
+				}
+			}
+		} catch (Exception e) {
+			if (!closed) {
+				//监听中断后无法感知远程变化，缓存退化为仅按有效期过期
+				LOG.warn("Watching [" + sharedDir + "] stopped : " + e.getMessage());
+				metadataCache.invalidate(sharedDir);
+			}
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			handle.close();
+		} finally {
+			try {
+				client.releaseClient(smbClient);
+			} catch (Exception e) {
+				LOG.warn("Release SMBClient of watcher failed : " + e.getMessage());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package jcifs.smb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 基于共享文件随机访问句柄的输出流：从指定位置开始覆盖写入，不截断文件，用于断点续传时从已上传的长度继续写入
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile2RandomAccessOutputStream extends OutputStream {
+
+	private final SmbRandomAccessFile output;
+
+	/**
+	 * @param sharedFile	：共享文件
+	 * @param offset		：开始写入的位置
+	 */
+	public SmbFile2RandomAccessOutputStream(SmbFile sharedFile, long offset) throws IOException {
+		this.output = new SmbRandomAccessFile(sharedFile, "rw");
+		output.seek(offset);
+	}
+
+	public long getPosition() throws IOException {
+		return output.getFilePointer();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		output.write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		output.write(b, off, len);
+	}
+
+	@Override
+	public void close() throws IOException {
+		output.close();
+	}
+
+}
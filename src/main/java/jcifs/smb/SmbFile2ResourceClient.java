@@ -2,20 +2,41 @@ package jcifs.smb;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 
-import jcifs.smb1.filter.Smb1FileFilter;
+import jcifs.io.BatchReport;
+import jcifs.io.ContentCache;
+import jcifs.io.CopyStreamProcessListener;
+import jcifs.io.FileMetadata;
+import jcifs.io.MetadataCache;
+import jcifs.io.ReleasingFileIterator;
+import jcifs.io.SmbFileIterator;
+import jcifs.smb.filter.DelegateFileFilter;
+import jcifs.smb.filter.Smb2FileFilter;
+import jcifs.smb.filter.Smb2FileFilters;
+import jcifs.smb.filter.TrueFileFilter;
+import jcifs.utils.Smb2BatchUtils;
 import jcifs.utils.Smb2FileUtils;
+import jcifs.utils.Smb2ListUtils;
+import jcifs.utils.Smb2MirrorUtils;
+import jcifs.utils.Smb2RangeUtils;
+import jcifs.utils.SmbFileUtils;
  
 /**
  * 基于ThreadLocal多线程对象复用的SMBClient共享文件资源服务客户端实现
@@ -25,6 +46,10 @@ public class SmbFile2ResourceClient implements ISMBClient{
 	
 	private ThreadLocal<SmbFile2> clientThreadLocal = new ThreadLocal<SmbFile2>();  
 	private SmbFile2Builder clientBuilder;
+	/** 目录元数据缓存;为null时不缓存 */
+	private MetadataCache metadataCache;
+	/** 下载时使用的本地读穿透缓存;为null时使用客户端配置的本地备份 */
+	private ContentCache contentCache;
 	
 	public SmbFile2ResourceClient(){
 	}
@@ -38,15 +63,13 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try {
-			//当前目录
-			SmbFile currentDir = new SmbFile(smbClient,targetDir);
-			if(!currentDir.exists()){
-				currentDir.mkdirs();
-			}
-			return true;
+			//当前目录；已知存在时不再检查，只创建缺失的部分
+			return Smb2FileUtils.makeDir(smbClient, targetDir);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(targetDir);
         }
 	}
 	
@@ -68,6 +91,12 @@ public class SmbFile2ResourceClient implements ISMBClient{
         }
 	}
 	
+	@Override
+	public BatchReport downloadToDir(String sharedDir,File localDir,int parallelism,CopyStreamProcessListener listener) throws Exception{
+		//多个连接并行递归下载
+		return Smb2MirrorUtils.retrieveToDir(this, sharedDir, localDir, parallelism, listener);
+	}
+	
 	@Override
 	public void downloadToFile(String filepath, File localFile) throws Exception {
 		//获得一个SMBClient对象
@@ -75,12 +104,18 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		try {
 			//源文件
 			SmbFile2 smbFile = new SmbFile2( smbClient, filepath);
-			//下载共享文件至输出流
-			Smb2FileUtils.retrieveToFile(smbFile, localFile);
+			//大文件且开启了分段下载时，改为多线程分段并行下载
+			if(!Smb2RangeUtils.isRangeable(smbFile)){
+				//下载共享文件至输出流
+				Smb2FileUtils.retrieveToFile(smbFile, localFile);
+				return;
+			}
         } finally {
-        	//释放对象  
+        	//释放对象
 			releaseClient(smbClient);
         }
+		//分段并行下载共享文件至本地文件
+		Smb2RangeUtils.retrieveToFile(this, filepath, localFile);
 	}
 	
 	@Override
@@ -106,11 +141,17 @@ public class SmbFile2ResourceClient implements ISMBClient{
 
 	@Override
 	public void downloadToStream(String filepath,OutputStream output) throws Exception {
+		ContentCache contentCache = getContentCache();
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try {
 			//源文件
 			SmbFile2 smbFile = new SmbFile2( smbClient, filepath);
+			//开启本地备份时通过本地读穿透缓存下载
+			if(contentCache != null){
+				Smb2FileUtils.retrieveToStream(smbFile, output, contentCache);
+				return;
+			}
 			//下载共享文件至输出流
 			Smb2FileUtils.retrieveToStream(smbFile, output);
         } finally {
@@ -126,13 +167,34 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		this.downloadToStream(filepath, output);
 	}
 	
+	@Override
+	public void downloadToResponse(String filepath,HttpServletRequest request,HttpServletResponse response) throws Exception {
+		//获得一个SMBClient对象
+		SmbFile2 smbClient = getSMBClient();
+		try {
+			//源文件
+			SmbFile2 smbFile = new SmbFile2( smbClient, filepath);
+			//按请求的字节区间下载共享文件至响应
+			Smb2FileUtils.retrieveToResponse(smbFile, request, response);
+        } finally {
+        	//释放对象
+        	releaseClient(smbClient);
+        }
+	}
+	
 	@Override
 	public void downloadToResponse(String filepath,ServletResponse response) throws Exception {
+		ContentCache contentCache = getContentCache();
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try {
 			//源文件
 			SmbFile2 smbFile = new SmbFile2( smbClient, filepath);
+			//开启本地备份时通过本地读穿透缓存下载
+			if(contentCache != null){
+				Smb2FileUtils.retrieveToResponse(smbFile, response, contentCache);
+				return;
+			}
 			//下载共享文件至输出流
 			Smb2FileUtils.retrieveToResponse(smbFile, response);
         } finally {
@@ -175,37 +237,51 @@ public class SmbFile2ResourceClient implements ISMBClient{
 	}
 	
 	@Override
-	public InputStream getInputStream(String filepath) throws Exception{
+	public boolean exists(String filepath) throws Exception {
+		//优先从元数据缓存读取
+		Boolean exists = (Boolean) cached(MetadataCache.EXISTS, filepath);
+		if(exists != null){
+			return exists;
+		}
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
-		try { 
-			return Smb2FileUtils.getInputStream(smbClient, filepath);
-		} finally {
-			//释放对象  
+		try {
+			exists = new SmbFile2( smbClient, filepath).exists();
+        } finally {
+        	//释放对象  
 			releaseClient(smbClient);
         }
+		cache(MetadataCache.EXISTS, filepath, exists, generation);
+		return exists;
 	}
 	
 	@Override
-	public String[] listNames(String sharedDir) throws Exception {
+	public boolean isDirectory(String filepath) throws Exception {
+		//优先从元数据缓存读取
+		Boolean directory = (Boolean) cached(MetadataCache.DIRECTORY, filepath);
+		if(directory != null){
+			return directory;
+		}
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
-		try { 
-	        return Smb2FileUtils.listNames(smbClient, sharedDir);
-		} finally {
-			//释放对象  
+		try {
+			directory = new SmbFile2( smbClient, filepath).isDirectory();
+        } finally {
+        	//释放对象  
 			releaseClient(smbClient);
         }
+		cache(MetadataCache.DIRECTORY, filepath, directory, generation);
+		return directory;
 	}
-
+	
 	@Override
-	public SmbFile2[] listFiles(String sharedDir) throws Exception {
+	public InputStream getInputStream(String filepath) throws Exception{
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir);
-	        return list.toArray(new SmbFile2[list.size()] );
+			return Smb2FileUtils.getInputStream(smbClient, filepath);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
@@ -213,38 +289,73 @@ public class SmbFile2ResourceClient implements ISMBClient{
 	}
 	
 	@Override
-	public SmbFile2[] listFiles(String sharedDir,boolean recursion) throws Exception {
+	public String[] listNames(String sharedDir) throws Exception {
+		//优先从元数据缓存读取
+		String[] names = (String[]) cached(MetadataCache.NAMES, sharedDir);
+		if(names != null){
+			return names.clone();
+		}
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, recursion);
-	        return list.toArray(new SmbFile2[list.size()] );
+			names = Smb2FileUtils.listNames(smbClient, sharedDir);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
         }
+		cache(MetadataCache.NAMES, sharedDir, names, generation);
+		return names == null ? null : names.clone();
 	}
 
 	@Override
-	public SmbFile2[] listFiles(String sharedDir, String[] extensions) throws Exception{
+	public SmbFile2[] listFiles(String sharedDir) throws Exception {
+		return this.listFiles(sharedDir, false);
+	}
+	
+	@Override
+	public SmbFile2[] listFiles(String sharedDir,boolean recursion) throws Exception {
+		String kind = recursion ? MetadataCache.FILES_RECURSIVE : MetadataCache.FILES;
+		//优先从元数据缓存读取
+		FileMetadata[] metadata = (FileMetadata[]) cached(kind, sharedDir);
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, extensions, false);
-	        return list.toArray(new SmbFile2[list.size()] );
+			if(metadata == null && getMetadataCache() == null){
+				//列出当前工作目录的文件信息
+				List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, recursion);
+				return list.toArray(new SmbFile2[list.size()] );
+			}
+			if(metadata == null){
+				//缓存只保存不可变的元数据，不保存与会话关联的文件对象
+				List<FileMetadata> list = Smb2FileUtils.listMetadata(smbClient, sharedDir, recursion);
+				metadata = list.toArray(new FileMetadata[list.size()]);
+				cache(kind, sharedDir, metadata, generation);
+			}
+			//在本次获得的SMBClient对象上包装，属性直接取自元数据
+			return CachedSmbFile2.fromMetadata(smbClient, metadata);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
         }
 	}
+
+	@Override
+	public SmbFile2[] listFiles(String sharedDir, String[] extensions) throws Exception{
+		return this.listFiles(sharedDir, extensions, false);
+	}
 	
 	@Override
 	public SmbFile2[] listFiles(String sharedDir, String[] extensions,boolean recursion) throws Exception{
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try { 
+			if(getMetadataCache() != null){
+				//与 Smb2FileUtils.listFiles 一致：只返回当前目录下扩展名匹配的文件
+				Collection<SmbFile> files = SmbFileUtils.listFiles(cachedChildren(smbClient, sharedDir), extensions);
+				return files.toArray(new SmbFile2[files.size()] );
+			}
 			//列出当前工作目录的文件信息
 			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, extensions , recursion);
 	        return list.toArray(new SmbFile2[list.size()] );
@@ -255,31 +366,99 @@ public class SmbFile2ResourceClient implements ISMBClient{
 	}
 	
 	@Override
-	public SmbFile2[] listFiles(String sharedDir, Smb1FileFilter filter) throws Exception{
+	public SmbFile2[] listFiles(String sharedDir, SmbFileFilter filter) throws Exception{
+		return this.listFiles(sharedDir, filter, false);
+	}
+		
+	@Override
+	public SmbFile2[] listFiles(String sharedDir, SmbFileFilter filter,boolean recursion) throws Exception{
+		Smb2FileFilter fileFilter = filter == null || filter instanceof Smb2FileFilter ? (Smb2FileFilter) filter : new DelegateFileFilter(filter);
 		//获得一个SMBClient对象
 		SmbFile2 smbClient = getSMBClient();
 		try { 
+			if(getMetadataCache() != null){
+				List<SmbFile2> list = new ArrayList<SmbFile2>();
+				//与 Smb2FileUtils.listFiles 一致：当前目录的条目逐个过滤，递归时命中的目录展开为其下所有匹配的文件
+				for (SmbFile sharedFile : SmbFileUtils.listFiles(cachedChildren(smbClient, sharedDir), fileFilter)) {
+					if(sharedFile.isDirectory() && recursion){
+						this.listCachedFiles(smbClient, ((CachedSmbFile2) sharedFile).getMetadata().getPath(),
+								fileFilter == null ? TrueFileFilter.INSTANCE : Smb2FileFilters.compile(fileFilter), list);
+					} else {
+						list.add((SmbFile2) sharedFile);
+					}
+				}
+				return list.toArray(new SmbFile2[list.size()] );
+			}
 			//列出当前工作目录的文件信息
-			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, filter , false );
+			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, fileFilter , recursion);
 	        return list.toArray(new SmbFile2[list.size()] );
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
         }
 	}
-		
+	
+	/**
+	 * 目录下一级的条目：优先从元数据缓存读取，未命中时列举并写入缓存；在指定的SMBClient对象上包装，属性直接取自元数据
+	 */
+	protected CachedSmbFile2[] cachedChildren(SmbFile2 smbClient, String sharedDir) throws Exception {
+		FileMetadata[] metadata = (FileMetadata[]) cached(MetadataCache.FILES, sharedDir);
+		if(metadata == null){
+			long generation = generation();
+			List<FileMetadata> list = Smb2FileUtils.listMetadata(smbClient, sharedDir, false);
+			metadata = list.toArray(new FileMetadata[list.size()]);
+			cache(MetadataCache.FILES, sharedDir, metadata, generation);
+		}
+		return CachedSmbFile2.fromMetadata(smbClient, metadata);
+	}
+	
+	/**
+	 * 递归收集目录下所有匹配的文件，每一级目录的条目都经过元数据缓存
+	 */
+	private void listCachedFiles(SmbFile2 smbClient, String sharedDir, Smb2FileFilter filter, List<SmbFile2> list) throws Exception {
+		for (CachedSmbFile2 sharedFile : cachedChildren(smbClient, sharedDir)) {
+			if(sharedFile.isDirectory()){
+				this.listCachedFiles(smbClient, sharedFile.getMetadata().getPath(), filter, list);
+			} else if(filter.accept(sharedFile)){
+				list.add(sharedFile);
+			}
+		}
+	}
+	
 	@Override
-	public SmbFile2[] listFiles(String sharedDir, Smb1FileFilter filter,boolean recursion) throws Exception{
+	public FileMetadata[] listMetadata(String sharedDir, Smb2FileFilter fileFilter, Smb2FileFilter dirFilter,int parallelism) throws Exception{
+		//多个连接并行递归列举，被目录过滤器排除的子目录不再列举；结果为列举时记录的元数据，不引用工作线程的会话
+		List<FileMetadata> list = Smb2ListUtils.listMetadata(this, sharedDir, fileFilter, dirFilter, parallelism);
+		return list.toArray(new FileMetadata[list.size()] );
+	}
+	
+	@Override
+	public SmbFileIterator<SmbFile2> children(String sharedDir) throws Exception{
+		return this.children(sharedDir, null);
+	}
+	
+	@Override
+	public SmbFileIterator<SmbFile2> children(String sharedDir, Smb2FileFilter filter) throws Exception{
 		//获得一个SMBClient对象
-		SmbFile2 smbClient = getSMBClient();
-		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile2> list = Smb2FileUtils.listFiles(smbClient, sharedDir, filter , recursion);
-	        return list.toArray(new SmbFile2[list.size()] );
+		final SmbFile2 smbClient = getSMBClient();
+		SmbFileIterator<SmbFile2> iterator = null;
+		try {
+			iterator = Smb2FileUtils.children(smbClient, sharedDir, filter);
 		} finally {
-			//释放对象  
-			releaseClient(smbClient);
-        }
+			if(iterator == null){
+				//释放对象  
+				releaseClient(smbClient);
+			}
+		}
+		//遍历结束或关闭遍历器时释放对象
+		return new ReleasingFileIterator<SmbFile2>(iterator) {
+			
+			@Override
+			protected void release() throws Exception {
+				releaseClient(smbClient);
+			}
+			
+		};
 	}
 	
 	@Override
@@ -291,6 +470,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepath);
         }
 	}
 	
@@ -303,6 +484,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepaths);
         }
 	}
 	
@@ -318,6 +501,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir + "/" + fileName);
         }
 	}
 	
@@ -333,9 +518,22 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir);
         }
 	}
 	
+	@Override
+	public BatchReport remove(String[] filepaths,int parallelism) throws Exception{
+		//多个连接并行删除
+		try {
+			return Smb2BatchUtils.remove(this, filepaths, parallelism);
+		} finally {
+			//使元数据缓存失效
+			invalidate(filepaths);
+		}
+	}
+	
 	@Override
 	public boolean removeDir(String sharedDir) throws Exception {
 		//获得一个SMBClient对象
@@ -345,6 +543,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir);
         }
 	}
 
@@ -356,6 +556,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepath, FilenameUtils.getFullPath(filepath) + fileName);
         }
 	}
 	
@@ -367,9 +569,34 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepath, destpath);
         }
 	}
 	
+	@Override
+	public BatchReport rename(Map<String, String> filepaths,int parallelism) throws Exception{
+		//多个连接并行移动或重命名
+		try {
+			return Smb2BatchUtils.rename(this, filepaths, parallelism);
+		} finally {
+			//使元数据缓存失效
+			invalidate(filepaths.keySet().toArray(new String[filepaths.size()]));
+			invalidate(filepaths.values().toArray(new String[filepaths.size()]));
+		}
+	}
+	
+	@Override
+	public BatchReport upload(Map<String, byte[]> files,int parallelism) throws Exception{
+		//多个连接并行上传
+		try {
+			return Smb2BatchUtils.upload(this, files, parallelism);
+		} finally {
+			//使元数据缓存失效
+			invalidate(files.keySet().toArray(new String[files.size()]));
+		}
+	}
+	
 	@Override
 	public boolean upload(byte[] bytes,String destpath) throws Exception{
 		InputStream input = null;
@@ -392,17 +619,13 @@ public class SmbFile2ResourceClient implements ISMBClient{
 	
 	@Override
 	public boolean upload(File localFile,String destpath) throws Exception {
-		//获得一个SMBClient对象
-		SmbFile2 smbClient = getSMBClient();
+		//存储本地文件到【文件共享服务器】；大文件且开启了分段上传时，改为多线程分段并行上传
 		try {
-			//目标文件
-			SmbFile2 sharedFile = new SmbFile2(smbClient,destpath);
-			//存储本地文件到【文件共享服务器】
-			return Smb2FileUtils.storeFile(localFile , sharedFile);
-        } finally {
-        	//释放对象  
-			releaseClient(smbClient);
-        }
+			return Smb2FileUtils.storeFile(localFile, this, destpath);
+		} finally {
+			//使元数据缓存失效
+			invalidate(destpath);
+		}
 	}
 	
 	@Override
@@ -417,6 +640,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
         } finally {
         	//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir + "/" + fileName);
         }
 	}
 	
@@ -429,6 +654,8 @@ public class SmbFile2ResourceClient implements ISMBClient{
         } finally {
         	//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(destpath);
         }
 	}
 	
@@ -472,14 +699,13 @@ public class SmbFile2ResourceClient implements ISMBClient{
 	
 	@Override
 	public boolean uploadByChannel(File localFile,String destpath) throws Exception{
-		//获得一个SMBClient对象
-		SmbFile2 smbClient = getSMBClient();
+		//采用NOI存储本地文件到【文件共享服务器】；大文件且开启了分段上传时，改为多线程分段并行上传
 		try {
-			return Smb2FileUtils.storeFileChannel(localFile ,smbClient, destpath);
-        } finally {
-        	//释放对象  
-			releaseClient(smbClient);
-        }
+			return Smb2FileUtils.storeFileChannel(localFile, this, destpath);
+		} finally {
+			//使元数据缓存失效
+			invalidate(destpath);
+		}
 	}
 	
 	@Override
@@ -513,6 +739,68 @@ public class SmbFile2ResourceClient implements ISMBClient{
 		//SMBConnectUtils.releaseConnect(smbClient);
 	}
 
+	protected Object cached(String kind, String path) {
+		return metadataCache == null ? null : metadataCache.get(kind, path);
+	}
+
+	protected long generation() {
+		return metadataCache == null ? 0 : metadataCache.getGeneration();
+	}
+
+	protected void cache(String kind, String path, Object value, long generation) {
+		if (metadataCache != null) {
+			metadataCache.put(kind, path, value, generation);
+		}
+	}
+
+	/**
+	 * 本客户端修改了指定路径，使相关的元数据缓存条目失效
+	 */
+	protected void invalidate(String... paths) {
+		if (metadataCache == null || paths == null) {
+			return;
+		}
+		for (String path : paths) {
+			metadataCache.invalidate(path);
+		}
+	}
+
+	/**
+	 * 通过 SMB2 CHANGE_NOTIFY 监听共享目录的远程变化，收到通知时使元数据缓存中对应的条目失效；
+	 * 监听期间独占一个SMBClient对象，关闭返回的监听器后归还
+	 * @param sharedDir	：相对SMBClient路径的监听目录
+	 * @param recursive	：是否同时监听子目录
+	 */
+	public SmbFile2MetadataWatcher watch(String sharedDir, boolean recursive) throws Exception {
+		if (metadataCache == null) {
+			throw new IllegalStateException("metadataCache is null.");
+		}
+		return new SmbFile2MetadataWatcher(this, metadataCache, sharedDir, recursive);
+	}
+
+	public MetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	public void setMetadataCache(MetadataCache metadataCache) {
+		this.metadataCache = metadataCache;
+	}
+	
+	/**
+	 * 获取下载时使用的本地读穿透缓存;未指定时使用客户端配置开启的本地备份
+	 * @return 未开启时返回null
+	 */
+	public ContentCache getContentCache() throws IOException {
+		if (contentCache == null && clientBuilder != null) {
+			return clientBuilder.getConfiguration().getContentCache();
+		}
+		return contentCache;
+	}
+
+	public void setContentCache(ContentCache contentCache) {
+		this.contentCache = contentCache;
+	}
+	
 	public void setClientBuilder(SmbFile2Builder clientBuilder) {
 		this.clientBuilder = clientBuilder;
 	}
@@ -0,0 +1,212 @@
+package jcifs.smb;
+
+import java.lang.reflect.Constructor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import jcifs.io.BufferPool;
+import jcifs.io.CopyStreamProcessListener;
+
+/**
+ * SmbFile2 的传输参数：创建后不可修改，由同一客户端包装出的所有 SmbFile2 对象共享同一实例，
+ * 包装目录项时只需传递一个引用而不必逐项拷贝参数；修改参数通过 withXxx 方法得到新的实例。<br/>
+ * 进度监听对象记录文件名及进度，不能在客户端之间共享：这里只保存配置的监听对象及按类名解析出的构造方法，
+ * 由 {@link #newCopyStreamProcessListener()} 为每个客户端创建
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public final class SmbFile2Settings {
+
+	/** 默认参数 */
+	public static final SmbFile2Settings DEFAULT = new SmbFile2Settings();
+
+	/** 启用或禁用数据流方式上传/下载时是否在缓冲发送/接收完成自动刷新缓存区；大文件上传下载时比较有用;默认false */
+	private boolean autoFlush = false;
+	/** 数据流方式上传/下载时缓存区达到可自动刷新的最小阀值；仅当 autoflush 为true 时才有效；默认与默认缓存区大小相同即 8M */
+	private int autoFlushBlockSize = SmbFile2.DEFAULT_BUFFER_SIZE;
+	/** 内部缓冲区大小;默认 8M */
+	private int bufferSize = SmbFile2.DEFAULT_BUFFER_SIZE;
+	/** 文件通道读取缓冲区大小;默认 2M */
+	private int channelReadBufferSize = SmbFile2.DEFAULT_CHANNEL_SIZE;
+	/** 文件通道写出缓冲区大小;默认 2M */
+	private int channelWriteBufferSize = SmbFile2.DEFAULT_CHANNEL_SIZE;
+	/** 分段并行上传/下载时每个分段的大小;默认 16M */
+	private long rangeSize = SmbFile2.DEFAULT_RANGE_SIZE;
+	/** 分段并行上传/下载的线程数;默认 1 即不分段 */
+	private int rangeThreads = 1;
+	/** 分段并行上传时单个分段写入失败后的重试次数;默认 3 */
+	private int rangeRetries = 3;
+	/** 拷贝缓冲区池;默认使用全局共享缓冲池 */
+	private BufferPool bufferPool = BufferPool.getDefault();
+	/** 配置的进度监听对象;未配置监听类名时使用 */
+	private CopyStreamProcessListener copyStreamProcessListener;
+	/** 按监听类名解析出的构造方法;只解析一次 */
+	private Constructor<CopyStreamProcessListener> copyStreamProcessListenerConstructor;
+	/** 是否使用Log4j记录命令信息,默认打印出命令，如果开启日志则关闭打印;默认 false */
+	private boolean logDebug = false;
+
+	private SmbFile2Settings() {
+	}
+
+	/**
+	 * 根据客户端配置创建参数对象；监听对象类名只在此处解析一次
+	 */
+	@SuppressWarnings("unchecked")
+	public static SmbFile2Settings of(SmbFile2Config config) {
+		SmbFile2Settings settings = new SmbFile2Settings();
+		settings.autoFlush = config.isAutoFlush();
+		settings.autoFlushBlockSize = config.getAutoFlushBlockSize();
+		settings.bufferSize = config.getBufferSize();
+		settings.channelReadBufferSize = config.getChannelReadBufferSize();
+		settings.channelWriteBufferSize = config.getChannelWriteBufferSize();
+		settings.rangeSize = config.getRangeSize();
+		settings.rangeThreads = config.getRangeThreads();
+		settings.rangeRetries = config.getRangeRetries();
+		settings.bufferPool = config.getBufferPool() == null ? BufferPool.getDefault() : config.getBufferPool();
+		settings.logDebug = config.isLogDebug();
+		settings.copyStreamProcessListener = config.getCopyStreamProcessListener();
+		try {
+			//进行存储时/检索操作时数据处理进度监听对象
+			if(StringUtils.isNotEmpty(config.getCopyStreamProcessListenerName())){
+				Class<CopyStreamProcessListener> listenerClazz = (Class<CopyStreamProcessListener>) Class.forName(config.getCopyStreamProcessListenerName());
+				settings.copyStreamProcessListenerConstructor = listenerClazz.getConstructor();
+			}
+		} catch (Exception e) {
+			SmbFile2.LOG.error(ExceptionUtils.getStackTrace(e));
+		}
+		return settings;
+	}
+
+	private SmbFile2Settings copy() {
+		SmbFile2Settings settings = new SmbFile2Settings();
+		settings.autoFlush = autoFlush;
+		settings.autoFlushBlockSize = autoFlushBlockSize;
+		settings.bufferSize = bufferSize;
+		settings.channelReadBufferSize = channelReadBufferSize;
+		settings.channelWriteBufferSize = channelWriteBufferSize;
+		settings.rangeSize = rangeSize;
+		settings.rangeThreads = rangeThreads;
+		settings.rangeRetries = rangeRetries;
+		settings.bufferPool = bufferPool;
+		settings.copyStreamProcessListener = copyStreamProcessListener;
+		settings.copyStreamProcessListenerConstructor = copyStreamProcessListenerConstructor;
+		settings.logDebug = logDebug;
+		return settings;
+	}
+
+	public boolean isAutoFlush() {
+		return autoFlush;
+	}
+
+	public SmbFile2Settings withAutoFlush(boolean autoFlush) {
+		SmbFile2Settings settings = copy();
+		settings.autoFlush = autoFlush;
+		return settings;
+	}
+
+	public int getAutoFlushBlockSize() {
+		return autoFlushBlockSize;
+	}
+
+	public SmbFile2Settings withAutoFlushBlockSize(int autoFlushBlockSize) {
+		SmbFile2Settings settings = copy();
+		settings.autoFlushBlockSize = autoFlushBlockSize;
+		return settings;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public SmbFile2Settings withBufferSize(int bufferSize) {
+		SmbFile2Settings settings = copy();
+		settings.bufferSize = bufferSize;
+		return settings;
+	}
+
+	public int getChannelReadBufferSize() {
+		return channelReadBufferSize;
+	}
+
+	public SmbFile2Settings withChannelReadBufferSize(int channelReadBufferSize) {
+		SmbFile2Settings settings = copy();
+		settings.channelReadBufferSize = channelReadBufferSize;
+		return settings;
+	}
+
+	public int getChannelWriteBufferSize() {
+		return channelWriteBufferSize;
+	}
+
+	public SmbFile2Settings withChannelWriteBufferSize(int channelWriteBufferSize) {
+		SmbFile2Settings settings = copy();
+		settings.channelWriteBufferSize = channelWriteBufferSize;
+		return settings;
+	}
+
+	public long getRangeSize() {
+		return rangeSize;
+	}
+
+	public SmbFile2Settings withRangeSize(long rangeSize) {
+		SmbFile2Settings settings = copy();
+		settings.rangeSize = rangeSize;
+		return settings;
+	}
+
+	public int getRangeThreads() {
+		return rangeThreads;
+	}
+
+	public SmbFile2Settings withRangeThreads(int rangeThreads) {
+		SmbFile2Settings settings = copy();
+		settings.rangeThreads = rangeThreads;
+		return settings;
+	}
+
+	public int getRangeRetries() {
+		return rangeRetries;
+	}
+
+	public SmbFile2Settings withRangeRetries(int rangeRetries) {
+		SmbFile2Settings settings = copy();
+		settings.rangeRetries = rangeRetries;
+		return settings;
+	}
+
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	public SmbFile2Settings withBufferPool(BufferPool bufferPool) {
+		SmbFile2Settings settings = copy();
+		settings.bufferPool = bufferPool == null ? BufferPool.getDefault() : bufferPool;
+		return settings;
+	}
+
+	/**
+	 * 创建进度监听对象：配置了监听类名时每次调用都通过缓存的构造方法创建新的对象，否则返回配置的监听对象
+	 */
+	public CopyStreamProcessListener newCopyStreamProcessListener() {
+		if (copyStreamProcessListenerConstructor == null) {
+			return copyStreamProcessListener;
+		}
+		try {
+			return copyStreamProcessListenerConstructor.newInstance();
+		} catch (Exception e) {
+			SmbFile2.LOG.error(ExceptionUtils.getStackTrace(e));
+			return copyStreamProcessListener;
+		}
+	}
+
+	public boolean isLogDebug() {
+		return logDebug;
+	}
+
+	public SmbFile2Settings withLogDebug(boolean logDebug) {
+		SmbFile2Settings settings = copy();
+		settings.logDebug = logDebug;
+		return settings;
+	}
+
+}
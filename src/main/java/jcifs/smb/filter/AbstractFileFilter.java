@@ -18,7 +18,7 @@ package jcifs.smb.filter;
 import jcifs.smb.SmbException;
 import jcifs.smb.SmbFile;
 
-public abstract class AbstractFileFilter implements Smb2FileFilter {
+public abstract class AbstractFileFilter implements AttributeFileFilter {
 
     /**
      * Checks to see if the File should be accepted by this filter.
@@ -46,6 +46,24 @@ public abstract class AbstractFileFilter implements Smb2FileFilter {
 		}
     }
 
+    /**
+     * 默认不声明属性，基于快照过滤时直接使用文件判断
+     */
+	public int getRequiredAttributes() {
+		return 0;
+	}
+
+	public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+		return accept(attributes.getFile());
+	}
+
+    /**
+     * 默认按使用文件属性计算代价
+     */
+	public int getCost() {
+		return COST_METADATA;
+	}
+
     /**
      * Provide a String representaion of this file filter.
      *
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.Serializable;
 import java.util.Date;
 
+import jcifs.smb.SmbException;
 import jcifs.smb.SmbFile;
 import jcifs.utils.SmbFileUtils;
 
@@ -120,6 +121,17 @@ public class AgeFileFilter extends AbstractFileFilter implements Serializable {
         return acceptOlder ? !newer : newer;
     }
 
+    @Override
+    public int getRequiredAttributes() {
+        return SmbFileAttributes.LAST_MODIFIED;
+    }
+
+    @Override
+    public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+        final boolean newer = attributes.getLastModified() > cutoff;
+        return acceptOlder ? !newer : newer;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
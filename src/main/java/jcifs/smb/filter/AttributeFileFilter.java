@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package jcifs.smb.filter;
+
+import jcifs.smb.SmbException;
+
+/**
+ * 声明所需文件属性的过滤器：列出目录时先按声明的属性生成 {@link SmbFileAttributes} 快照，再基于快照过滤
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public interface AttributeFileFilter extends Smb2FileFilter {
+
+	/** 过滤代价：只使用文件名，无需访问服务器 */
+	int COST_NAME = 0;
+	/** 过滤代价：使用文件属性 */
+	int COST_METADATA = 1;
+	/** 过滤代价：需要读取文件内容 */
+	int COST_CONTENT = 2;
+
+	/**
+	 * 过滤需要的属性，见 {@link SmbFileAttributes} 中的常量；文件名始终可用，无需声明
+	 */
+	int getRequiredAttributes();
+
+	/**
+	 * 基于属性快照判断是否接受该文件
+	 */
+	boolean accept(SmbFileAttributes attributes) throws SmbException;
+
+	/**
+	 * 过滤代价，见 {@link #COST_NAME}、{@link #COST_METADATA}、{@link #COST_CONTENT}；
+	 * 组合过滤器编译时按代价从低到高排列子过滤器
+	 */
+	int getCost();
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package jcifs.smb.filter;
+
+import java.io.Serializable;
+import java.util.List;
+
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile;
+
+/**
+ * 编译后的组合过滤器：同类的 与/或 过滤器展开为一层，子过滤器按代价从低到高排列，
+ * 依次短路求值，文件名过滤在前，属性过滤其次，读取内容的过滤最后；由 {@link Smb2FileFilters#compile(Smb2FileFilter)} 生成
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+@SuppressWarnings("serial")
+public class CompiledFileFilter extends AbstractFileFilter implements Serializable {
+
+	/** true：全部接受才接受（与）；false：任一接受即接受（或） */
+	private final boolean conjunction;
+	private final Smb2FileFilter[] fileFilters;
+	private final int requiredAttributes;
+	private final int cost;
+
+	protected CompiledFileFilter(final boolean conjunction, final List<Smb2FileFilter> fileFilters) {
+		this.conjunction = conjunction;
+		this.fileFilters = fileFilters.toArray(new Smb2FileFilter[fileFilters.size()]);
+		int attributes = 0;
+		int cost = COST_NAME;
+		for (final Smb2FileFilter fileFilter : this.fileFilters) {
+			attributes |= Smb2FileFilters.getRequiredAttributes(fileFilter);
+			cost = Math.max(cost, Smb2FileFilters.getCost(fileFilter));
+		}
+		this.requiredAttributes = attributes;
+		this.cost = cost;
+	}
+
+	@Override
+	public boolean accept(final SmbFile file) throws SmbException {
+		return accept(SmbFileAttributes.of(file, 0));
+	}
+
+	@Override
+	public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+		for (final Smb2FileFilter fileFilter : fileFilters) {
+			if (Smb2FileFilters.accept(fileFilter, attributes) != conjunction) {
+				return !conjunction;
+			}
+		}
+		return conjunction;
+	}
+
+	@Override
+	public int getRequiredAttributes() {
+		return requiredAttributes;
+	}
+
+	@Override
+	public int getCost() {
+		return cost;
+	}
+
+	public boolean isConjunction() {
+		return conjunction;
+	}
+
+	public Smb2FileFilter[] getFileFilters() {
+		return fileFilters.clone();
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder buffer = new StringBuilder();
+		buffer.append(conjunction ? "And" : "Or").append(super.toString());
+		buffer.append("(");
+		for (int i = 0; i < fileFilters.length; i++) {
+			if (i > 0) {
+				buffer.append(",");
+			}
+			buffer.append(fileFilters[i]);
+		}
+		buffer.append(")");
+		return buffer.toString();
+	}
+
+}
@@ -41,5 +41,15 @@ public class FileFileFilter extends AbstractFileFilter implements Serializable {
     public boolean accept(final SmbFile file) throws SmbException {
         return file.isFile();
     }
+
+    @Override
+    public int getRequiredAttributes() {
+        return SmbFileAttributes.TYPE;
+    }
+
+    @Override
+    public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+        return attributes.isFile();
+    }
  
 }
@@ -148,6 +148,19 @@ public class NameFileFilter  extends AbstractFileFilter implements Serializable{
     }
 
 
+    @Override
+    public int getCost() {
+        return COST_NAME;
+    }
+
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    public IOCase getCaseSensitivity() {
+        return caseSensitivity;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
@@ -50,6 +50,25 @@ public class NotFileFilter extends AbstractFileFilter implements Serializable {
         return ! filter.accept(file);
     }
 
+    @Override
+    public int getRequiredAttributes() {
+        return Smb2FileFilters.getRequiredAttributes(filter);
+    }
+
+    @Override
+    public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+        return ! Smb2FileFilters.accept(filter, attributes);
+    }
+
+    @Override
+    public int getCost() {
+        return Smb2FileFilters.getCost(filter);
+    }
+
+    public Smb2FileFilter getFilter() {
+        return filter;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
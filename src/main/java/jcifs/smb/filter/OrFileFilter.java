@@ -15,6 +15,7 @@
  */
 package jcifs.smb.filter;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,9 @@ import jcifs.smb.SmbFile;
 @SuppressWarnings("serial")
 public class OrFileFilter extends AbstractFileFilter implements ConditionalFileFilter, Serializable {
 	
+	/** 多个魔数过滤器共用一次读取的最大文件头长度：64K */
+	private static final int MAX_SHARED_HEADER_LENGTH = 64 * 1024;
+	
 	/** The list of file filters. */
 	private final List<Smb2FileFilter> fileFilters;
 	
@@ -104,14 +108,82 @@ public class OrFileFilter extends AbstractFileFilter implements ConditionalFileF
 	*/
 	@Override
 	public boolean accept(final SmbFile file ) throws SmbException  {
+		return accept(SmbFileAttributes.of(file, 0));
+	}
+	
+	@Override
+	public int getCost() {
+		int cost = COST_NAME;
 		for (final Smb2FileFilter fileFilter : fileFilters) {
-		    if (fileFilter.accept(file)) {
+		    cost = Math.max(cost, Smb2FileFilters.getCost(fileFilter));
+		}
+		return cost;
+	}
+	
+	@Override
+	public int getRequiredAttributes() {
+		int attributes = 0;
+		for (final Smb2FileFilter fileFilter : fileFilters) {
+		    attributes |= Smb2FileFilters.getRequiredAttributes(fileFilter);
+		}
+		return attributes;
+	}
+	
+	@Override
+	public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+		// 多个魔数过滤器共用一次文件头读取
+		final long[] range = getMagicNumberRange();
+		byte[] header = null;
+		for (final Smb2FileFilter fileFilter : fileFilters) {
+		    if (range != null && fileFilter instanceof MagicNumberFileFilter) {
+		        if (header == null) {
+		            header = readMagicNumberHeader((MagicNumberFileFilter) fileFilter, attributes, range);
+		        }
+		        if (((MagicNumberFileFilter) fileFilter).matches(header, range[0])) {
+		            return true;
+		        }
+		    } else if (Smb2FileFilters.accept(fileFilter, attributes)) {
 		        return true;
 		    }
 		}
 		return false;
 	}
 	
+	/**
+	* 计算所有魔数过滤器需要读取的文件范围；少于两个魔数过滤器或范围过大时返回 null，由各过滤器单独读取
+	*
+	* @return {起始位置, 结束位置}
+	*/
+	private long[] getMagicNumberRange() {
+		int count = 0;
+		long start = Long.MAX_VALUE;
+		long end = 0;
+		for (final Smb2FileFilter fileFilter : fileFilters) {
+		    if (fileFilter instanceof MagicNumberFileFilter) {
+		        final MagicNumberFileFilter magicFilter = (MagicNumberFileFilter) fileFilter;
+		        start = Math.min(start, magicFilter.getByteOffset());
+		        end = Math.max(end, magicFilter.getHeaderLength());
+		        count++;
+		    }
+		}
+		if (count < 2 || end - start > MAX_SHARED_HEADER_LENGTH) {
+		    return null;
+		}
+		return new long[] { start, end };
+	}
+	
+	private byte[] readMagicNumberHeader(final MagicNumberFileFilter magicFilter, final SmbFileAttributes attributes,
+			final long[] range) throws SmbException {
+		if (attributes.isFile() && attributes.getFile().canRead()) {
+		    try {
+		        return MagicNumberFileFilter.readHeader(magicFilter.open(attributes.getFile()), range[0], (int) (range[1] - range[0]));
+		    } catch (final IOException ioe) {
+		        // Do nothing, fall through and do not accept file
+		    }
+		}
+		return new byte[0];
+	}
+	
    /**
 	* Provide a String representaion of this file filter.
 	*
@@ -19,19 +19,30 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.io.IOCase;
 import org.apache.commons.io.filefilter.DirectoryFileFilter;
+import org.apache.commons.lang3.StringUtils;
 
 import jcifs.smb.SmbException;
 import jcifs.smb.SmbFile;
 
 public class Smb2FileFilters {
 
+    /** 转换为服务端通配符查询时允许的最大通配符个数，每个通配符对应一次目录查询 */
+    public static final int MAX_WILDCARDS = 16;
+    /** SMB 目录查询中具有通配含义的字符 */
+    private static final String WILDCARD_CHARS = "*?<>\"";
+
     /**
      * Accepts all SmbFile entries, including null.
      */
@@ -42,6 +53,11 @@ public class Smb2FileFilters {
             return true;
         }
     	
+    	@Override
+    	public int getCost() {
+    		return COST_NAME;
+    	}
+    	
     };
 
     /**
@@ -66,6 +82,16 @@ public class Smb2FileFilters {
 			return file != null && file.isDirectory();
         }
     	
+    	@Override
+    	public int getRequiredAttributes() {
+    		return SmbFileAttributes.TYPE;
+    	}
+    	
+    	@Override
+    	public boolean accept(SmbFileAttributes attributes) throws SmbException {
+    		return attributes.isDirectory();
+    	}
+    	
     };
 
     /**
@@ -400,6 +426,243 @@ public class Smb2FileFilters {
 
     //-----------------------------------------------------------------------
 
+    /**
+     * 过滤器需要的文件属性；未实现 {@link AttributeFileFilter} 的过滤器不声明属性
+     *
+     * @param filter the filter
+     * @return the required attributes, see {@link SmbFileAttributes}
+     */
+    public static int getRequiredAttributes(final Smb2FileFilter filter) {
+        return filter instanceof AttributeFileFilter ? ((AttributeFileFilter) filter).getRequiredAttributes() : 0;
+    }
+
+    /**
+     * 基于属性快照过滤；未实现 {@link AttributeFileFilter} 的过滤器直接使用文件判断
+     *
+     * @param filter the filter
+     * @param attributes the attribute snapshot
+     * @return true if the file is accepted
+     * @throws SmbException if the attributes cannot be read
+     */
+    public static boolean accept(final Smb2FileFilter filter, final SmbFileAttributes attributes) throws SmbException {
+        if (filter instanceof AttributeFileFilter) {
+            return ((AttributeFileFilter) filter).accept(attributes);
+        }
+        return filter.accept(attributes.getFile());
+    }
+
+    /**
+     * 过滤代价；未实现 {@link AttributeFileFilter} 的过滤器按使用文件属性计算
+     *
+     * @param filter the filter
+     * @return the cost, see {@link AttributeFileFilter#COST_NAME}
+     */
+    public static int getCost(final Smb2FileFilter filter) {
+        if (filter instanceof AttributeFileFilter) {
+            return ((AttributeFileFilter) filter).getCost();
+        }
+        if (filter instanceof TrueFileFilter || filter instanceof FalseFileFilter) {
+            return AttributeFileFilter.COST_NAME;
+        }
+        return AttributeFileFilter.COST_METADATA;
+    }
+
+    /**
+     * 编译过滤器：嵌套的同类与/或过滤器展开为一层；去掉恒真、恒假的子过滤器并提前确定结果；
+     * 或过滤器中大小写规则相同的后缀过滤器合并为一个，多个魔数过滤器合并为共用文件头读取的一组；
+     * 子过滤器按代价从低到高稳定排序，使短路求值尽量不访问服务器
+     *
+     * @param filter the filter to compile
+     * @return an equivalent filter
+     */
+    public static Smb2FileFilter compile(final Smb2FileFilter filter) {
+        if (filter instanceof AndFileFilter) {
+            return compile(true, ((AndFileFilter) filter).getFileFilters());
+        }
+        if (filter instanceof OrFileFilter) {
+            return compile(false, ((OrFileFilter) filter).getFileFilters());
+        }
+        if (filter instanceof NotFileFilter) {
+            final Smb2FileFilter compiled = compile(((NotFileFilter) filter).getFilter());
+            if (compiled instanceof TrueFileFilter) {
+                return FalseFileFilter.FALSE;
+            }
+            if (compiled instanceof FalseFileFilter) {
+                return TrueFileFilter.TRUE;
+            }
+            return new NotFileFilter(compiled);
+        }
+        return filter;
+    }
+
+    private static Smb2FileFilter compile(final boolean conjunction, final List<Smb2FileFilter> fileFilters) {
+        // 与原实现一致：空的与/或过滤器不接受任何文件
+        if (fileFilters.isEmpty()) {
+            return FalseFileFilter.FALSE;
+        }
+        final List<Smb2FileFilter> flattened = new ArrayList<Smb2FileFilter>();
+        for (final Smb2FileFilter fileFilter : fileFilters) {
+            flatten(conjunction, fileFilter, flattened);
+        }
+        final List<Smb2FileFilter> compiled = new ArrayList<Smb2FileFilter>();
+        final Map<IOCase, List<String>> suffixes = new LinkedHashMap<IOCase, List<String>>();
+        final List<Smb2FileFilter> magicNumbers = new ArrayList<Smb2FileFilter>();
+        for (final Smb2FileFilter fileFilter : flattened) {
+            if (fileFilter instanceof TrueFileFilter || fileFilter instanceof FalseFileFilter) {
+                // 与中出现恒假、或中出现恒真时结果已确定；否则该子过滤器不影响结果
+                if ((fileFilter instanceof FalseFileFilter) == conjunction) {
+                    return fileFilter;
+                }
+            } else if (!conjunction && fileFilter instanceof SuffixFileFilter) {
+                final SuffixFileFilter suffixFilter = (SuffixFileFilter) fileFilter;
+                List<String> list = suffixes.get(suffixFilter.getCaseSensitivity());
+                if (list == null) {
+                    list = new ArrayList<String>();
+                    suffixes.put(suffixFilter.getCaseSensitivity(), list);
+                }
+                list.addAll(Arrays.asList(suffixFilter.getSuffixes()));
+            } else if (!conjunction && fileFilter instanceof MagicNumberFileFilter) {
+                magicNumbers.add(fileFilter);
+            } else {
+                compiled.add(fileFilter);
+            }
+        }
+        for (final Map.Entry<IOCase, List<String>> entry : suffixes.entrySet()) {
+            compiled.add(new SuffixFileFilter(entry.getValue(), entry.getKey()));
+        }
+        if (magicNumbers.size() == 1) {
+            compiled.add(magicNumbers.get(0));
+        } else if (magicNumbers.size() > 1) {
+            compiled.add(new OrFileFilter(magicNumbers));
+        }
+        if (compiled.isEmpty()) {
+            return conjunction ? TrueFileFilter.TRUE : FalseFileFilter.FALSE;
+        }
+        if (compiled.size() == 1) {
+            return compiled.get(0);
+        }
+        Collections.sort(compiled, new Comparator<Smb2FileFilter>() {
+
+            @Override
+            public int compare(final Smb2FileFilter o1, final Smb2FileFilter o2) {
+                return Integer.compare(getCost(o1), getCost(o2));
+            }
+
+        });
+        return new CompiledFileFilter(conjunction, compiled);
+    }
+
+    private static void flatten(final boolean conjunction, final Smb2FileFilter fileFilter, final List<Smb2FileFilter> flattened) {
+        if ((conjunction && fileFilter instanceof AndFileFilter) || (!conjunction && fileFilter instanceof OrFileFilter)) {
+            final List<Smb2FileFilter> children = conjunction ? ((AndFileFilter) fileFilter).getFileFilters()
+                    : ((OrFileFilter) fileFilter).getFileFilters();
+            if (children.isEmpty()) {
+                flattened.add(FalseFileFilter.FALSE);
+            }
+            for (final Smb2FileFilter child : children) {
+                flatten(conjunction, child, flattened);
+            }
+            return;
+        }
+        final Smb2FileFilter compiled = compile(fileFilter);
+        if (compiled instanceof CompiledFileFilter && ((CompiledFileFilter) compiled).isConjunction() == conjunction) {
+            flattened.addAll(Arrays.asList(((CompiledFileFilter) compiled).getFileFilters()));
+        } else {
+            flattened.add(compiled);
+        }
+    }
+
+    /**
+     * 将文件名过滤转换为服务端目录查询的通配符，如后缀过滤 {@code .pdf} 转换为 {@code *.pdf}；
+     * 或过滤器取各子过滤器通配符的并集，与过滤器取其中通配符最少的一个子过滤器。
+     * 服务端按通配符匹配的结果是过滤结果的超集（不区分大小写、可能匹配短文件名），返回的条目仍需再经过滤器判断；
+     * 大小写不敏感的过滤器在区分大小写的服务器上可能漏掉条目，因此不转换
+     *
+     * @param filter the filter
+     * @return the wildcards, or null if the filter cannot be expressed as wildcards
+     */
+    public static List<String> toWildcards(final Smb2FileFilter filter) {
+        final Set<String> wildcards = new LinkedHashSet<String>();
+        if (filter instanceof SuffixFileFilter) {
+            final SuffixFileFilter suffixFilter = (SuffixFileFilter) filter;
+            if (!suffixFilter.getCaseSensitivity().isCaseSensitive()) {
+                return null;
+            }
+            for (final String suffix : suffixFilter.getSuffixes()) {
+                if (!isLiteral(suffix)) {
+                    return null;
+                }
+                wildcards.add("*" + suffix);
+            }
+        } else if (filter instanceof PrefixFileFilter) {
+            final PrefixFileFilter prefixFilter = (PrefixFileFilter) filter;
+            if (!prefixFilter.getCaseSensitivity().isCaseSensitive()) {
+                return null;
+            }
+            for (final String prefix : prefixFilter.getPrefixes()) {
+                if (!isLiteral(prefix)) {
+                    return null;
+                }
+                wildcards.add(prefix + "*");
+            }
+        } else if (filter instanceof NameFileFilter) {
+            final NameFileFilter nameFilter = (NameFileFilter) filter;
+            if (!nameFilter.getCaseSensitivity().isCaseSensitive()) {
+                return null;
+            }
+            for (final String name : nameFilter.getNames()) {
+                if (!isLiteral(name)) {
+                    return null;
+                }
+                wildcards.add(name);
+            }
+        } else if (filter instanceof OrFileFilter) {
+            return toWildcards(false, ((OrFileFilter) filter).getFileFilters());
+        } else if (filter instanceof AndFileFilter) {
+            return toWildcards(true, ((AndFileFilter) filter).getFileFilters());
+        } else if (filter instanceof CompiledFileFilter) {
+            final CompiledFileFilter compiled = (CompiledFileFilter) filter;
+            return toWildcards(compiled.isConjunction(), Arrays.asList(compiled.getFileFilters()));
+        } else {
+            return null;
+        }
+        return wildcards.isEmpty() || wildcards.size() > MAX_WILDCARDS ? null : new ArrayList<String>(wildcards);
+    }
+
+    /**
+     * 空的前后缀匹配全部文件，无需下推；含通配字符的名称无法准确表达为通配符
+     */
+    private static boolean isLiteral(final String value) {
+        return StringUtils.isNotEmpty(value) && !StringUtils.containsAny(value, WILDCARD_CHARS);
+    }
+
+    private static List<String> toWildcards(final boolean conjunction, final List<Smb2FileFilter> fileFilters) {
+        if (fileFilters.isEmpty()) {
+            return null;
+        }
+        List<String> result = null;
+        final Set<String> union = new LinkedHashSet<String>();
+        for (final Smb2FileFilter fileFilter : fileFilters) {
+            final List<String> wildcards = toWildcards(fileFilter);
+            if (conjunction) {
+                if (wildcards != null && (result == null || wildcards.size() < result.size())) {
+                    result = wildcards;
+                }
+            } else {
+                if (wildcards == null) {
+                    return null;
+                }
+                union.addAll(wildcards);
+            }
+        }
+        if (conjunction) {
+            return result;
+        }
+        return union.size() > MAX_WILDCARDS ? null : new ArrayList<String>(union);
+    }
+
+    //-----------------------------------------------------------------------
+
     /**
      * Returns a filter that ANDs the specified filters.
      *
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package jcifs.smb.filter;
+
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile;
+
+/**
+ * 文件属性快照：枚举目录时按过滤器声明的属性一次性读取，此时属性仍是目录枚举结果中的缓存值，不会访问服务器；
+ * 之后的过滤均基于快照，避免每个条目的每个属性各查询一次服务器。未声明的属性在首次访问时再从文件读取
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFileAttributes {
+
+	/** 文件类型：是否文件、是否目录 */
+	public static final int TYPE = 1;
+	/** 文件大小 */
+	public static final int LENGTH = 2;
+	/** 最后修改时间 */
+	public static final int LAST_MODIFIED = 4;
+	/** 全部属性 */
+	public static final int ALL = TYPE | LENGTH | LAST_MODIFIED;
+
+	private final SmbFile file;
+	/** 已读取的属性 */
+	private int fetched;
+	private boolean directory;
+	private boolean normalFile;
+	private long length;
+	private long lastModified;
+
+	protected SmbFileAttributes(final SmbFile file) {
+		this.file = file;
+	}
+
+	/**
+	 * 读取文件的指定属性生成快照
+	 * @param file		：共享文件
+	 * @param attributes	：需要读取的属性，见 {@link #TYPE}、{@link #LENGTH}、{@link #LAST_MODIFIED}
+	 */
+	public static SmbFileAttributes of(final SmbFile file, final int attributes) throws SmbException {
+		SmbFileAttributes snapshot = new SmbFileAttributes(file);
+		snapshot.fetch(attributes);
+		return snapshot;
+	}
+
+	protected void fetch(final int attributes) throws SmbException {
+		int missing = attributes & ~fetched;
+		if ((missing & TYPE) != 0) {
+			directory = file.isDirectory();
+			normalFile = file.isFile();
+		}
+		if ((missing & LENGTH) != 0) {
+			length = file.length();
+		}
+		if ((missing & LAST_MODIFIED) != 0) {
+			lastModified = file.getLastModified();
+		}
+		fetched |= missing;
+	}
+
+	public SmbFile getFile() {
+		return file;
+	}
+
+	/**
+	 * 文件名来自路径，无需访问服务器
+	 */
+	public String getName() {
+		return file.getName();
+	}
+
+	public boolean isDirectory() throws SmbException {
+		fetch(TYPE);
+		return directory;
+	}
+
+	public boolean isFile() throws SmbException {
+		fetch(TYPE);
+		return normalFile;
+	}
+
+	public long length() throws SmbException {
+		fetch(LENGTH);
+		return length;
+	}
+
+	public long getLastModified() throws SmbException {
+		fetch(LAST_MODIFIED);
+		return lastModified;
+	}
+
+	@Override
+	public String toString() {
+		return file.toString();
+	}
+
+}
@@ -0,0 +1,41 @@
+package jcifs.smb.pool;
+
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+
+import jcifs.smb.SmbFile2;
+import jcifs.smb.SmbFile2Config;
+
+/**
+ * 多服务器共享SMBClient连接池：按【共享文件服务器】地址、根共享目录及登录账号分组管理连接，
+ * 各组连接数受 maxTotalPerKey 限制，所有组的连接总数受 maxTotal 限制
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFileKeyedPool extends GenericKeyedObjectPool<SmbFilePoolKey, SmbFile2> {
+
+	private final SmbFileKeyedPooledFactory factory;
+
+	/**
+	 * 初始化连接池，需要注入一个工厂来提供SMBClient实例和连接池初始化对象
+	 * @param factory
+	 * @param config
+	 */
+	public SmbFileKeyedPool(SmbFileKeyedPooledFactory factory, SmbFileKeyedPoolConfig config) {
+		super(factory, config);
+		this.factory = factory;
+		//空闲探测参数
+		factory.setValidateIdleTime(config.getValidateIdleTime());
+		factory.setValidateTimeout(config.getValidateTimeout());
+	}
+
+	/**
+	 * 注册一个共享的客户端配置，并按 minIdlePerKey 准备该共享的空闲连接
+	 * @param config	：客户端配置
+	 * @return 该共享对应的对象键
+	 */
+	public SmbFilePoolKey register(SmbFile2Config config) throws Exception {
+		SmbFilePoolKey key = factory.register(config);
+		preparePool(key);
+		return key;
+	}
+
+}
@@ -1,6 +1,15 @@
 package jcifs.smb.pool;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import jcifs.smb.SmbFile;
 
@@ -10,6 +19,10 @@ import jcifs.smb.SmbFile;
  */
 public class SmbFilePool extends GenericObjectPool<SmbFile> {
 
+	protected static Logger LOG = LoggerFactory.getLogger(SmbFilePool.class);
+	/** 预热完成标记;未开启预热时创建即就绪 */
+	private final CountDownLatch readyLatch = new CountDownLatch(1);
+
 	/**
 	 * 初始化连接池，需要注入一个工厂来提供SMBClient实例和连接池初始化对象
 	 * @param factory
@@ -17,6 +30,77 @@ public class SmbFilePool extends GenericObjectPool<SmbFile> {
 	 */
 	public SmbFilePool(SmbFilePooledFactory factory, SmbFilePoolConfig config){
 		super(factory,config);
+		//空闲探测参数
+		factory.setValidateIdleTime(config.getValidateIdleTime());
+		factory.setValidateTimeout(config.getValidateTimeout());
+		if (config.isPrewarm()) {
+			//并行建立 minIdle 个会话；之后被驱逐的会话由后台检测线程按 minIdle 补充
+			prewarm(config.getPrewarmThreads());
+			if (config.isPrewarmBlocking()) {
+				try {
+					if (!awaitReady(config.getPrewarmTimeout(), TimeUnit.MILLISECONDS)) {
+						LOG.warn(" SMBClient 连接池预热未在" + config.getPrewarmTimeout() + "毫秒内完成!");
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		} else {
+			readyLatch.countDown();
+		}
+	}
+
+	/**
+	 * 异步并行创建会话，直到空闲对象数达到 minIdle；全部完成（含失败）后连接池就绪
+	 * @param threads	：并行建立会话的线程数
+	 */
+	public void prewarm(int threads) {
+		final int count = getMinIdle() - getNumIdle();
+		if (count <= 0) {
+			readyLatch.countDown();
+			return;
+		}
+		final AtomicInteger remaining = new AtomicInteger(count);
+		final AtomicInteger failed = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, count)),
+				new BasicThreadFactory.Builder().namingPattern("smb-prewarm-%d").daemon(true).build());
+		for (int i = 0; i < count; i++) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						addObject();
+					} catch (Exception e) {
+						failed.incrementAndGet();
+						LOG.warn(" SMBClient 预热会话创建失败 : " + e.getMessage());
+					} finally {
+						if (remaining.decrementAndGet() == 0) {
+							executor.shutdown();
+							LOG.info(" SMBClient 连接池预热完成，成功" + (count - failed.get()) + "个，失败" + failed.get() + "个!");
+							readyLatch.countDown();
+						}
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * 连接池是否已就绪（预热完成或未开启预热）
+	 */
+	public boolean isReady() {
+		return readyLatch.getCount() == 0;
+	}
+
+	/**
+	 * 阻塞等待连接池就绪
+	 * @param timeout	：最长等待时间
+	 * @param unit		：时间单位
+	 * @return 在超时前就绪返回true
+	 * @throws InterruptedException
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+		return readyLatch.await(timeout, unit);
 	}
 
 }
\ No newline at end of file
@@ -5,7 +5,6 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
 
 import jcifs.context.BaseContext;
 import jcifs.smb.SmbFile;
@@ -18,6 +17,8 @@ import lombok.extern.slf4j.Slf4j;
 public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile> {
 
 	protected final AtomicLong atomicLongCount;
+	/** 连接、有效性检测及探测逻辑 */
+	protected final SmbFilePooledSupport<SmbFile> support = new SmbFilePooledSupport<SmbFile>();
 	protected BaseContext baseContext;
 	protected String rootPath;
 	
@@ -37,9 +38,24 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile> {
 		return smbFile;
 	}
 
+	/**
+	 * 创建对象并立即建立会话;连接池预热及后台补充 minIdle 时创建的即是可直接使用的会话，不会把认证开销留给首次借出
+	 */
+	@Override
+	public PooledObject<SmbFile> makeObject() throws Exception {
+		SmbFile smbFile = create();
+		try {
+			return support.connect(smbFile);
+		} catch (Exception e) {
+			// 记录数减1
+			atomicLongCount.decrementAndGet();
+			throw e;
+		}
+	}
+
 	@Override
 	public PooledObject<SmbFile> wrap(SmbFile SMBClient) {
-		return new DefaultPooledObject<SmbFile>(SMBClient);
+		return new SmbFilePooledObject<SmbFile>(SMBClient);
 	}
 
 	/**
@@ -69,10 +85,7 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile> {
 	 */
 	@Override
 	public boolean validateObject(PooledObject<SmbFile> poolObject) {
-		SmbFile smbFile = poolObject.getObject();
-		if(Objects.nonNull(smbFile)) {
-		}
-		return true;
+		return support.validate(poolObject);
 	}
 
 	/**
@@ -83,10 +96,8 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile> {
 	 */
 	@Override
 	public void activateObject(PooledObject<SmbFile> poolObject) throws Exception {
-		SmbFile smbFile = poolObject.getObject();
-		if(Objects.nonNull(smbFile)) {
-        	smbFile.connect();  // 尝试连接 ; SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
-		}
+		//仅首次借出时连接，之后由validateObject按空闲时间探测连接可用性
+		support.activate(poolObject);
 	}
 
 	/**
@@ -100,5 +111,21 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile> {
 	public void passivateObject(PooledObject<SmbFile> poolObject) throws Exception {
 		
 	}
+
+	public long getValidateIdleTime() {
+		return support.getValidateIdleTime();
+	}
+
+	public void setValidateIdleTime(long validateIdleTime) {
+		support.setValidateIdleTime(validateIdleTime);
+	}
+
+	public long getValidateTimeout() {
+		return support.getValidateTimeout();
+	}
+
+	public void setValidateTimeout(long validateTimeout) {
+		support.setValidateTimeout(validateTimeout);
+	}
 	 
 }
@@ -0,0 +1,44 @@
+package jcifs.smb.pool;
+
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+/**
+ * 记录最近一次有效性探测时间的池化对象，用于判断对象空闲时间是否需要重新探测
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFilePooledObject<T> extends DefaultPooledObject<T> {
+
+	/** 最近一次探测成功的时间 */
+	private volatile long lastValidatedTime;
+	/** 是否已完成首次连接 */
+	private volatile boolean connected = false;
+
+	public SmbFilePooledObject(T object) {
+		super(object);
+		this.lastValidatedTime = getCreateTime();
+	}
+
+	public long getLastValidatedTime() {
+		return lastValidatedTime;
+	}
+
+	public void setLastValidatedTime(long lastValidatedTime) {
+		this.lastValidatedTime = lastValidatedTime;
+	}
+
+	/**
+	 * 对象最近一次确认可用的时间：取最近归还时间与最近探测成功时间的较大值
+	 */
+	public long getLastActiveTime() {
+		return Math.max(getLastReturnTime(), lastValidatedTime);
+	}
+
+	public boolean isConnected() {
+		return connected;
+	}
+
+	public void setConnected(boolean connected) {
+		this.connected = connected;
+	}
+
+}
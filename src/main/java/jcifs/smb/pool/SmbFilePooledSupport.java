@@ -0,0 +1,137 @@
+package jcifs.smb.pool;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.smb.SmbFile;
+
+/**
+ * 单共享连接池与多服务器共享连接池的对象工厂共用的连接、有效性检测及探测逻辑
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFilePooledSupport<T extends SmbFile> {
+
+	protected static Logger LOG = LoggerFactory.getLogger(SmbFilePooledSupport.class);
+	/** 同时进行的连接探测数上限 */
+	protected static final int MAX_PROBE_THREADS = 16;
+	/**
+	 * 执行连接探测的线程池；超时的探测无法被中断，会一直占用线程直到服务器响应或连接超时，
+	 * 因此限制线程数，线程全部被占用时拒绝新的探测并视为检测失败
+	 */
+	protected static final ExecutorService PROBE_EXECUTOR = new ThreadPoolExecutor(0, MAX_PROBE_THREADS, 60L, TimeUnit.SECONDS,
+			new SynchronousQueue<Runnable>(), new BasicThreadFactory.Builder().namingPattern("smb-probe-%d").daemon(true).build(),
+			new ThreadPoolExecutor.AbortPolicy());
+	/** 对象空闲超过该时间（毫秒）后才进行探测 */
+	protected long validateIdleTime = SmbFilePoolConfig.DEFAULT_VALIDATE_IDLE_TIME;
+	/** 连接探测超时时间（毫秒）；小于等于0表示不限制 */
+	protected long validateTimeout = SmbFilePoolConfig.DEFAULT_VALIDATE_TIMEOUT;
+
+	/**
+	 * 建立会话并包装为池化对象
+	 * @throws Exception 连接失败时抛出
+	 */
+	public PooledObject<T> connect(T smbClient) throws Exception {
+		//尝试连接 ;SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
+		smbClient.connect();
+		SmbFilePooledObject<T> pooledObject = new SmbFilePooledObject<T>(smbClient);
+		pooledObject.setConnected(true);
+		return pooledObject;
+	}
+
+	/**
+	 * 检测对象是否有效：空闲时间未超过 validateIdleTime 的对象直接视为有效，否则探测一次
+	 */
+	public boolean validate(PooledObject<T> poolObject) {
+		T smbClient = poolObject.getObject();
+		if (smbClient == null) {
+			return false;
+		}
+		SmbFilePooledObject<T> pooledObject = (SmbFilePooledObject<T>) poolObject;
+		long now = System.currentTimeMillis();
+		//空闲时间未超过阀值的对象直接视为有效，避免每次借出都产生网络往返
+		if (now - pooledObject.getLastActiveTime() < validateIdleTime) {
+			return true;
+		}
+		//空闲过久则探测一次；后台检测线程对空闲对象的探测同时起到保活作用
+		if (probe(smbClient)) {
+			pooledObject.setLastValidatedTime(now);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 激活对象：仅首次借出时连接，之后由 {@link #validate(PooledObject)} 按空闲时间探测连接可用性
+	 */
+	public void activate(PooledObject<T> poolObject) throws Exception {
+		T smbClient = poolObject.getObject();
+		SmbFilePooledObject<T> pooledObject = (SmbFilePooledObject<T>) poolObject;
+		if (smbClient != null && !pooledObject.isConnected()) {
+			smbClient.connect();
+			pooledObject.setConnected(true);
+		}
+	}
+
+	/**
+	 * 探测连接是否可用：查询共享根目录所在磁盘的可用空间，该查询每次都会发往服务器且不受属性缓存影响；
+	 * 超过 validateTimeout 未返回或探测线程已满时视为不可用
+	 */
+	public boolean probe(final T smbClient) {
+		Future<Long> future;
+		try {
+			future = PROBE_EXECUTOR.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return smbClient.getDiskFreeSpace();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			//探测线程均被未返回的探测占用，服务器很可能已无响应
+			LOG.warn(" SMBClient 连接探测被拒绝 : 已有 " + MAX_PROBE_THREADS + " 个探测未返回");
+			return false;
+		}
+		try {
+			if (validateTimeout > 0) {
+				future.get(validateTimeout, TimeUnit.MILLISECONDS);
+			} else {
+				future.get();
+			}
+			return true;
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			future.cancel(true);
+			LOG.warn(" SMBClient 连接探测失败 : " + e.getMessage());
+			return false;
+		}
+	}
+
+	public long getValidateIdleTime() {
+		return validateIdleTime;
+	}
+
+	public void setValidateIdleTime(long validateIdleTime) {
+		this.validateIdleTime = validateIdleTime;
+	}
+
+	public long getValidateTimeout() {
+		return validateTimeout;
+	}
+
+	public void setValidateTimeout(long validateTimeout) {
+		this.validateTimeout = validateTimeout;
+	}
+
+}
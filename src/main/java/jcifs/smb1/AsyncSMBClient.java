@@ -0,0 +1,214 @@
+package jcifs.smb1;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import jcifs.io.CallbackFuture;
+import jcifs.smb1.filter.Smb1FileFilter;
+import jcifs.smb1.smb1.SmbFile;
+
+/**
+ * SMBClient 异步客户端：在线程池中执行 {@link ISMBClient} 的各操作并返回可注册完成回调的 {@link CallbackFuture}，
+ * 多个共享操作可并行进行而不阻塞调用线程。
+ * <pre>
+ *	取消返回的 future 会中断正在执行的任务，进行中的上传/下载在当前缓存块写完后中止并抛出 InterruptedIOException；
+ *	使用连接池客户端时，线程数不宜超过连接池的 maxTotal，否则多出的任务只是在借出对象时等待
+ * </pre>
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class AsyncSMBClient {
+
+	private final ISMBClient client;
+	private final Executor executor;
+	/** 由本对象创建的线程池，shutdown时关闭 */
+	private final ExecutorService ownedExecutor;
+
+	/**
+	 * @param client	：同步客户端
+	 * @param threads	：并行执行操作的线程数
+	 */
+	public AsyncSMBClient(ISMBClient client, int threads) {
+		this.client = client;
+		this.ownedExecutor = Executors.newFixedThreadPool(Math.max(1, threads),
+				new BasicThreadFactory.Builder().namingPattern("smb-async-%d").daemon(true).build());
+		this.executor = ownedExecutor;
+	}
+
+	/**
+	 * @param client	：同步客户端
+	 * @param executor	：执行操作的线程池，由调用方管理其生命周期
+	 */
+	public AsyncSMBClient(ISMBClient client, Executor executor) {
+		this.client = client;
+		this.executor = executor;
+		this.ownedExecutor = null;
+	}
+
+	public CallbackFuture<Boolean> makeDir(final String targetDir) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.makeDir(targetDir);
+			}
+		});
+	}
+
+	public CallbackFuture<Void> downloadToDir(final String sharedDir, final File localDir) {
+		return submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				client.downloadToDir(sharedDir, localDir);
+				return null;
+			}
+		});
+	}
+
+	public CallbackFuture<Void> downloadToFile(final String filepath, final File localFile) {
+		return submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				client.downloadToFile(filepath, localFile);
+				return null;
+			}
+		});
+	}
+
+	public CallbackFuture<Void> downloadToStream(final String filepath, final OutputStream output) {
+		return submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				client.downloadToStream(filepath, output);
+				return null;
+			}
+		});
+	}
+
+	public CallbackFuture<String[]> listNames(final String sharedDir) {
+		return submit(new Callable<String[]>() {
+			@Override
+			public String[] call() throws Exception {
+				return client.listNames(sharedDir);
+			}
+		});
+	}
+
+	public CallbackFuture<SmbFile[]> listFiles(final String sharedDir, final boolean recursion) {
+		return submit(new Callable<SmbFile[]>() {
+			@Override
+			public SmbFile[] call() throws Exception {
+				return client.listFiles(sharedDir, recursion);
+			}
+		});
+	}
+
+	public CallbackFuture<SmbFile[]> listFiles(final String sharedDir, final Smb1FileFilter filter, final boolean recursion) {
+		return submit(new Callable<SmbFile[]>() {
+			@Override
+			public SmbFile[] call() throws Exception {
+				return client.listFiles(sharedDir, filter, recursion);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> remove(final String filepath) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.remove(filepath);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> remove(final String[] filepaths) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.remove(filepaths);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> removeDir(final String sharedDir) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.removeDir(sharedDir);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> rename(final String filepath, final String fileName) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.rename(filepath, fileName);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> renameTo(final String filepath, final String destpath) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.renameTo(filepath, destpath);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> upload(final File localFile, final String destpath) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.upload(localFile, destpath);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> upload(final InputStream input, final String destpath) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.upload(input, destpath);
+			}
+		});
+	}
+
+	public CallbackFuture<Boolean> uploadByChannel(final File localFile, final String destpath) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return client.uploadByChannel(localFile, destpath);
+			}
+		});
+	}
+
+	/**
+	 * 在线程池中执行任务；返回的 future 以 cancel(true) 取消时中断执行任务的线程
+	 */
+	protected <T> CallbackFuture<T> submit(final Callable<T> task) {
+		CallbackFuture<T> future = new CallbackFuture<T>(task);
+		executor.execute(future);
+		return future;
+	}
+
+	public ISMBClient getClient() {
+		return client;
+	}
+
+	/**
+	 * 关闭由本对象创建的线程池
+	 */
+	public void shutdown() {
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
+	}
+
+}
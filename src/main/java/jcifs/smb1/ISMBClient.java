@@ -3,9 +3,15 @@ package jcifs.smb1;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Map;
 
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import jcifs.io.BatchReport;
+import jcifs.io.FileMetadata;
+import jcifs.io.SmbFileIterator;
 import jcifs.smb1.filter.Smb1FileFilter;
 import jcifs.smb1.smb1.SmbFile;
 
@@ -37,6 +43,11 @@ public interface ISMBClient {
 	
 	public void downloadToResponse(String sharedDir,String fileName,ServletResponse response) throws Exception;
 	
+	/**
+	 * 根据请求中的 Range 请求头下载共享文件的部分内容至响应（206 Partial Content），未携带 Range 时下载完整文件
+	 */
+	public void downloadToResponse(String filepath,HttpServletRequest request,HttpServletResponse response) throws Exception;
+	
 	public boolean remove(String filepath) throws Exception;
 	
 	public boolean remove(String[] filepaths) throws Exception;
@@ -45,12 +56,24 @@ public interface ISMBClient {
 	
 	public boolean remove(String sharedDir,String[] ftpFiles) throws Exception;
 	
+	public BatchReport remove(String[] filepaths,int parallelism) throws Exception;
+	
 	public boolean removeDir(String sharedDir) throws Exception;
 	
 	public boolean rename(String filepath,String fileName) throws Exception;
 	
 	public boolean renameTo(String filepath,String destpath) throws Exception;
 	
+	public BatchReport rename(Map<String, String> filepaths,int parallelism) throws Exception;
+	
+	/**
+	 * 并行批量上传小文件，文件直接覆盖创建，上级目录仅在不存在时创建
+	 * @param files			：相对SMBClient路径的文件路径与文件内容的映射
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @return 逐项结果报告
+	 */
+	public BatchReport upload(Map<String, byte[]> files,int parallelism) throws Exception;
+	
 	public String[] listNames(String sharedDir) throws Exception;
 	
 	public SmbFile[] listFiles(String sharedDir) throws Exception;
@@ -65,10 +88,20 @@ public interface ISMBClient {
 		
 	public SmbFile[] listFiles(String sharedDir, Smb1FileFilter filter,boolean recursion) throws Exception;
 	
+	public FileMetadata[] listMetadata(String sharedDir, Smb1FileFilter fileFilter, Smb1FileFilter dirFilter,int parallelism) throws Exception;
+	
+	public SmbFileIterator<SmbFile1> children(String sharedDir) throws Exception;
+	
+	public SmbFileIterator<SmbFile1> children(String sharedDir, Smb1FileFilter filter) throws Exception;
+	
 	public SmbFile getFile(String ftpFilePath) throws Exception;
 	
 	public SmbFile getFile(String sharedDir,String fileName) throws Exception;
 	
+	public boolean exists(String filepath) throws Exception;
+	
+	public boolean isDirectory(String filepath) throws Exception;
+	
 	public InputStream getInputStream(String filepath) throws Exception;
 	
 	public boolean upload(byte[] bytes,String destpath) throws Exception;
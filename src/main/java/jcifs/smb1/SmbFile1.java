@@ -1,20 +1,18 @@
 package jcifs.smb1;
 
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.commons.lang3.reflect.ConstructorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jcifs.io.BufferPool;
 import jcifs.io.CopyStreamProcessListener;
 import jcifs.smb1.smb1.NtlmPasswordAuthentication;
 import jcifs.smb1.smb1.SmbFile;
@@ -28,20 +26,10 @@ public class SmbFile1 extends SmbFile {
 	public static final int DEFAULT_CHANNEL_SIZE = 2 * 1024 * 1024;
 	
 	protected static Logger LOG = LoggerFactory.getLogger(SmbFile1.class);
-	/** 启用或禁用数据流方式上传/下载时是否在缓冲发送/接收完成自动刷新缓存区；大文件上传下载时比较有用;默认false */
-	protected boolean autoFlush = false;
-	/** 数据流方式上传/下载时缓存区达到可自动刷新的最小阀值；仅当 autoflush 为true 时才有效；默认与默认缓存区大小相同即 8M */
-	protected int autoFlushBlockSize = DEFAULT_BUFFER_SIZE;
-	/** 内部缓冲区大小;默认 8M */
-	protected int bufferSize = DEFAULT_BUFFER_SIZE;
-	/** 文件通道读取缓冲区大小;默认 2M */
-	protected int channelReadBufferSize = DEFAULT_CHANNEL_SIZE;
-	/** 文件通道写出缓冲区大小;默认 2M */
-	protected int channelWriteBufferSize = DEFAULT_CHANNEL_SIZE;
-	/** 进行存储时/检索操作时数据处理进度监听对象 */
+	/** 传输参数;同一客户端包装出的对象共享同一实例 */
+	protected SmbFile1Settings settings = SmbFile1Settings.DEFAULT;
+	/** 进行存储时/检索操作时数据处理进度监听对象;有状态，不放入共享的传输参数 */
 	protected CopyStreamProcessListener copyStreamProcessListener;
-	/** 是否使用Log4j记录命令信息,默认打印出命令，如果开启日志则关闭打印;默认 false */
-	protected boolean logDebug = false;
 	/** 读或写的起始位置 */
 	protected long restartOffset = 0;
 
@@ -84,7 +72,7 @@ public class SmbFile1 extends SmbFile {
 	
 	public Collection<SmbFile1> wrapAll(Collection<SmbFile> smbFiles) {
 		//创建文件类型的文件集合
-		Collection<SmbFile1> fileList = new ArrayList<SmbFile1>();
+		Collection<SmbFile1> fileList = new ArrayList<SmbFile1>(smbFiles.size());
 		for (SmbFile smbFile : smbFiles) {
 			SmbFile1 newClient = new SmbFile1(smbFile.getURL());
 			//拷贝初始参数
@@ -108,26 +96,9 @@ public class SmbFile1 extends SmbFile {
 		//启用或禁用在条件允许情况下允许协议使用缓存
 		dest.setDefaultUseCaches(config.isUsecaches());
 		dest.setUseCaches(config.isUsecaches());
-		
-		dest.setAutoFlush(config.isAutoFlush());
-		dest.setAutoFlushBlockSize(config.getAutoFlushBlockSize());
-		dest.setBufferSize(config.getBufferSize());
-		dest.setChannelReadBufferSize(config.getChannelReadBufferSize());
-		dest.setChannelWriteBufferSize(config.getChannelWriteBufferSize());
-		dest.setLogDebug(config.isLogDebug());
-		
-		try {
-			//进行存储时/检索操作时数据处理进度监听对象
-			if(StringUtils.isNotEmpty(config.getCopyStreamProcessListenerName())){
-				@SuppressWarnings("unchecked")
-				Class<CopyStreamProcessListener> listenerClazz = (Class<CopyStreamProcessListener>) Class.forName(config.getCopyStreamProcessListenerName());
-				dest.setCopyStreamProcessListener((CopyStreamProcessListener) ConstructorUtils.invokeConstructor(listenerClazz));
-			}else{
-				dest.setCopyStreamProcessListener(config.getCopyStreamProcessListener());
-			}
-		} catch (Exception e) {
-			LOG.error(ExceptionUtils.getStackTrace(e));
-		}
+		//传输参数由配置缓存；监听对象有状态，通过缓存的构造方法为每个对象单独创建
+		dest.setSettings(config.getSettings());
+		dest.setCopyStreamProcessListener(config.getSettings().newCopyStreamProcessListener());
 	}
 
 	public void copy(SmbFile1 src,SmbFile1 dest){
@@ -140,74 +111,83 @@ public class SmbFile1 extends SmbFile {
 		// 启用或禁用在条件允许情况下允许协议使用缓存
 		dest.setDefaultUseCaches(src.getUseCaches());
 		dest.setUseCaches(src.getUseCaches());
-		dest.setAutoFlush(src.isAutoFlush());
-		dest.setAutoFlushBlockSize(src.getAutoFlushBlockSize());
-		dest.setBufferSize(src.getBufferSize());
-		dest.setChannelReadBufferSize(src.getChannelReadBufferSize());
-		dest.setChannelWriteBufferSize(src.getChannelWriteBufferSize());
+		//共享传输参数
+		dest.setSettings(src.getSettings());
 		dest.setCopyStreamProcessListener(src.getCopyStreamProcessListener());
-		dest.setLogDebug(src.isLogDebug());
+	}
+
+	public SmbFile1Settings getSettings() {
+		return settings;
+	}
+
+	public void setSettings(SmbFile1Settings settings) {
+		this.settings = settings == null ? SmbFile1Settings.DEFAULT : settings;
 	}
 
 	public boolean isAutoFlush() {
-		return autoFlush;
+		return settings.isAutoFlush();
 	}
 
 	public void setAutoFlush(boolean autoFlush) {
-		this.autoFlush = autoFlush;
+		this.settings = settings.withAutoFlush(autoFlush);
 	}
 
 	public int getAutoFlushBlockSize() {
-		return autoFlushBlockSize;
+		return settings.getAutoFlushBlockSize();
 	}
 
 	public void setAutoFlushBlockSize(int autoFlushBlockSize) {
-		this.autoFlushBlockSize = autoFlushBlockSize;
+		this.settings = settings.withAutoFlushBlockSize(autoFlushBlockSize);
 	}
 
 	public int getBufferSize() {
-		return bufferSize;
+		return settings.getBufferSize();
 	}
 
 	public void setBufferSize(int bufferSize) {
-		this.bufferSize = bufferSize;
+		this.settings = settings.withBufferSize(bufferSize);
 	}
 
 	public int getChannelReadBufferSize() {
-		return channelReadBufferSize;
+		return settings.getChannelReadBufferSize();
 	}
 
 	public void setChannelReadBufferSize(int channelReadBufferSize) {
-		this.channelReadBufferSize = channelReadBufferSize;
+		this.settings = settings.withChannelReadBufferSize(channelReadBufferSize);
 	}
 
 	public int getChannelWriteBufferSize() {
-		return channelWriteBufferSize;
+		return settings.getChannelWriteBufferSize();
 	}
 
 	public void setChannelWriteBufferSize(int channelWriteBufferSize) {
-		this.channelWriteBufferSize = channelWriteBufferSize;
+		this.settings = settings.withChannelWriteBufferSize(channelWriteBufferSize);
+	}
+
+	public BufferPool getBufferPool() {
+		return settings.getBufferPool();
+	}
+
+	public void setBufferPool(BufferPool bufferPool) {
+		this.settings = settings.withBufferPool(bufferPool);
 	}
 
 	public CopyStreamProcessListener getCopyStreamProcessListener() {
 		return copyStreamProcessListener;
 	}
 
-	public void setCopyStreamProcessListener(
-			CopyStreamProcessListener copyStreamProcessListener) {
+	public void setCopyStreamProcessListener(CopyStreamProcessListener copyStreamProcessListener) {
 		this.copyStreamProcessListener = copyStreamProcessListener;
 	}
 
 	public boolean isLogDebug() {
-		return logDebug;
+		return settings.isLogDebug();
 	}
 
 	public void setLogDebug(boolean logDebug) {
-		this.logDebug = logDebug;
+		this.settings = settings.withLogDebug(logDebug);
 	}
 
-	
-
 	public long getRestartOffset() {
 		return restartOffset;
 	}
@@ -218,20 +198,23 @@ public class SmbFile1 extends SmbFile {
 
 	/**
 	 * This URLConnection method just returns a new <tt>SmbFileInputStream</tt> created with this file.
+	 * 设置了起始位置时返回基于随机访问句柄的输入流，直接定位到起始位置而不读取之前的数据
 	 * @throws IOException thrown by <tt>SmbFileInputStream</tt> constructor
 	 */
-	@SuppressWarnings("resource")
 	public InputStream getInputStream() throws IOException {
-		SmbFileInputStream input = new SmbFileInputStream(this);
 		long at = getRestartOffset();
-		while (at > 0) {
-			long amt = input.skip(at);
-			if (amt == -1) {
-				throw new EOFException(" restartOffset [" + restartOffset + "] larger than the length [" + this.getContentLength() + "] of shared File : unexpected EOF");  
-			}
-			at -= amt;
+		if (at > 0) {
+			return new SmbFile1RandomAccessInputStream(this, at);
 		}
-		return input;
+		return new SmbFileInputStream(this);
+	}
+
+	/**
+	 * 获取从指定位置开始写入的输出流，不截断文件已有的内容
+	 * @param offset	：开始写入的位置
+	 */
+	public OutputStream getOutputStream(long offset) throws IOException {
+		return new SmbFile1RandomAccessOutputStream(this, offset);
 	}
 
 }
@@ -1,11 +1,15 @@
 package jcifs.smb1;
 
+import java.io.File;
+import java.io.IOException;
 import java.beans.BeanInfo;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 
 import org.apache.commons.lang3.SystemUtils;
 
+import jcifs.io.BufferPool;
+import jcifs.io.ContentCache;
 import jcifs.io.CopyStreamProcessListener;
 
 /**
@@ -51,6 +55,10 @@ public class SmbFile1Config {
 	protected int channelReadBufferSize = DEFAULT_CHANNEL_SIZE;
 	/** 文件通道写出缓冲区大小;默认 2M */
 	protected int channelWriteBufferSize = DEFAULT_CHANNEL_SIZE;
+	/** 拷贝缓冲区池可保留的最大字节数，同一配置创建的所有对象共享该缓冲池;0 表示不复用缓冲区;默认 64M */
+	protected long bufferPoolSize = BufferPool.DEFAULT_POOL_SIZE;
+	/** 拷贝缓冲区池;未指定时根据 bufferPoolSize 创建 */
+	protected BufferPool bufferPool;
 	/** 连接超时时间，单位为秒，默认30秒 */
 	protected int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
 	/** 进行存储时/检索操作时数据处理进度监听对象 */
@@ -63,10 +71,18 @@ public class SmbFile1Config {
 	protected boolean localBackupAble = false;
 	/** 本地备份路径 ;默认userdir,如果开启了本地备份功能，建议指定该目录地址 */
 	protected String localBackupDir = SystemUtils.getUserDir().getAbsolutePath();
+	/** 本地备份（读穿透缓存）可占用的最大磁盘空间;默认 1G */
+	protected long localBackupMaxSize = ContentCache.DEFAULT_MAX_SIZE;
+	/** 本地备份的内存层可占用的最大字节数，仅缓存较小的文件;0 表示不启用内存层;默认 0 */
+	protected long localBackupMemorySize = 0;
+	/** 根据本地备份参数创建的读穿透缓存 */
+	private ContentCache contentCache;
 	/** 是否使用Log4j记录命令信息,默认打印出命令，如果开启日志则关闭打印;默认 false */
 	protected boolean logDebug = false;
 	/** 启用或禁用在条件允许情况下允许协议使用缓存 */
 	protected boolean usecaches = false;
+	/** 由上述参数生成的传输参数，供该配置创建的所有对象共享;相关参数修改后重新生成 */
+	private SmbFile1Settings settings;
 
 	public String getDomain() {
 		return domain;
@@ -114,6 +130,7 @@ public class SmbFile1Config {
 
 	public void setAutoFlush(boolean autoFlush) {
 		this.autoFlush = autoFlush;
+		this.settings = null;
 	}
 
 	public int getAutoFlushBlockSize() {
@@ -122,6 +139,7 @@ public class SmbFile1Config {
 
 	public void setAutoFlushBlockSize(int autoFlushBlockSize) {
 		this.autoFlushBlockSize = autoFlushBlockSize;
+		this.settings = null;
 	}
 
 	public int getBufferSize() {
@@ -130,6 +148,7 @@ public class SmbFile1Config {
 
 	public void setBufferSize(int bufferSize) {
 		this.bufferSize = bufferSize;
+		this.settings = null;
 	}
 
 	public int getChannelReadBufferSize() {
@@ -138,6 +157,7 @@ public class SmbFile1Config {
 
 	public void setChannelReadBufferSize(int channelReadBufferSize) {
 		this.channelReadBufferSize = channelReadBufferSize;
+		this.settings = null;
 	}
 
 	public int getChannelWriteBufferSize() {
@@ -146,6 +166,38 @@ public class SmbFile1Config {
 
 	public void setChannelWriteBufferSize(int channelWriteBufferSize) {
 		this.channelWriteBufferSize = channelWriteBufferSize;
+		this.settings = null;
+	}
+
+	public long getBufferPoolSize() {
+		return bufferPoolSize;
+	}
+
+	public void setBufferPoolSize(long bufferPoolSize) {
+		this.bufferPoolSize = bufferPoolSize;
+		this.settings = null;
+	}
+
+	public synchronized BufferPool getBufferPool() {
+		if (bufferPool == null) {
+			bufferPool = new BufferPool(bufferPoolSize);
+		}
+		return bufferPool;
+	}
+
+	public synchronized void setBufferPool(BufferPool bufferPool) {
+		this.bufferPool = bufferPool;
+		this.settings = null;
+	}
+
+	/**
+	 * 获取共享的传输参数；监听对象类名只在首次生成时解析
+	 */
+	public synchronized SmbFile1Settings getSettings() {
+		if (settings == null) {
+			settings = SmbFile1Settings.of(this);
+		}
+		return settings;
 	}
 
 	public int getConnectTimeout() {
@@ -163,6 +215,7 @@ public class SmbFile1Config {
 	public void setCopyStreamProcessListener(
 			CopyStreamProcessListener copyStreamProcessListener) {
 		this.copyStreamProcessListener = copyStreamProcessListener;
+		this.settings = null;
 	}
 
 	public String getCopyStreamProcessListenerName() {
@@ -172,6 +225,7 @@ public class SmbFile1Config {
 	public void setCopyStreamProcessListenerName(
 			String copyStreamProcessListenerName) {
 		this.copyStreamProcessListenerName = copyStreamProcessListenerName;
+		this.settings = null;
 	}
 
 	public int getReadTimeout() {
@@ -206,12 +260,43 @@ public class SmbFile1Config {
 		this.localBackupDir = localBackupDir;
 	}
 
+	public long getLocalBackupMaxSize() {
+		return localBackupMaxSize;
+	}
+
+	public void setLocalBackupMaxSize(long localBackupMaxSize) {
+		this.localBackupMaxSize = localBackupMaxSize;
+	}
+
+	public long getLocalBackupMemorySize() {
+		return localBackupMemorySize;
+	}
+
+	public void setLocalBackupMemorySize(long localBackupMemorySize) {
+		this.localBackupMemorySize = localBackupMemorySize;
+	}
+
+	/**
+	 * 获取本地备份的读穿透缓存，缓存文件存放在 localBackupDir 下的 smb-cache 目录中
+	 * @return 未开启本地备份时返回null
+	 */
+	public synchronized ContentCache getContentCache() throws IOException {
+		if (!localBackupAble) {
+			return null;
+		}
+		if (contentCache == null) {
+			contentCache = new ContentCache(new File(localBackupDir, "smb-cache"), localBackupMaxSize, localBackupMemorySize);
+		}
+		return contentCache;
+	}
+
 	public boolean isLogDebug() {
 		return logDebug;
 	}
 
 	public void setLogDebug(boolean logDebug) {
 		this.logDebug = logDebug;
+		this.settings = null;
 	}
 
 	public boolean isUsecaches() {
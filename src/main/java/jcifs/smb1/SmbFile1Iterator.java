@@ -0,0 +1,242 @@
+package jcifs.smb1;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import jcifs.RuntimeCIFSException;
+import jcifs.io.SmbFileIterator;
+import jcifs.smb1.filter.Smb1FileFilter;
+import jcifs.smb1.smb1.SmbException;
+import jcifs.smb1.smb1.SmbFile;
+import jcifs.smb1.smb1.SmbFileFilter;
+
+/**
+ * SMB1 流式目录遍历器：SMB1 没有公开的分页遍历接口，这里由后台线程执行 listFiles，
+ * 在过滤器回调中把接受的目录项放入有界队列后返回false，使 listFiles 本身不保留任何目录项；
+ * 队列满时后台线程阻塞，即服务端分页随消费进度取回，内存占用以队列容量为上限。<br/>
+ * 提前关闭时后台线程丢弃剩余分页直到遍历正常结束，以保证服务端的目录句柄被关闭；
+ * 未关闭的遍历器被回收或超过 idleTimeout 未被消费时，后台线程同样放弃取回，不会一直等待队列空位。<br/>
+ * 关闭遍历器时后台线程可能仍在该会话上取回分页，借出的SMBClient对象应通过 {@link #whenFinished(Runnable)} 在其结束后归还
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1Iterator implements SmbFileIterator<SmbFile1> {
+
+	/** 默认预取队列容量：1024 个目录项 */
+	public static final int DEFAULT_QUEUE_SIZE = 1024;
+	/** 默认消费空闲超时： 5 分钟 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+	/** 后台线程等待队列空位的间隔： 50 毫秒 */
+	protected static final long POLL_INTERVAL = 50;
+	/** 遍历结束标记 */
+	private static final Object END = new Object();
+	/** 执行后台遍历的共享线程池，空闲线程60秒后回收 */
+	private static final ExecutorService ENUM_EXECUTOR = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
+			.namingPattern("smb-enum-%d").daemon(true).build());
+
+	private final Producer producer;
+	private volatile boolean closed = false;
+	private SmbFile1 nextFile;
+
+	public SmbFile1Iterator(SmbFile1 smbClient, SmbFile directory, Smb1FileFilter filter) {
+		this(smbClient, directory, filter, DEFAULT_QUEUE_SIZE);
+	}
+
+	public SmbFile1Iterator(SmbFile1 smbClient, SmbFile directory, Smb1FileFilter filter, int queueSize) {
+		this(smbClient, directory, filter, queueSize, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * @param smbClient		：包装目录项使用的SMBClient对象
+	 * @param directory		：要遍历的目录
+	 * @param filter		：目录项过滤器;可为null
+	 * @param queueSize		：预取队列容量
+	 * @param idleTimeout	：队列已满且消费端持续未取走目录项的最长时间（毫秒），超过后放弃遍历；0 表示不限制
+	 */
+	public SmbFile1Iterator(SmbFile1 smbClient, SmbFile directory, Smb1FileFilter filter, int queueSize, long idleTimeout) {
+		this.producer = new Producer(this, smbClient, directory, filter, Math.max(1, queueSize), idleTimeout);
+		ENUM_EXECUTOR.execute(producer);
+	}
+
+	/**
+	 * 后台遍历线程不再使用会话（listFiles 已返回）后执行回调；已结束时在当前线程立即执行
+	 * @param callback	：回调，只执行一次，通常用于归还SMBClient对象
+	 */
+	public void whenFinished(Runnable callback) {
+		producer.whenFinished(callback);
+	}
+
+	/**
+	 * 后台遍历任务；只弱引用遍历器，遍历器未关闭即被回收时能够察觉并停止取回
+	 */
+	private static final class Producer implements Runnable {
+
+		private final WeakReference<SmbFile1Iterator> owner;
+		private final SmbFile1 smbClient;
+		private final SmbFile directory;
+		private final Smb1FileFilter filter;
+		private final BlockingQueue<Object> queue;
+		private final long idleTimeout;
+		/** 是否停止取回：遍历器关闭、被回收或消费超时 */
+		private volatile boolean stopped = false;
+		private volatile Throwable error;
+		/** listFiles 是否已返回 */
+		private boolean finished = false;
+		/** listFiles 返回后执行的回调 */
+		private Runnable finishedCallback;
+
+		Producer(SmbFile1Iterator owner, SmbFile1 smbClient, SmbFile directory, Smb1FileFilter filter, int queueSize,
+				long idleTimeout) {
+			this.owner = new WeakReference<SmbFile1Iterator>(owner);
+			this.smbClient = smbClient;
+			this.directory = directory;
+			this.filter = filter;
+			this.queue = new ArrayBlockingQueue<Object>(queueSize);
+			this.idleTimeout = idleTimeout;
+		}
+
+		@Override
+		public void run() {
+			try {
+				directory.listFiles(new SmbFileFilter() {
+
+					@Override
+					public boolean accept(SmbFile file) throws SmbException {
+						//停止后只消费剩余分页，保证遍历正常结束并释放服务端的目录句柄
+						if (stopped) {
+							return false;
+						}
+						if (filter == null || filter.accept(file)) {
+							enqueue(smbClient.wrap(file));
+						}
+						//目录项已交给队列，不在 listFiles 的结果中保留
+						return false;
+					}
+
+				});
+			} catch (Throwable e) {
+				if (error == null) {
+					error = e;
+				}
+			} finally {
+				try {
+					finish();
+				} finally {
+					enqueue(END);
+				}
+			}
+		}
+
+		void whenFinished(Runnable callback) {
+			synchronized (this) {
+				if (!finished) {
+					finishedCallback = callback;
+					return;
+				}
+			}
+			callback.run();
+		}
+
+		private void finish() {
+			Runnable callback;
+			synchronized (this) {
+				finished = true;
+				callback = finishedCallback;
+				finishedCallback = null;
+			}
+			if (callback != null) {
+				callback.run();
+			}
+		}
+
+		private void enqueue(Object item) {
+			long idleSince = System.currentTimeMillis();
+			try {
+				while (!stopped) {
+					if (queue.offer(item, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+						return;
+					}
+					//遍历器未关闭即被回收：已无消费者
+					if (owner.get() == null) {
+						stopped = true;
+						queue.clear();
+						return;
+					}
+					//消费端长时间未取走目录项：放弃遍历，消费端随后取到结束标记及超时原因
+					if (idleTimeout > 0 && System.currentTimeMillis() - idleSince >= idleTimeout) {
+						error = new InterruptedIOException("Directory iteration idle for more than " + idleTimeout + " ms");
+						stopped = true;
+						queue.clear();
+						queue.offer(END);
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stopped = true;
+			}
+		}
+
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextFile != null) {
+			return true;
+		}
+		if (closed) {
+			return false;
+		}
+		Object item;
+		try {
+			item = producer.queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			closed = true;
+			producer.stopped = true;
+			throw new RuntimeCIFSException(new InterruptedIOException("Directory iteration interrupted"));
+		}
+		if (item == END) {
+			closed = true;
+			Throwable cause = producer.error;
+			if (cause != null) {
+				throw new RuntimeCIFSException(cause.getMessage(), cause);
+			}
+			return false;
+		}
+		nextFile = (SmbFile1) item;
+		return true;
+	}
+
+	@Override
+	public SmbFile1 next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		SmbFile1 file = nextFile;
+		nextFile = null;
+		return file;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		producer.stopped = true;
+		nextFile = null;
+		producer.queue.clear();
+	}
+
+}
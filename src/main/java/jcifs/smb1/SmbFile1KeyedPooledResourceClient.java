@@ -0,0 +1,44 @@
+package jcifs.smb1;
+
+import jcifs.smb1.pool.SmbFileKeyedPool;
+import jcifs.smb1.pool.SmbFilePoolKey;
+
+/**
+ * 基于 Apache Pool2多服务器共享连接池的SMBClient共享文件资源服务客户端实现；只访问 key 对应的共享
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1KeyedPooledResourceClient extends SmbFile1ResourceClient{
+	
+	private SmbFileKeyedPool clientPool = null;
+	private SmbFilePoolKey clientKey = null;
+	
+	public SmbFile1KeyedPooledResourceClient(SmbFileKeyedPool clientPool, SmbFilePoolKey clientKey){
+		 this.clientPool = clientPool;
+		 this.clientKey = clientKey;
+	} 
+	 
+	@Override
+	public SmbFile1 getSMBClient() throws Exception {
+		//从对象池获取该共享的SMBClient对象
+		return clientPool.borrowObject(clientKey);
+	}
+ 
+	@Override
+	public void releaseClient(SmbFile1 smbClient) throws Exception{
+		
+		try {
+			//释放SMBClient到对象池
+			if(smbClient !=null){
+				clientPool.returnObject(clientKey, smbClient);
+			}
+		} catch (Throwable e) {
+			 
+		}
+		
+	}
+	
+	public SmbFilePoolKey getClientKey() {
+		return clientKey;
+	}
+	
+}
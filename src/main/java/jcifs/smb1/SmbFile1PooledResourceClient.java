@@ -1,6 +1,17 @@
 package jcifs.smb1;
 
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import jcifs.io.CallbackFuture;
 import jcifs.smb1.pool.SmbFilePool;
  
 /**
@@ -9,8 +20,17 @@ import jcifs.smb1.pool.SmbFilePool;
  */
 public class SmbFile1PooledResourceClient extends SmbFile1ResourceClient{
 	
+	/** 连接池未限制对象总数时，异步借出的默认线程数 */
+	private static final int DEFAULT_ASYNC_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+	
 	private SmbFilePool clientPool = null;
 	private SmbFile1Config clientConfig = null;
+	/** 借出SMBClient对象的最长等待时间（毫秒）;小于0表示使用连接池的 maxWaitMillis */
+	private long borrowTimeout = -1;
+	/** 当前线程操作的截止时间；设置后该线程的每次借出等待都不会超过该时间 */
+	private final ThreadLocal<Long> deadlineLocal = new ThreadLocal<Long>();
+	/** 异步借出使用的线程池;未指定时首次异步借出时创建 */
+	private Executor asyncExecutor;
 	
 	public SmbFile1PooledResourceClient(SmbFilePool clientPool, SmbFile1Config clientConfig){
 		 this.clientPool = clientPool;
@@ -23,8 +43,82 @@ public class SmbFile1PooledResourceClient extends SmbFile1ResourceClient{
 	 
 	@Override
 	public SmbFile1 getSMBClient() throws Exception {
+		//当前线程设置了截止时间，则等待不超过截止时间
+		Long deadline = deadlineLocal.get();
+		if(deadline != null){
+			return getSMBClient(deadline);
+		}
 		//从对象池获取SMBClient对象
-		return clientPool.borrowObject();
+		return clientPool.borrowObject(borrowTimeout < 0 ? clientPool.getMaxWaitMillis() : borrowTimeout);
+	}
+	
+	/**
+	 * 在截止时间之前从对象池获取SMBClient对象
+	 * @param deadline	：截止时间，System.currentTimeMillis() 时间戳
+	 * @return
+	 * @throws TimeoutException 已超过截止时间
+	 * @throws java.util.NoSuchElementException 截止时间前没有可用的对象
+	 */
+	public SmbFile1 getSMBClient(long deadline) throws Exception {
+		long remaining = deadline - System.currentTimeMillis();
+		if(remaining <= 0){
+			throw new TimeoutException("Deadline exceeded before borrowing SMBClient");
+		}
+		//从对象池获取SMBClient对象
+		return clientPool.borrowObject(borrowTimeout < 0 ? remaining : Math.min(borrowTimeout, remaining));
+	}
+	
+	/**
+	 * 异步从对象池获取SMBClient对象，沿用调用线程的截止时间。<br/>
+	 * 借出请求在有界线程池中排队，同时阻塞在对象池上的线程数不超过线程池大小，大量并发请求只占用队列而不占用线程；
+	 * 排队超过截止时间的请求不再借出而以 {@link TimeoutException} 结束。
+	 * 以 cancel(true) 取消时中断阻塞在对象池上的借出，借出完成后才被取消的对象自动归还
+	 * @return 借出结果；对象使用完毕后须调用 {@link #releaseClient(SmbFile1)} 归还
+	 */
+	public CallbackFuture<SmbFile1> getSMBClientAsync() {
+		final Long deadline = deadlineLocal.get();
+		final AtomicReference<SmbFile1> borrowed = new AtomicReference<SmbFile1>();
+		CallbackFuture<SmbFile1> future = new CallbackFuture<SmbFile1>(new Callable<SmbFile1>() {
+			@Override
+			public SmbFile1 call() throws Exception {
+				SmbFile1 smbClient = deadline != null ? getSMBClient(deadline) : getSMBClient();
+				borrowed.set(smbClient);
+				return smbClient;
+			}
+		}) {
+			@Override
+			public void run() {
+				super.run();
+				//借出完成前已被取消，对象未交给调用方，立即归还
+				if (isCancelled()) {
+					SmbFile1 smbClient = borrowed.getAndSet(null);
+					if (smbClient != null) {
+						try {
+							releaseClient(smbClient);
+						} catch (Exception e) {
+							// ignore
+						}
+					}
+				}
+			}
+		};
+		getAsyncExecutor().execute(future);
+		return future;
+	}
+	
+	/**
+	 * 设置当前线程操作的截止时间；之后该线程通过本客户端进行的各操作借出对象时都不会等待超过该时间
+	 * @param deadline	：截止时间，System.currentTimeMillis() 时间戳
+	 */
+	public void setDeadline(long deadline) {
+		deadlineLocal.set(deadline);
+	}
+	
+	/**
+	 * 清除当前线程操作的截止时间
+	 */
+	public void clearDeadline() {
+		deadlineLocal.remove();
 	}
  
 	@Override
@@ -44,5 +138,33 @@ public class SmbFile1PooledResourceClient extends SmbFile1ResourceClient{
 	public SmbFile1Config getClientConfig() {
 		return clientConfig;
 	}
+
+	public long getBorrowTimeout() {
+		return borrowTimeout;
+	}
+
+	public void setBorrowTimeout(long borrowTimeout) {
+		this.borrowTimeout = borrowTimeout;
+	}
+
+	/**
+	 * 异步借出使用的线程池；未指定时创建线程数与连接池 maxTotal 相同的有界线程池，
+	 * 多出的线程只会阻塞在对象池上，空闲线程超时后回收
+	 */
+	public synchronized Executor getAsyncExecutor() {
+		if (asyncExecutor == null) {
+			int threads = clientPool.getMaxTotal() > 0 ? clientPool.getMaxTotal() : DEFAULT_ASYNC_THREADS;
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(),
+					new BasicThreadFactory.Builder().namingPattern("smb-borrow-%d").daemon(true).build());
+			executor.allowCoreThreadTimeOut(true);
+			asyncExecutor = executor;
+		}
+		return asyncExecutor;
+	}
+
+	public synchronized void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
 	
 }
@@ -0,0 +1,115 @@
+package jcifs.smb1;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import jcifs.smb1.smb1.SmbFile;
+import jcifs.smb1.smb1.SmbRandomAccessFile;
+
+/**
+ * 基于共享文件随机访问句柄的输入流：起始位置及 {@link #skip(long)} 通过定位实现，
+ * 不读取被跳过的数据，断点续传时耗时与跳过的长度无关
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1RandomAccessInputStream extends InputStream {
+
+	private final SmbRandomAccessFile input;
+	private final long length;
+	private long position;
+	private long mark = 0;
+
+	/**
+	 * @param sharedFile	：共享文件
+	 * @param offset		：起始位置
+	 * @throws EOFException 起始位置超出文件大小
+	 */
+	public SmbFile1RandomAccessInputStream(SmbFile sharedFile, long offset) throws IOException {
+		this.input = new SmbRandomAccessFile(sharedFile, "r");
+		try {
+			this.length = input.length();
+			if (offset > length) {
+				throw new EOFException("offset [" + offset + "] larger than the length [" + length + "] of shared File : unexpected EOF");
+			}
+			seek(offset);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 定位到指定位置，之后的读取从该位置开始
+	 */
+	public void seek(long position) throws IOException {
+		input.seek(position);
+		this.position = position;
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = input.read();
+		if (b != -1) {
+			position++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		int bytesRead = input.read(b, off, len);
+		if (bytesRead > 0) {
+			position += bytesRead;
+		}
+		return bytesRead;
+	}
+
+	/**
+	 * 直接定位到跳过后的位置，最多跳到文件末尾
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long skipped = Math.min(n, Math.max(0, length - position));
+		seek(position + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - position));
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		mark = position;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		seek(mark);
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+
+}
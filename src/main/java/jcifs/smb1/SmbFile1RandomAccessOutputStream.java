@@ -0,0 +1,49 @@
+package jcifs.smb1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import jcifs.smb1.smb1.SmbFile;
+import jcifs.smb1.smb1.SmbRandomAccessFile;
+
+/**
+ * 基于共享文件随机访问句柄的输出流：从指定位置开始覆盖写入，不截断文件，用于断点续传时从已上传的长度继续写入
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1RandomAccessOutputStream extends OutputStream {
+
+	private final SmbRandomAccessFile output;
+
+	/**
+	 * @param sharedFile	：共享文件
+	 * @param offset		：开始写入的位置
+	 */
+	public SmbFile1RandomAccessOutputStream(SmbFile sharedFile, long offset) throws IOException {
+		this.output = new SmbRandomAccessFile(sharedFile, "rw");
+		try {
+			output.seek(offset);
+		} catch (IOException e) {
+			output.close();
+			throw e;
+		}
+	}
+
+	public long getPosition() throws IOException {
+		return output.getFilePointer();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		output.write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		output.write(b, off, len);
+	}
+
+	@Override
+	public void close() throws IOException {
+		output.close();
+	}
+
+}
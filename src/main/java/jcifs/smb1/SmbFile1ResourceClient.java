@@ -2,21 +2,38 @@ package jcifs.smb1;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 
+import jcifs.io.BatchReport;
+import jcifs.io.ContentCache;
+import jcifs.io.FileMetadata;
+import jcifs.io.MetadataCache;
+import jcifs.io.ReleasingFileIterator;
+import jcifs.io.SmbFileIterator;
 import jcifs.smb1.filter.Smb1FileFilter;
+import jcifs.smb1.filter.Smb1FileFilters;
+import jcifs.smb1.filter.TrueFileFilter;
 import jcifs.smb1.smb1.SmbFile;
 import jcifs.utils.SMBClientUtils;
+import jcifs.utils.Smb1BatchUtils;
+import jcifs.utils.Smb1FileUtils;
+import jcifs.utils.Smb1ListUtils;
  
 /**
  * 基于ThreadLocal多线程对象复用的SMBClient共享文件资源服务客户端实现
@@ -26,6 +43,10 @@ public class SmbFile1ResourceClient implements ISMBClient{
 	
 	private ThreadLocal<SmbFile1> clientThreadLocal = new ThreadLocal<SmbFile1>();  
 	private SmbFile1Builder clientBuilder;
+	/** 目录元数据缓存;为null时不缓存 */
+	private MetadataCache metadataCache;
+	/** 下载时使用的本地读穿透缓存;为null时使用客户端配置的本地备份 */
+	private ContentCache contentCache;
 	
 	public SmbFile1ResourceClient(){
 	}
@@ -39,15 +60,13 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try {
-			//当前目录
-			SmbFile currentDir = new SmbFile(smbClient,targetDir);
-			if(!currentDir.exists()){
-				currentDir.mkdirs();
-			}
-			return true;
+			//当前目录；已知存在时不再检查，只创建缺失的部分
+			return SMBClientUtils.makeDir(smbClient, targetDir);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(targetDir);
         }
 	}
 	
@@ -107,11 +126,17 @@ public class SmbFile1ResourceClient implements ISMBClient{
 
 	@Override
 	public void downloadToStream(String filepath,OutputStream output) throws Exception {
+		ContentCache contentCache = getContentCache();
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try {
 			//源文件
 			SmbFile1 smbFile = new SmbFile1( smbClient, filepath);
+			//开启本地备份时通过本地读穿透缓存下载
+			if(contentCache != null){
+				SMBClientUtils.retrieveToStream(smbFile, output, contentCache);
+				return;
+			}
 			//下载共享文件至输出流
 			SMBClientUtils.retrieveToStream(smbFile, output);
         } finally {
@@ -127,13 +152,34 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		this.downloadToStream(filepath, output);
 	}
 	
+	@Override
+	public void downloadToResponse(String filepath,HttpServletRequest request,HttpServletResponse response) throws Exception {
+		//获得一个SMBClient对象
+		SmbFile1 smbClient = getSMBClient();
+		try {
+			//源文件
+			SmbFile1 smbFile = new SmbFile1( smbClient, filepath);
+			//按请求的字节区间下载共享文件至响应
+			SMBClientUtils.retrieveToResponse(smbFile, request, response);
+        } finally {
+        	//释放对象
+        	releaseClient(smbClient);
+        }
+	}
+	
 	@Override
 	public void downloadToResponse(String filepath,ServletResponse response) throws Exception {
+		ContentCache contentCache = getContentCache();
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try {
 			//源文件
 			SmbFile1 smbFile = new SmbFile1( smbClient, filepath);
+			//开启本地备份时通过本地读穿透缓存下载
+			if(contentCache != null){
+				SMBClientUtils.retrieveToResponse(smbFile, response, contentCache);
+				return;
+			}
 			//下载共享文件至输出流
 			SMBClientUtils.retrieveToResponse(smbFile, response);
         } finally {
@@ -176,37 +222,51 @@ public class SmbFile1ResourceClient implements ISMBClient{
 	}
 	
 	@Override
-	public InputStream getInputStream(String filepath) throws Exception{
+	public boolean exists(String filepath) throws Exception {
+		//优先从元数据缓存读取
+		Boolean exists = (Boolean) cached(MetadataCache.EXISTS, filepath);
+		if(exists != null){
+			return exists;
+		}
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
-		try { 
-			return SMBClientUtils.getInputStream(smbClient, filepath);
-		} finally {
-			//释放对象  
+		try {
+			exists = new SmbFile1( smbClient, filepath).exists();
+        } finally {
+        	//释放对象  
 			releaseClient(smbClient);
         }
+		cache(MetadataCache.EXISTS, filepath, exists, generation);
+		return exists;
 	}
 	
 	@Override
-	public String[] listNames(String sharedDir) throws Exception {
+	public boolean isDirectory(String filepath) throws Exception {
+		//优先从元数据缓存读取
+		Boolean directory = (Boolean) cached(MetadataCache.DIRECTORY, filepath);
+		if(directory != null){
+			return directory;
+		}
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
-		try { 
-	        return SMBClientUtils.listNames(smbClient, sharedDir);
-		} finally {
-			//释放对象  
+		try {
+			directory = new SmbFile1( smbClient, filepath).isDirectory();
+        } finally {
+        	//释放对象  
 			releaseClient(smbClient);
         }
+		cache(MetadataCache.DIRECTORY, filepath, directory, generation);
+		return directory;
 	}
-
+	
 	@Override
-	public SmbFile1[] listFiles(String sharedDir) throws Exception {
+	public InputStream getInputStream(String filepath) throws Exception{
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir);
-	        return list.toArray(new SmbFile1[list.size()] );
+			return SMBClientUtils.getInputStream(smbClient, filepath);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
@@ -214,38 +274,73 @@ public class SmbFile1ResourceClient implements ISMBClient{
 	}
 	
 	@Override
-	public SmbFile1[] listFiles(String sharedDir,boolean recursion) throws Exception {
+	public String[] listNames(String sharedDir) throws Exception {
+		//优先从元数据缓存读取
+		String[] names = (String[]) cached(MetadataCache.NAMES, sharedDir);
+		if(names != null){
+			return names.clone();
+		}
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir, recursion);
-	        return list.toArray(new SmbFile1[list.size()] );
+			names = SMBClientUtils.listNames(smbClient, sharedDir);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
         }
+		cache(MetadataCache.NAMES, sharedDir, names, generation);
+		return names == null ? null : names.clone();
 	}
 
 	@Override
-	public SmbFile1[] listFiles(String sharedDir, String[] extensions) throws Exception{
+	public SmbFile1[] listFiles(String sharedDir) throws Exception {
+		return this.listFiles(sharedDir, false);
+	}
+	
+	@Override
+	public SmbFile1[] listFiles(String sharedDir,boolean recursion) throws Exception {
+		String kind = recursion ? MetadataCache.FILES_RECURSIVE : MetadataCache.FILES;
+		//优先从元数据缓存读取
+		FileMetadata[] metadata = (FileMetadata[]) cached(kind, sharedDir);
+		long generation = generation();
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir, extensions, false);
-	        return list.toArray(new SmbFile1[list.size()] );
+			if(metadata == null && getMetadataCache() == null){
+				//列出当前工作目录的文件信息
+				List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir, recursion);
+				return list.toArray(new SmbFile1[list.size()] );
+			}
+			if(metadata == null){
+				//缓存只保存不可变的元数据，不保存与会话关联的文件对象
+				List<FileMetadata> list = SMBClientUtils.listMetadata(smbClient, sharedDir, recursion);
+				metadata = list.toArray(new FileMetadata[list.size()]);
+				cache(kind, sharedDir, metadata, generation);
+			}
+			//在本次获得的SMBClient对象上包装，属性直接取自元数据
+			return CachedSmbFile1.fromMetadata(smbClient, metadata);
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
         }
 	}
+
+	@Override
+	public SmbFile1[] listFiles(String sharedDir, String[] extensions) throws Exception{
+		return this.listFiles(sharedDir, extensions, false);
+	}
 	
 	@Override
 	public SmbFile1[] listFiles(String sharedDir, String[] extensions,boolean recursion) throws Exception{
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try { 
+			if(getMetadataCache() != null){
+				//与 SMBClientUtils.listFiles 一致：只返回当前目录下扩展名匹配的文件
+				Collection<SmbFile> files = Smb1FileUtils.listFiles(cachedChildren(smbClient, sharedDir), extensions);
+				return files.toArray(new SmbFile1[files.size()] );
+			}
 			//列出当前工作目录的文件信息
 			List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir, extensions , recursion);
 	        return list.toArray(new SmbFile1[list.size()] );
@@ -257,16 +352,7 @@ public class SmbFile1ResourceClient implements ISMBClient{
 	
 	@Override
 	public SmbFile1[] listFiles(String sharedDir, Smb1FileFilter filter) throws Exception{
-		//获得一个SMBClient对象
-		SmbFile1 smbClient = getSMBClient();
-		try { 
-			//列出当前工作目录的文件信息
-			List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir, filter , false );
-	        return list.toArray(new SmbFile1[list.size()] );
-		} finally {
-			//释放对象  
-			releaseClient(smbClient);
-        }
+		return this.listFiles(sharedDir, filter, false);
 	}
 		
 	@Override
@@ -274,6 +360,19 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		//获得一个SMBClient对象
 		SmbFile1 smbClient = getSMBClient();
 		try { 
+			if(getMetadataCache() != null){
+				List<SmbFile1> list = new ArrayList<SmbFile1>();
+				//与 SMBClientUtils.listFiles 一致：当前目录的条目逐个过滤，递归时命中的目录展开为其下所有匹配的文件
+				for (SmbFile sharedFile : Smb1FileUtils.listFiles(cachedChildren(smbClient, sharedDir), filter)) {
+					if(sharedFile.isDirectory() && recursion){
+						this.listCachedFiles(smbClient, ((CachedSmbFile1) sharedFile).getMetadata().getPath(),
+								filter == null ? TrueFileFilter.INSTANCE : Smb1FileFilters.compile(filter), list);
+					} else {
+						list.add((SmbFile1) sharedFile);
+					}
+				}
+				return list.toArray(new SmbFile1[list.size()] );
+			}
 			//列出当前工作目录的文件信息
 			List<SmbFile1> list = SMBClientUtils.listFiles(smbClient, sharedDir, filter , recursion);
 	        return list.toArray(new SmbFile1[list.size()] );
@@ -283,6 +382,81 @@ public class SmbFile1ResourceClient implements ISMBClient{
         }
 	}
 	
+	/**
+	 * 目录下一级的条目：优先从元数据缓存读取，未命中时列举并写入缓存；在指定的SMBClient对象上包装，属性直接取自元数据
+	 */
+	protected CachedSmbFile1[] cachedChildren(SmbFile1 smbClient, String sharedDir) throws Exception {
+		FileMetadata[] metadata = (FileMetadata[]) cached(MetadataCache.FILES, sharedDir);
+		if(metadata == null){
+			long generation = generation();
+			List<FileMetadata> list = SMBClientUtils.listMetadata(smbClient, sharedDir, false);
+			metadata = list.toArray(new FileMetadata[list.size()]);
+			cache(MetadataCache.FILES, sharedDir, metadata, generation);
+		}
+		return CachedSmbFile1.fromMetadata(smbClient, metadata);
+	}
+	
+	/**
+	 * 递归收集目录下所有匹配的文件，每一级目录的条目都经过元数据缓存
+	 */
+	private void listCachedFiles(SmbFile1 smbClient, String sharedDir, Smb1FileFilter filter, List<SmbFile1> list) throws Exception {
+		for (CachedSmbFile1 sharedFile : cachedChildren(smbClient, sharedDir)) {
+			if(sharedFile.isDirectory()){
+				this.listCachedFiles(smbClient, sharedFile.getMetadata().getPath(), filter, list);
+			} else if(filter.accept(sharedFile)){
+				list.add(sharedFile);
+			}
+		}
+	}
+	
+	@Override
+	public FileMetadata[] listMetadata(String sharedDir, Smb1FileFilter fileFilter, Smb1FileFilter dirFilter,int parallelism) throws Exception{
+		//多个连接并行递归列举，被目录过滤器排除的子目录不再列举；结果为列举时记录的元数据，不引用工作线程的会话
+		List<FileMetadata> list = Smb1ListUtils.listMetadata(this, sharedDir, fileFilter, dirFilter, parallelism);
+		return list.toArray(new FileMetadata[list.size()] );
+	}
+	
+	@Override
+	public SmbFileIterator<SmbFile1> children(String sharedDir) throws Exception{
+		return this.children(sharedDir, null);
+	}
+	
+	@Override
+	public SmbFileIterator<SmbFile1> children(String sharedDir, Smb1FileFilter filter) throws Exception{
+		//获得一个SMBClient对象
+		final SmbFile1 smbClient = getSMBClient();
+		SmbFile1Iterator iterator = null;
+		try {
+			iterator = SMBClientUtils.children(smbClient, sharedDir, filter);
+		} finally {
+			if(iterator == null){
+				//释放对象  
+				releaseClient(smbClient);
+			}
+		}
+		final SmbFile1Iterator children = iterator;
+		//遍历结束或关闭遍历器时释放对象；后台遍历线程可能仍在该会话上取回分页，待其结束后再归还
+		return new ReleasingFileIterator<SmbFile1>(iterator) {
+			
+			@Override
+			protected void release() throws Exception {
+				children.whenFinished(new Runnable() {
+					
+					@Override
+					public void run() {
+						try {
+							releaseClient(smbClient);
+						} catch (Exception e) {
+							//归还失败不影响遍历结果
+						}
+					}
+					
+				});
+			}
+			
+		};
+	}
+	
 	@Override
 	public boolean remove(String filepath) throws Exception {
 		//获得一个SMBClient对象
@@ -292,6 +466,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepath);
         }
 	}
 	
@@ -304,6 +480,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepaths);
         }
 	}
 	
@@ -319,6 +497,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir + "/" + fileName);
         }
 	}
 	
@@ -334,9 +514,22 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir);
         }
 	}
 	
+	@Override
+	public BatchReport remove(String[] filepaths,int parallelism) throws Exception{
+		//多个连接并行删除
+		try {
+			return Smb1BatchUtils.remove(this, filepaths, parallelism);
+		} finally {
+			//使元数据缓存失效
+			invalidate(filepaths);
+		}
+	}
+	
 	@Override
 	public boolean removeDir(String sharedDir) throws Exception {
 		//获得一个SMBClient对象
@@ -346,6 +539,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir);
         }
 	}
 
@@ -357,6 +552,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepath, FilenameUtils.getFullPath(filepath) + fileName);
         }
 	}
 	
@@ -368,9 +565,34 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		} finally {
 			//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(filepath, destpath);
         }
 	}
 	
+	@Override
+	public BatchReport rename(Map<String, String> filepaths,int parallelism) throws Exception{
+		//多个连接并行移动或重命名
+		try {
+			return Smb1BatchUtils.rename(this, filepaths, parallelism);
+		} finally {
+			//使元数据缓存失效
+			invalidate(filepaths.keySet().toArray(new String[filepaths.size()]));
+			invalidate(filepaths.values().toArray(new String[filepaths.size()]));
+		}
+	}
+	
+	@Override
+	public BatchReport upload(Map<String, byte[]> files,int parallelism) throws Exception{
+		//多个连接并行上传
+		try {
+			return Smb1BatchUtils.upload(this, files, parallelism);
+		} finally {
+			//使元数据缓存失效
+			invalidate(files.keySet().toArray(new String[files.size()]));
+		}
+	}
+	
 	@Override
 	public boolean upload(byte[] bytes,String destpath) throws Exception{
 		InputStream input = null;
@@ -403,6 +625,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
         } finally {
         	//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(destpath);
         }
 	}
 	
@@ -418,6 +642,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
         } finally {
         	//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(sharedDir + "/" + fileName);
         }
 	}
 	
@@ -430,6 +656,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
         } finally {
         	//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(destpath);
         }
 	}
 	
@@ -480,6 +708,8 @@ public class SmbFile1ResourceClient implements ISMBClient{
         } finally {
         	//释放对象  
 			releaseClient(smbClient);
+			//使元数据缓存失效
+			invalidate(destpath);
         }
 	}
 	
@@ -514,6 +744,55 @@ public class SmbFile1ResourceClient implements ISMBClient{
 		//SMBConnectUtils.releaseConnect(smbClient);
 	}
 
+	protected Object cached(String kind, String path) {
+		return metadataCache == null ? null : metadataCache.get(kind, path);
+	}
+
+	protected long generation() {
+		return metadataCache == null ? 0 : metadataCache.getGeneration();
+	}
+
+	protected void cache(String kind, String path, Object value, long generation) {
+		if (metadataCache != null) {
+			metadataCache.put(kind, path, value, generation);
+		}
+	}
+
+	/**
+	 * 本客户端修改了指定路径，使相关的元数据缓存条目失效
+	 */
+	protected void invalidate(String... paths) {
+		if (metadataCache == null || paths == null) {
+			return;
+		}
+		for (String path : paths) {
+			metadataCache.invalidate(path);
+		}
+	}
+
+	public MetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	public void setMetadataCache(MetadataCache metadataCache) {
+		this.metadataCache = metadataCache;
+	}
+	
+	/**
+	 * 获取下载时使用的本地读穿透缓存;未指定时使用客户端配置开启的本地备份
+	 * @return 未开启时返回null
+	 */
+	public ContentCache getContentCache() throws IOException {
+		if (contentCache == null && clientBuilder != null) {
+			return clientBuilder.getConfiguration().getContentCache();
+		}
+		return contentCache;
+	}
+
+	public void setContentCache(ContentCache contentCache) {
+		this.contentCache = contentCache;
+	}
+	
 	public void setClientBuilder(SmbFile1Builder clientBuilder) {
 		this.clientBuilder = clientBuilder;
 	}
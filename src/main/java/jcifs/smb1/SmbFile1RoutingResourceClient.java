@@ -0,0 +1,135 @@
+package jcifs.smb1;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.lang3.StringUtils;
+
+import jcifs.smb1.pool.SmbFileKeyedPool;
+import jcifs.smb1.pool.SmbFilePoolKey;
+
+/**
+ * 多服务器共享的SMBClient共享文件资源服务客户端门面：根据访问路径中的服务器地址及共享目录，
+ * 将操作路由到对应共享的客户端
+ * <pre>
+ *	支持的路径格式：smb://[domain;][username[:password]@]host/share/path、//host/share/path、\\host\share\path
+ * </pre>
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1RoutingResourceClient {
+
+	private final SmbFileKeyedPool clientPool;
+	/** 按注册顺序保存的共享键;同一共享注册了多个账号时，未指定账号的路径使用先注册的账号 */
+	private final List<SmbFilePoolKey> clientKeys = new CopyOnWriteArrayList<SmbFilePoolKey>();
+	private final ConcurrentMap<SmbFilePoolKey, ISMBClient> clients = new ConcurrentHashMap<SmbFilePoolKey, ISMBClient>();
+
+	public SmbFile1RoutingResourceClient(SmbFileKeyedPool clientPool) {
+		this.clientPool = clientPool;
+	}
+
+	/**
+	 * 注册一个共享的客户端配置
+	 * @param config	：客户端配置
+	 * @return 该共享对应的对象键
+	 */
+	public SmbFilePoolKey register(SmbFile1Config config) throws Exception {
+		SmbFilePoolKey key = clientPool.register(config);
+		if (clients.putIfAbsent(key, new SmbFile1KeyedPooledResourceClient(clientPool, key)) == null) {
+			clientKeys.add(key);
+		}
+		return key;
+	}
+
+	/**
+	 * 获取指定共享的客户端
+	 */
+	public ISMBClient getClient(SmbFilePoolKey key) {
+		ISMBClient client = clients.get(key);
+		if (client == null) {
+			throw new IllegalArgumentException("SMBClient config not registered : " + key);
+		}
+		return client;
+	}
+
+	/**
+	 * 获取访问路径对应共享的客户端；返回客户端的各操作应使用 {@link #getRelativePath(String)} 得到的相对路径
+	 * @param url	：访问路径
+	 */
+	public ISMBClient route(String url) {
+		return getClient(resolveKey(url));
+	}
+
+	/**
+	 * 解析访问路径对应的共享键：服务器地址相同且根共享目录为路径最长前缀的共享；路径中指定了账号时优先匹配该账号
+	 * @param url	：访问路径
+	 */
+	public SmbFilePoolKey resolveKey(String url) {
+		String[] parts = parse(url);
+		String username = parts[0];
+		String host = parts[1];
+		String path = parts[2];
+		SmbFilePoolKey matched = null;
+		for (SmbFilePoolKey key : clientKeys) {
+			if (!key.getHost().equalsIgnoreCase(host) || !isPrefix(key.getSharedDir(), path)) {
+				continue;
+			}
+			if (matched == null || key.getSharedDir().length() > matched.getSharedDir().length()) {
+				matched = key;
+			} else if (key.getSharedDir().length() == matched.getSharedDir().length() && StringUtils.isNotEmpty(username)
+					&& !username.equals(matched.getUsername()) && username.equals(key.getUsername())) {
+				matched = key;
+			}
+		}
+		if (matched == null) {
+			throw new IllegalArgumentException("No SMBClient config registered for : " + url);
+		}
+		return matched;
+	}
+
+	/**
+	 * 获取访问路径相对于对应共享根目录的路径
+	 * @param url	：访问路径
+	 */
+	public String getRelativePath(String url) {
+		String path = parse(url)[2];
+		String sharedDir = resolveKey(url).getSharedDir();
+		return StringUtils.stripStart(path.substring(sharedDir.length()), "/");
+	}
+
+	/**
+	 * 解析访问路径为 [用户名, 服务器地址, 服务器地址之后的路径]
+	 */
+	protected String[] parse(String url) {
+		if (StringUtils.isBlank(url)) {
+			throw new IllegalArgumentException("url must not be empty");
+		}
+		String path = StringUtils.replace(url.trim(), "\\", "/");
+		if (StringUtils.startsWithIgnoreCase(path, "smb://")) {
+			path = path.substring("smb://".length());
+		}
+		path = StringUtils.stripStart(path, "/");
+		int index = path.indexOf('/');
+		String authority = index < 0 ? path : path.substring(0, index);
+		path = index < 0 ? "" : path.substring(index + 1);
+		String username = null;
+		int at = authority.lastIndexOf('@');
+		if (at >= 0) {
+			//[domain;]username[:password]
+			String userInfo = authority.substring(0, at);
+			username = StringUtils.substringBefore(StringUtils.contains(userInfo, ';') ? StringUtils.substringAfter(userInfo, ";") : userInfo, ":");
+			authority = authority.substring(at + 1);
+		}
+		return new String[] { username, authority, path };
+	}
+
+	private boolean isPrefix(String sharedDir, String path) {
+		if (sharedDir.length() == 0) {
+			return true;
+		}
+		return StringUtils.startsWithIgnoreCase(path, sharedDir)
+				&& (path.length() == sharedDir.length() || path.charAt(sharedDir.length()) == '/');
+	}
+
+}
@@ -0,0 +1,170 @@
+package jcifs.smb1;
+
+import java.lang.reflect.Constructor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import jcifs.io.BufferPool;
+import jcifs.io.CopyStreamProcessListener;
+
+/**
+ * SmbFile1 的传输参数：创建后不可修改，由同一客户端包装出的所有 SmbFile1 对象共享同一实例，
+ * 包装目录项时只需传递一个引用而不必逐项拷贝参数；修改参数通过 withXxx 方法得到新的实例。<br/>
+ * 进度监听对象记录文件名及进度，不能在客户端之间共享：这里只保存配置的监听对象及按类名解析出的构造方法，
+ * 由 {@link #newCopyStreamProcessListener()} 为每个客户端创建
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public final class SmbFile1Settings {
+
+	/** 默认参数 */
+	public static final SmbFile1Settings DEFAULT = new SmbFile1Settings();
+
+	/** 启用或禁用数据流方式上传/下载时是否在缓冲发送/接收完成自动刷新缓存区；大文件上传下载时比较有用;默认false */
+	private boolean autoFlush = false;
+	/** 数据流方式上传/下载时缓存区达到可自动刷新的最小阀值；仅当 autoflush 为true 时才有效；默认与默认缓存区大小相同即 8M */
+	private int autoFlushBlockSize = SmbFile1.DEFAULT_BUFFER_SIZE;
+	/** 内部缓冲区大小;默认 8M */
+	private int bufferSize = SmbFile1.DEFAULT_BUFFER_SIZE;
+	/** 文件通道读取缓冲区大小;默认 2M */
+	private int channelReadBufferSize = SmbFile1.DEFAULT_CHANNEL_SIZE;
+	/** 文件通道写出缓冲区大小;默认 2M */
+	private int channelWriteBufferSize = SmbFile1.DEFAULT_CHANNEL_SIZE;
+	/** 拷贝缓冲区池;默认使用全局共享缓冲池 */
+	private BufferPool bufferPool = BufferPool.getDefault();
+	/** 配置的进度监听对象;未配置监听类名时使用 */
+	private CopyStreamProcessListener copyStreamProcessListener;
+	/** 按监听类名解析出的构造方法;只解析一次 */
+	private Constructor<CopyStreamProcessListener> copyStreamProcessListenerConstructor;
+	/** 是否使用Log4j记录命令信息,默认打印出命令，如果开启日志则关闭打印;默认 false */
+	private boolean logDebug = false;
+
+	private SmbFile1Settings() {
+	}
+
+	/**
+	 * 根据客户端配置创建参数对象；监听对象类名只在此处解析一次
+	 */
+	@SuppressWarnings("unchecked")
+	public static SmbFile1Settings of(SmbFile1Config config) {
+		SmbFile1Settings settings = new SmbFile1Settings();
+		settings.autoFlush = config.isAutoFlush();
+		settings.autoFlushBlockSize = config.getAutoFlushBlockSize();
+		settings.bufferSize = config.getBufferSize();
+		settings.channelReadBufferSize = config.getChannelReadBufferSize();
+		settings.channelWriteBufferSize = config.getChannelWriteBufferSize();
+		settings.bufferPool = config.getBufferPool() == null ? BufferPool.getDefault() : config.getBufferPool();
+		settings.logDebug = config.isLogDebug();
+		settings.copyStreamProcessListener = config.getCopyStreamProcessListener();
+		try {
+			//进行存储时/检索操作时数据处理进度监听对象
+			if(StringUtils.isNotEmpty(config.getCopyStreamProcessListenerName())){
+				Class<CopyStreamProcessListener> listenerClazz = (Class<CopyStreamProcessListener>) Class.forName(config.getCopyStreamProcessListenerName());
+				settings.copyStreamProcessListenerConstructor = listenerClazz.getConstructor();
+			}
+		} catch (Exception e) {
+			SmbFile1.LOG.error(ExceptionUtils.getStackTrace(e));
+		}
+		return settings;
+	}
+
+	private SmbFile1Settings copy() {
+		SmbFile1Settings settings = new SmbFile1Settings();
+		settings.autoFlush = autoFlush;
+		settings.autoFlushBlockSize = autoFlushBlockSize;
+		settings.bufferSize = bufferSize;
+		settings.channelReadBufferSize = channelReadBufferSize;
+		settings.channelWriteBufferSize = channelWriteBufferSize;
+		settings.bufferPool = bufferPool;
+		settings.copyStreamProcessListener = copyStreamProcessListener;
+		settings.copyStreamProcessListenerConstructor = copyStreamProcessListenerConstructor;
+		settings.logDebug = logDebug;
+		return settings;
+	}
+
+	public boolean isAutoFlush() {
+		return autoFlush;
+	}
+
+	public SmbFile1Settings withAutoFlush(boolean autoFlush) {
+		SmbFile1Settings settings = copy();
+		settings.autoFlush = autoFlush;
+		return settings;
+	}
+
+	public int getAutoFlushBlockSize() {
+		return autoFlushBlockSize;
+	}
+
+	public SmbFile1Settings withAutoFlushBlockSize(int autoFlushBlockSize) {
+		SmbFile1Settings settings = copy();
+		settings.autoFlushBlockSize = autoFlushBlockSize;
+		return settings;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public SmbFile1Settings withBufferSize(int bufferSize) {
+		SmbFile1Settings settings = copy();
+		settings.bufferSize = bufferSize;
+		return settings;
+	}
+
+	public int getChannelReadBufferSize() {
+		return channelReadBufferSize;
+	}
+
+	public SmbFile1Settings withChannelReadBufferSize(int channelReadBufferSize) {
+		SmbFile1Settings settings = copy();
+		settings.channelReadBufferSize = channelReadBufferSize;
+		return settings;
+	}
+
+	public int getChannelWriteBufferSize() {
+		return channelWriteBufferSize;
+	}
+
+	public SmbFile1Settings withChannelWriteBufferSize(int channelWriteBufferSize) {
+		SmbFile1Settings settings = copy();
+		settings.channelWriteBufferSize = channelWriteBufferSize;
+		return settings;
+	}
+
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	public SmbFile1Settings withBufferPool(BufferPool bufferPool) {
+		SmbFile1Settings settings = copy();
+		settings.bufferPool = bufferPool == null ? BufferPool.getDefault() : bufferPool;
+		return settings;
+	}
+
+	/**
+	 * 创建进度监听对象：配置了监听类名时每次调用都通过缓存的构造方法创建新的对象，否则返回配置的监听对象
+	 */
+	public CopyStreamProcessListener newCopyStreamProcessListener() {
+		if (copyStreamProcessListenerConstructor == null) {
+			return copyStreamProcessListener;
+		}
+		try {
+			return copyStreamProcessListenerConstructor.newInstance();
+		} catch (Exception e) {
+			SmbFile1.LOG.error(ExceptionUtils.getStackTrace(e));
+			return copyStreamProcessListener;
+		}
+	}
+
+	public boolean isLogDebug() {
+		return logDebug;
+	}
+
+	public SmbFile1Settings withLogDebug(boolean logDebug) {
+		SmbFile1Settings settings = copy();
+		settings.logDebug = logDebug;
+		return settings;
+	}
+
+}
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.Serializable;
 import java.util.Date;
 
+import jcifs.smb1.smb1.SmbException;
 import jcifs.smb1.smb1.SmbFile;
 import jcifs.utils.Smb1FileUtils;
 
@@ -119,6 +120,17 @@ public class AgeFileFilter extends AbstractFileFilter implements Serializable {
         return acceptOlder ? !newer : newer;
     }
 
+    @Override
+    public int getRequiredAttributes() {
+        return SmbFileAttributes.LAST_MODIFIED;
+    }
+
+    @Override
+    public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+        final boolean newer = attributes.getLastModified() > cutoff;
+        return acceptOlder ? !newer : newer;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
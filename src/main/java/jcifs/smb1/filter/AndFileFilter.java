@@ -116,6 +116,37 @@ public class AndFileFilter extends AbstractFileFilter implements ConditionalFile
 		return true;
 	}
 	
+	@Override
+	public int getCost() {
+		int cost = COST_NAME;
+		for (final Smb1FileFilter fileFilter : fileFilters) {
+		    cost = Math.max(cost, Smb1FileFilters.getCost(fileFilter));
+		}
+		return cost;
+	}
+	
+	@Override
+	public int getRequiredAttributes() {
+		int attributes = 0;
+		for (final Smb1FileFilter fileFilter : fileFilters) {
+		    attributes |= Smb1FileFilters.getRequiredAttributes(fileFilter);
+		}
+		return attributes;
+	}
+	
+	@Override
+	public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+		if (this.fileFilters.isEmpty()) {
+		    return false;
+		}
+		for (final Smb1FileFilter fileFilter : fileFilters) {
+		    if (!Smb1FileFilters.accept(fileFilter, attributes)) {
+		        return false;
+		    }
+		}
+		return true;
+	}
+	
    /**
      * {@inheritDoc}
      */
@@ -15,24 +15,14 @@
  */
 package jcifs.smb1.filter;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.Arrays;
-import java.util.UUID;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.SystemUtils;
 
 import jcifs.smb1.smb1.SmbException;
 import jcifs.smb1.smb1.SmbFile;
+import jcifs.smb1.smb1.SmbRandomAccessFile;
 
 @SuppressWarnings("serial")
 public class MagicNumberFileFilter extends AbstractFileFilter  implements Serializable {
@@ -193,34 +183,108 @@ public class MagicNumberFileFilter extends AbstractFileFilter  implements Serial
 	@Override
 	public boolean accept(final SmbFile file ) throws SmbException {
 		if (file != null && file.isFile() && file.canRead()) {
-		    RandomAccessFile randomAccessFile = null;
-		    //临时文件
-		    File tmpFile = new File(SystemUtils.getUserDir(),UUID.randomUUID().toString() + "." + FilenameUtils.getExtension(file.getName()));
+		    // 文件长度不足，无需读取
+		    if (file.length() < getHeaderLength()) {
+		        return false;
+		    }
 		    try {
-		        final byte[] fileBytes = new byte[this.magicNumbers.length];
-		        OutputStream output = new FileOutputStream(tmpFile);
-		        InputStream input = file.getInputStream();
-		        IOUtils.copy(input, output);
-		        output.flush();
-		        IOUtils.closeQuietly(output);
-				randomAccessFile = new RandomAccessFile(tmpFile, "r");
-				randomAccessFile.seek(byteOffset);
-				final int read = randomAccessFile.read(fileBytes);
-				if (read != magicNumbers.length) {
-				    return false;
-				}
-				return Arrays.equals(this.magicNumbers, fileBytes);
+		        return matches(readHeader(file, this.byteOffset, this.magicNumbers.length), this.byteOffset);
 		    } catch (final IOException ioe) {
 		        // Do nothing, fall through and do not accept file
-		    } finally {
-		    	FileUtils.deleteQuietly(tmpFile);
-		        IOUtils.closeQuietly(randomAccessFile);
 		    }
 		}
 		
 		return false;
 	}
 	
+	@Override
+	public int getRequiredAttributes() {
+		return SmbFileAttributes.TYPE | SmbFileAttributes.LENGTH;
+	}
+	
+	@Override
+	public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+		if (attributes.isFile() && attributes.length() >= getHeaderLength() && attributes.getFile().canRead()) {
+		    try {
+		        return matches(readHeader(attributes.getFile(), this.byteOffset, this.magicNumbers.length), this.byteOffset);
+		    } catch (final IOException ioe) {
+		        // Do nothing, fall through and do not accept file
+		    }
+		}
+		return false;
+	}
+	
+	@Override
+	public int getCost() {
+		return COST_CONTENT;
+	}
+	
+	/**
+	* 判断已读取的文件内容是否在指定偏移量处包含魔数
+	*
+	* @param header 		：已读取的文件内容
+	* @param headerOffset 	：header 在文件中的起始位置
+	* @return {@code true} 包含魔数, {@code false} 不包含或内容不足
+	*/
+	public boolean matches(final byte[] header, final long headerOffset) {
+		if (header == null || this.byteOffset < headerOffset) {
+		    return false;
+		}
+		final long start = this.byteOffset - headerOffset;
+		if (start + this.magicNumbers.length > header.length) {
+		    return false;
+		}
+		for (int i = 0; i < this.magicNumbers.length; i++) {
+		    if (header[(int) start + i] != this.magicNumbers[i]) {
+		        return false;
+		    }
+		}
+		return true;
+	}
+	
+	/**
+	* 只读取文件中指定位置的若干字节，不下载整个文件；文件长度不足时返回实际读取到的字节
+	*
+	* @param file 	：共享文件
+	* @param offset 	：读取的起始位置
+	* @param length 	：读取的字节数
+	* @return 读取到的字节
+	* @throws IOException 读取失败
+	*/
+	public static byte[] readHeader(final SmbFile file, final long offset, final int length) throws IOException {
+		final SmbRandomAccessFile input = new SmbRandomAccessFile(file, "r");
+		try {
+		    input.seek(offset);
+		    final byte[] bytes = new byte[length];
+		    int total = 0;
+		    while (total < length) {
+		        final int read = input.read(bytes, total, length - total);
+		        if (read < 0) {
+		            break;
+		        }
+		        total += read;
+		    }
+		    return total == length ? bytes : Arrays.copyOf(bytes, total);
+		} finally {
+		    input.close();
+		}
+	}
+	
+	public byte[] getMagicNumbers() {
+		return Arrays.copyOf(this.magicNumbers, this.magicNumbers.length);
+	}
+	
+	public long getByteOffset() {
+		return this.byteOffset;
+	}
+	
+	/**
+	* 需要读取的文件头长度：偏移量加魔数长度
+	*/
+	public long getHeaderLength() {
+		return this.byteOffset + this.magicNumbers.length;
+	}
+	
 	/**
 	* Returns a String representation of the file filter, which includes the
 	* magic number bytes and byte offset.
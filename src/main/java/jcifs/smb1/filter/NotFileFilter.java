@@ -50,6 +50,25 @@ public class NotFileFilter extends AbstractFileFilter implements Serializable {
         return ! filter.accept(file);
     }
 
+    @Override
+    public int getRequiredAttributes() {
+        return Smb1FileFilters.getRequiredAttributes(filter);
+    }
+
+    @Override
+    public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+        return ! Smb1FileFilters.accept(filter, attributes);
+    }
+
+    @Override
+    public int getCost() {
+        return Smb1FileFilters.getCost(filter);
+    }
+
+    public Smb1FileFilter getFilter() {
+        return filter;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
@@ -153,6 +153,19 @@ public class PrefixFileFilter extends AbstractFileFilter implements Serializable
         return false;
     }
 
+    @Override
+    public int getCost() {
+        return COST_NAME;
+    }
+
+    public String[] getPrefixes() {
+        return prefixes.clone();
+    }
+
+    public IOCase getCaseSensitivity() {
+        return caseSensitivity;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
@@ -62,6 +62,17 @@ public class SizeFileFilter extends AbstractFileFilter implements Serializable {
         return acceptLarger ? !smaller : smaller;
     }
 
+    @Override
+    public int getRequiredAttributes() {
+        return SmbFileAttributes.LENGTH;
+    }
+
+    @Override
+    public boolean accept(final SmbFileAttributes attributes) throws SmbException {
+        final boolean smaller = attributes.length() < size;
+        return acceptLarger ? !smaller : smaller;
+    }
+
     /**
      * Provide a String representaion of this file filter.
      *
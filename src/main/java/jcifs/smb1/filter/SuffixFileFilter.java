@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.apache.commons.io.IOCase;
 
+import jcifs.io.SuffixMatcher;
 import jcifs.smb1.smb1.SmbException;
 import jcifs.smb1.smb1.SmbFile;
 
@@ -31,6 +32,9 @@ public class SuffixFileFilter extends AbstractFileFilter implements Serializable
 
     /** Whether the comparison is case sensitive. */
     private final IOCase caseSensitivity;
+    
+    /** 预编译的后缀匹配器 */
+    private final SuffixMatcher matcher;
 
     /**
      * Constructs a new Suffix file filter for a single extension.
@@ -57,6 +61,7 @@ public class SuffixFileFilter extends AbstractFileFilter implements Serializable
         }
         this.suffixes = new String[] {suffix};
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.matcher = new SuffixMatcher(this.suffixes, this.caseSensitivity.isCaseSensitive());
     }
 
     /**
@@ -88,6 +93,7 @@ public class SuffixFileFilter extends AbstractFileFilter implements Serializable
         this.suffixes = new String[suffixes.length];
         System.arraycopy(suffixes, 0, this.suffixes, 0, suffixes.length);
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.matcher = new SuffixMatcher(this.suffixes, this.caseSensitivity.isCaseSensitive());
     }
 
     /**
@@ -117,6 +123,7 @@ public class SuffixFileFilter extends AbstractFileFilter implements Serializable
         }
         this.suffixes = suffixes.toArray(new String[suffixes.size()]);
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.matcher = new SuffixMatcher(this.suffixes, this.caseSensitivity.isCaseSensitive());
     }
 
     /**
@@ -127,13 +134,7 @@ public class SuffixFileFilter extends AbstractFileFilter implements Serializable
      */
     @Override
     public boolean accept(final SmbFile file ) throws SmbException {
-        final String name = file.getName();
-        for (final String suffix : this.suffixes) {
-            if (caseSensitivity.checkEndsWith(name, suffix)) {
-                return true;
-            }
-        }
-        return false;
+        return matcher.matches(file.getName());
     }
     
     /**
@@ -145,12 +146,20 @@ public class SuffixFileFilter extends AbstractFileFilter implements Serializable
      */
     @Override
     public boolean accept(final SmbFile file, final String name) throws SmbException {
-        for (final String suffix : this.suffixes) {
-            if (caseSensitivity.checkEndsWith(name, suffix)) {
-                return true;
-            }
-        }
-        return false;
+        return matcher.matches(name);
+    }
+    
+    @Override
+    public int getCost() {
+        return COST_NAME;
+    }
+    
+    public String[] getSuffixes() {
+        return suffixes.clone();
+    }
+    
+    public IOCase getCaseSensitivity() {
+        return caseSensitivity;
     }
 	
     /**
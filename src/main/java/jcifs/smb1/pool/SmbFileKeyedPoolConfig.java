@@ -0,0 +1,46 @@
+package jcifs.smb1.pool;
+
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+
+import jcifs.smb1.SmbFile1;
+
+/**
+ * 基于apache-pool2的多服务器共享连接池初始化对象；maxTotalPerKey 限制单个共享的连接数，maxTotal 限制所有共享的连接总数
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFileKeyedPoolConfig extends GenericKeyedObjectPoolConfig<SmbFile1> {
+
+	/** 对象空闲超过该时间（毫秒）后，借出或后台检测时才进行探测；短时间内反复借出的对象不产生网络开销 */
+	private long validateIdleTime = SmbFilePoolConfig.DEFAULT_VALIDATE_IDLE_TIME;
+	/** 连接探测超时时间（毫秒）；小于等于0表示不限制 */
+	private long validateTimeout = SmbFilePoolConfig.DEFAULT_VALIDATE_TIMEOUT;
+
+	public SmbFileKeyedPoolConfig() {
+		//借出前检测，空闲未超过validateIdleTime的对象直接视为有效
+		setTestOnBorrow(true);
+		//后台检测空闲对象，探测即为对空闲会话的保活
+		setTestWhileIdle(true);
+		setTimeBetweenEvictionRunsMillis(SmbFilePoolConfig.DEFAULT_EVICTION_INTERVAL);
+		//每次检测所有空闲对象
+		setNumTestsPerEvictionRun(-1);
+		//同一共享的等待者按先后顺序获得连接；连接总数达到上限时，释放的容量优先分配给等待者最多的共享
+		setFairness(true);
+	}
+
+	public long getValidateIdleTime() {
+		return validateIdleTime;
+	}
+
+	public void setValidateIdleTime(long validateIdleTime) {
+		this.validateIdleTime = validateIdleTime;
+	}
+
+	public long getValidateTimeout() {
+		return validateTimeout;
+	}
+
+	public void setValidateTimeout(long validateTimeout) {
+		this.validateTimeout = validateTimeout;
+	}
+
+}
@@ -0,0 +1,116 @@
+package jcifs.smb1.pool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.smb1.SmbFile1;
+import jcifs.smb1.SmbFile1Builder;
+import jcifs.smb1.SmbFile1Config;
+
+/**
+ * 多服务器共享连接池的对象工厂：按注册的配置为每个 {@link SmbFilePoolKey} 创建对应共享的SMBClient对象
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFileKeyedPooledFactory extends BaseKeyedPooledObjectFactory<SmbFilePoolKey, SmbFile1> {
+
+	protected static Logger LOG = LoggerFactory.getLogger(SmbFileKeyedPooledFactory.class);
+	protected final AtomicLong atomicLongCount = new AtomicLong();
+	/** 已注册的共享及其对象构建器 */
+	protected final ConcurrentMap<SmbFilePoolKey, SmbFile1Builder> clientBuilders = new ConcurrentHashMap<SmbFilePoolKey, SmbFile1Builder>();
+	/** 与单共享连接池共用的连接、有效性检测及探测逻辑 */
+	protected final SmbFilePooledSupport<SmbFile1> support = new SmbFilePooledSupport<SmbFile1>();
+
+	/**
+	 * 注册一个共享的客户端配置；相同键重复注册时保留首次注册的配置
+	 * @param config	：客户端配置
+	 * @return 该共享对应的对象键
+	 */
+	public SmbFilePoolKey register(SmbFile1Config config) {
+		SmbFilePoolKey key = SmbFilePoolKey.of(config);
+		clientBuilders.putIfAbsent(key, new SmbFile1Builder(config));
+		return key;
+	}
+
+	public boolean isRegistered(SmbFilePoolKey key) {
+		return clientBuilders.containsKey(key);
+	}
+
+	/**
+	 * 创建一个新对象;当对象池中该键的对象个数不足时,将会使用此方法来"输出"一个新的"对象",并交付给对象池管理
+	 */
+	@Override
+	public SmbFile1 create(SmbFilePoolKey key) throws Exception {
+		SmbFile1Builder clientBuilder = clientBuilders.get(key);
+		if (clientBuilder == null) {
+			throw new IllegalStateException("SMBClient config not registered : " + key);
+		}
+		SmbFile1 smbClient = clientBuilder.build();
+		// 记录数加1
+		LOG.info(" SMBClient [" + key + "] 创建成功，当前线程池中有SMBClient对象" + atomicLongCount.incrementAndGet() + "个!");
+		return smbClient;
+	}
+
+	/**
+	 * 创建对象并立即建立会话
+	 */
+	@Override
+	public PooledObject<SmbFile1> makeObject(SmbFilePoolKey key) throws Exception {
+		SmbFile1 smbClient = create(key);
+		try {
+			return support.connect(smbClient);
+		} catch (Exception e) {
+			// 记录数减1
+			atomicLongCount.decrementAndGet();
+			throw e;
+		}
+	}
+
+	@Override
+	public PooledObject<SmbFile1> wrap(SmbFile1 SMBClient) {
+		return new SmbFilePooledObject<SmbFile1>(SMBClient);
+	}
+
+	@Override
+	public void destroyObject(SmbFilePoolKey key, PooledObject<SmbFile1> poolObject) throws Exception {
+		SmbFile1 smbClient = poolObject.getObject();
+		if (smbClient != null) {
+			support.close(smbClient);
+		}
+		// 记录数减1
+		LOG.info(" SMBClient [" + key + "] 销毁成功，当前线程池中有SMBClient对象" + atomicLongCount.decrementAndGet() + "个!");
+	}
+
+	@Override
+	public boolean validateObject(SmbFilePoolKey key, PooledObject<SmbFile1> poolObject) {
+		return support.validate(poolObject);
+	}
+
+	@Override
+	public void activateObject(SmbFilePoolKey key, PooledObject<SmbFile1> poolObject) throws Exception {
+		//仅首次借出时连接，之后由validateObject按空闲时间探测连接可用性
+		support.activate(poolObject);
+	}
+
+	public long getValidateIdleTime() {
+		return support.getValidateIdleTime();
+	}
+
+	public void setValidateIdleTime(long validateIdleTime) {
+		support.setValidateIdleTime(validateIdleTime);
+	}
+
+	public long getValidateTimeout() {
+		return support.getValidateTimeout();
+	}
+
+	public void setValidateTimeout(long validateTimeout) {
+		support.setValidateTimeout(validateTimeout);
+	}
+
+}
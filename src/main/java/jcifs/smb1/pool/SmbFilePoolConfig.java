@@ -9,10 +9,43 @@ import jcifs.smb1.SmbFile1;
  */
 public class SmbFilePoolConfig extends GenericObjectPoolConfig<SmbFile1> {
 	
+	/** 默认空闲多久后借出前需要重新探测连接：30秒 */
+	public static final long DEFAULT_VALIDATE_IDLE_TIME = 30 * 1000;
+	/** 默认连接探测超时时间：5秒 */
+	public static final long DEFAULT_VALIDATE_TIMEOUT = 5 * 1000;
+	/** 默认后台空闲检测（保活）间隔：30秒 */
+	public static final long DEFAULT_EVICTION_INTERVAL = 30 * 1000;
+	/** 默认预热线程数：4 */
+	public static final int DEFAULT_PREWARM_THREADS = 4;
+	/** 默认阻塞等待预热完成的最长时间：60秒 */
+	public static final long DEFAULT_PREWARM_TIMEOUT = 60 * 1000;
+	
 	/**
 	 * If the SMBClient Pool should be enabled or not
 	 */
 	private boolean enabled = false;
+	/** 对象空闲超过该时间（毫秒）后，借出或后台检测时才进行探测；短时间内反复借出的对象不产生网络开销 */
+	private long validateIdleTime = DEFAULT_VALIDATE_IDLE_TIME;
+	/** 连接探测超时时间（毫秒）；小于等于0表示不限制 */
+	private long validateTimeout = DEFAULT_VALIDATE_TIMEOUT;
+	/** 创建连接池时是否并行预先建立 minIdle 个会话;默认 false */
+	private boolean prewarm = false;
+	/** 预热时并行建立会话的线程数;默认 4 */
+	private int prewarmThreads = DEFAULT_PREWARM_THREADS;
+	/** 创建连接池时是否阻塞直到预热完成;默认 false */
+	private boolean prewarmBlocking = false;
+	/** 阻塞等待预热完成的最长时间（毫秒）;默认 60秒 */
+	private long prewarmTimeout = DEFAULT_PREWARM_TIMEOUT;
+	
+	public SmbFilePoolConfig() {
+		//借出前检测，空闲未超过validateIdleTime的对象直接视为有效
+		setTestOnBorrow(true);
+		//后台检测空闲对象，探测即为对空闲会话的保活
+		setTestWhileIdle(true);
+		setTimeBetweenEvictionRunsMillis(DEFAULT_EVICTION_INTERVAL);
+		//每次检测所有空闲对象
+		setNumTestsPerEvictionRun(-1);
+	}
 
 	public boolean isEnabled() {
 		return enabled;
@@ -21,6 +54,54 @@ public class SmbFilePoolConfig extends GenericObjectPoolConfig<SmbFile1> {
 	public void setEnabled(boolean enabled) {
 		this.enabled = enabled;
 	}
+
+	public long getValidateIdleTime() {
+		return validateIdleTime;
+	}
+
+	public void setValidateIdleTime(long validateIdleTime) {
+		this.validateIdleTime = validateIdleTime;
+	}
+
+	public long getValidateTimeout() {
+		return validateTimeout;
+	}
+
+	public void setValidateTimeout(long validateTimeout) {
+		this.validateTimeout = validateTimeout;
+	}
+
+	public boolean isPrewarm() {
+		return prewarm;
+	}
+
+	public void setPrewarm(boolean prewarm) {
+		this.prewarm = prewarm;
+	}
+
+	public int getPrewarmThreads() {
+		return prewarmThreads;
+	}
+
+	public void setPrewarmThreads(int prewarmThreads) {
+		this.prewarmThreads = prewarmThreads;
+	}
+
+	public boolean isPrewarmBlocking() {
+		return prewarmBlocking;
+	}
+
+	public void setPrewarmBlocking(boolean prewarmBlocking) {
+		this.prewarmBlocking = prewarmBlocking;
+	}
+
+	public long getPrewarmTimeout() {
+		return prewarmTimeout;
+	}
+
+	public void setPrewarmTimeout(long prewarmTimeout) {
+		this.prewarmTimeout = prewarmTimeout;
+	}
 	
 	
 }
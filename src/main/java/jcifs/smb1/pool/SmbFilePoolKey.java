@@ -0,0 +1,87 @@
+package jcifs.smb1.pool;
+
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+
+import jcifs.smb1.SmbFile1Config;
+
+/**
+ * 多服务器共享连接池的对象键：同一【共享文件服务器】地址、根共享目录及登录账号共用一组连接
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFilePoolKey {
+
+	/** 【共享文件服务器】域名 */
+	private final String domain;
+	/** 【共享文件服务器】地址;不区分大小写 */
+	private final String host;
+	/** 【共享文件服务器】根共享目录;不含首尾的路径分割符 */
+	private final String sharedDir;
+	/** 【共享文件服务器】用户名 */
+	private final String username;
+	/** 【共享文件服务器】密码 */
+	private final String password;
+
+	public SmbFilePoolKey(String domain, String host, String sharedDir, String username, String password) {
+		this.domain = StringUtils.defaultString(domain);
+		this.host = StringUtils.lowerCase(StringUtils.defaultString(host));
+		this.sharedDir = StringUtils.strip(StringUtils.replace(StringUtils.defaultString(sharedDir), "\\", "/"), "/");
+		this.username = StringUtils.defaultString(username);
+		this.password = StringUtils.defaultString(password);
+	}
+
+	public static SmbFilePoolKey of(SmbFile1Config config) {
+		return new SmbFilePoolKey(config.getDomain(), config.getHost(), config.getSharedDir(), config.getUsername(), config.getPassword());
+	}
+
+	public String getDomain() {
+		return domain;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public String getSharedDir() {
+		return sharedDir;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SmbFilePoolKey)) {
+			return false;
+		}
+		SmbFilePoolKey other = (SmbFilePoolKey) obj;
+		return host.equals(other.host) && sharedDir.equalsIgnoreCase(other.sharedDir) && domain.equalsIgnoreCase(other.domain)
+				&& username.equals(other.username) && password.equals(other.password);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(host, sharedDir.toLowerCase(), domain.toLowerCase(), username, password);
+	}
+
+	/**
+	 * 不输出密码，可用于日志及连接池统计信息
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		if (StringUtils.isNotEmpty(domain)) {
+			builder.append(domain).append(";");
+		}
+		if (StringUtils.isNotEmpty(username)) {
+			builder.append(username).append("@");
+		}
+		return builder.append(host).append("/").append(sharedDir).toString();
+	}
+
+}
@@ -4,7 +4,6 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +17,8 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile1> {
 
 	protected static Logger LOG = LoggerFactory.getLogger(SmbFilePooledFactory.class);
 	protected final AtomicLong atomicLongCount;
+	/** 连接、有效性检测及探测逻辑 */
+	protected final SmbFilePooledSupport<SmbFile1> support = new SmbFilePooledSupport<SmbFile1>();
 	protected SmbFile1Builder clientBuilder;
 	
 	public SmbFilePooledFactory(SmbFile1Builder clientBuilder ) {
@@ -36,9 +37,24 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile1> {
 		return smbClient;
 	}
 
+	/**
+	 * 创建对象并立即建立会话;连接池预热及后台补充 minIdle 时创建的即是可直接使用的会话，不会把认证开销留给首次借出
+	 */
+	@Override
+	public PooledObject<SmbFile1> makeObject() throws Exception {
+		SmbFile1 smbClient = create();
+		try {
+			return support.connect(smbClient);
+		} catch (Exception e) {
+			// 记录数减1
+			atomicLongCount.decrementAndGet();
+			throw e;
+		}
+	}
+
 	@Override
 	public PooledObject<SmbFile1> wrap(SmbFile1 SMBClient) {
-		return new DefaultPooledObject<SmbFile1>(SMBClient);
+		return new SmbFilePooledObject<SmbFile1>(SMBClient);
 	}
 
 	/**
@@ -52,7 +68,7 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile1> {
 		//FTP客户端  
 		SmbFile1 smbClient = poolObject.getObject();
 		if (smbClient != null) {
-			//SMBConnectUtils.releaseConnect(smbClient);
+			support.close(smbClient);
 		}
 		// 记录数减1
 		LOG.info(" SMBClient 销毁成功，当前线程池中有SMBClient对象" + atomicLongCount.decrementAndGet() + "个!");
@@ -68,14 +84,7 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile1> {
 	 */
 	@Override
 	public boolean validateObject(PooledObject<SmbFile1> poolObject) {
-		//FTP客户端  
-		SmbFile1 smbClient = poolObject.getObject();
-		if (smbClient != null) {
-			
-		}
-		//验证连接的有效性
-		//return SMBConnectUtils.validateConnect(smbClient);
-		return true;
+		return support.validate(poolObject);
 	}
 
 	/**
@@ -86,12 +95,8 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile1> {
 	 */
 	@Override
 	public void activateObject(PooledObject<SmbFile1> poolObject) throws Exception {
-		//FTP客户端  
-		SmbFile1 smbClient = poolObject.getObject();
-		if (smbClient != null) {
-			//尝试连接 ;SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
-        	smbClient.connect();
-		}
+		//仅首次借出时连接，之后由validateObject按空闲时间探测连接可用性
+		support.activate(poolObject);
 	}
 
 	/**
@@ -105,5 +110,21 @@ public class SmbFilePooledFactory extends BasePooledObjectFactory<SmbFile1> {
 	public void passivateObject(PooledObject<SmbFile1> poolObject) throws Exception {
 		
 	}
+
+	public long getValidateIdleTime() {
+		return support.getValidateIdleTime();
+	}
+
+	public void setValidateIdleTime(long validateIdleTime) {
+		support.setValidateIdleTime(validateIdleTime);
+	}
+
+	public long getValidateTimeout() {
+		return support.getValidateTimeout();
+	}
+
+	public void setValidateTimeout(long validateTimeout) {
+		support.setValidateTimeout(validateTimeout);
+	}
 	 
 }
@@ -0,0 +1,150 @@
+package jcifs.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+import jcifs.io.ByteRange;
+
+/**
+ * HTTP 分段下载（Range / 206 Partial Content）响应工具：解析请求中的区间，设置状态码及长度相关的响应头，
+ * 多个区间时按 multipart/byteranges 格式输出；区间数据的读取由调用方通过 {@link RangeWriter} 定位读取共享文件
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class HttpRangeUtils {
+
+	public static final String ACCEPT_RANGES = "Accept-Ranges";
+	public static final String CONTENT_RANGE = "Content-Range";
+	public static final String CONTENT_LENGTH = "Content-Length";
+	public static final String RANGE = "Range";
+	public static final String IF_RANGE = "If-Range";
+	public static final String LAST_MODIFIED = "Last-Modified";
+	/** 未设置响应类型时各区间使用的类型 */
+	public static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+	private static final byte[] CRLF = "\r\n".getBytes(ISO_8859_1);
+
+	/**
+	 * 写出文件的一个字节区间
+	 */
+	public static interface RangeWriter {
+
+		/**
+		 * 将共享文件 range 区间内的数据写出到输出流
+		 */
+		long write(ByteRange range, OutputStream output) throws IOException;
+
+	}
+
+	/**
+	 * 解析请求中的 Range 请求头；If-Range 与文件修改时间不一致时忽略 Range，返回完整文件
+	 * @param request		：HTTP请求
+	 * @param length		：文件大小
+	 * @param lastModified	：文件修改时间
+	 * @return 见 {@link ByteRange#parse(String, long)}
+	 */
+	public static List<ByteRange> getRanges(HttpServletRequest request, long length, long lastModified) {
+		String ifRange = request.getHeader(IF_RANGE);
+		if (StringUtils.isNotBlank(ifRange)) {
+			long since;
+			try {
+				since = request.getDateHeader(IF_RANGE);
+			} catch (IllegalArgumentException e) {
+				//实体标签：未生成 ETag，无法匹配
+				return null;
+			}
+			//HTTP 日期精确到秒
+			if (since / 1000 != lastModified / 1000) {
+				return null;
+			}
+		}
+		return ByteRange.parse(request.getHeader(RANGE), length);
+	}
+
+	/**
+	 * 按区间写出文件内容：
+	 * <ul>
+	 * <li>ranges 为null时写出完整文件；</li>
+	 * <li>ranges 为空时返回 416，响应中不包含文件内容；</li>
+	 * <li>单个区间时返回 206 及 Content-Range；</li>
+	 * <li>多个区间时返回 206 及 multipart/byteranges 格式的内容。</li>
+	 * </ul>
+	 * response 不是 {@link HttpServletResponse} 时不设置任何响应头，依次写出各区间的数据
+	 * @param response	：响应对象
+	 * @param ranges	：请求的区间
+	 * @param length	：文件大小
+	 * @param writer	：区间数据的写出逻辑
+	 * @return 写出的文件数据字节数，不含 multipart 分隔内容
+	 */
+	public static long send(ServletResponse response, List<ByteRange> ranges, long length, RangeWriter writer) throws IOException {
+		if (!(response instanceof HttpServletResponse)) {
+			OutputStream output = response.getOutputStream();
+			if (ranges == null) {
+				return length > 0 ? writer.write(new ByteRange(0, length - 1), output) : 0;
+			}
+			long total = 0;
+			for (ByteRange range : ranges) {
+				total += writer.write(range, output);
+			}
+			return total;
+		}
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		httpResponse.setHeader(ACCEPT_RANGES, ByteRange.BYTES_UNIT);
+		if (ranges == null) {
+			//完整文件
+			httpResponse.setHeader(CONTENT_LENGTH, String.valueOf(length));
+			return length > 0 ? writer.write(new ByteRange(0, length - 1), httpResponse.getOutputStream()) : 0;
+		}
+		if (ranges.isEmpty()) {
+			//所有区间均超出文件大小
+			httpResponse.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			httpResponse.setHeader(CONTENT_RANGE, ByteRange.BYTES_UNIT + " */" + length);
+			httpResponse.setHeader(CONTENT_LENGTH, "0");
+			return 0;
+		}
+		//合并重叠的区间，避免同一段数据被重复读取
+		ranges = ByteRange.coalesce(ranges);
+		httpResponse.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		if (ranges.size() == 1) {
+			ByteRange range = ranges.get(0);
+			httpResponse.setHeader(CONTENT_RANGE, range.toContentRange(length));
+			httpResponse.setHeader(CONTENT_LENGTH, String.valueOf(range.getLength()));
+			return writer.write(range, httpResponse.getOutputStream());
+		}
+		//多个区间：预先生成各分段的头部，以便计算准确的 Content-Length
+		String boundary = UUID.randomUUID().toString().replace("-", "");
+		String contentType = StringUtils.defaultIfBlank(httpResponse.getContentType(), DEFAULT_CONTENT_TYPE);
+		List<byte[]> partHeaders = new ArrayList<byte[]>(ranges.size());
+		long contentLength = 0;
+		for (ByteRange range : ranges) {
+			byte[] partHeader = ("\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\n" + CONTENT_RANGE + ": "
+					+ range.toContentRange(length) + "\r\n\r\n").getBytes(ISO_8859_1);
+			partHeaders.add(partHeader);
+			contentLength += partHeader.length + range.getLength();
+		}
+		byte[] closing = ("\r\n--" + boundary + "--").getBytes(ISO_8859_1);
+		contentLength += closing.length + CRLF.length;
+		httpResponse.setContentType("multipart/byteranges; boundary=" + boundary);
+		httpResponse.setHeader(CONTENT_LENGTH, String.valueOf(contentLength));
+		OutputStream output = httpResponse.getOutputStream();
+		long total = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			output.write(partHeaders.get(i));
+			total += writer.write(ranges.get(i), output);
+		}
+		output.write(closing);
+		output.write(CRLF);
+		return total;
+	}
+
+}
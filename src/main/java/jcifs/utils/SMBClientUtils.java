@@ -1,6 +1,8 @@
 package jcifs.utils;
 
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -11,6 +13,8 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
@@ -18,9 +22,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jcifs.io.ByteRange;
+import jcifs.io.ContentCache;
+import jcifs.io.DirectoryCache;
+import jcifs.io.FileMetadata;
 import jcifs.smb1.SmbFile1;
+import jcifs.smb1.SmbFile1Iterator;
 import jcifs.smb1.filter.Smb1FileFilter;
 import jcifs.smb1.smb1.SmbFile;
+import jcifs.smb1.smb1.SmbRandomAccessFile;
 
 public class SMBClientUtils {
 
@@ -39,8 +49,8 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		try {
 			//异常检查
 			Smb1Assert.assertAppend(localFile,sharedFile);
-			// 包装文件输入流  
-			input = SmbFile1StreamUtils.toBufferedInputStream(localFile, sharedFile.getBufferSize());
+			// 文件输入流；拷贝时按缓存区大小整块读取，无需再包装缓冲流
+			input = new FileInputStream(localFile);
 			//断点上传输入流
 			return SMBClientUtils.appendStream(sharedFile, input, Math.max(0, localFile.length() - sharedFile.getContentLength()));
 		} finally {
@@ -64,8 +74,8 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 			SmbFile1 sharedFile = smbClient.get(filepath);
 			//异常检查
 			Smb1Assert.assertAppend(localFile, sharedFile);
-			// 包装文件输入流  
-			input = SmbFile1StreamUtils.toBufferedInputStream(localFile, smbClient.getBufferSize());
+			// 文件输入流；拷贝时按缓存区大小整块读取，无需再包装缓冲流
+			input = new FileInputStream(localFile);
 			//断点上传输入流
 			return SMBClientUtils.appendStream(sharedFile, input, Math.max(0, localFile.length() - sharedFile.getContentLength()));
 		} finally {
@@ -91,8 +101,8 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 			SmbFile1 sharedFile = smbClient.get(filepath);
 			//异常检查
 			Smb1Assert.assertAppend(localFile, sharedFile, skipOffset);
-			// 包装文件输入流  
-			input = SmbFile1StreamUtils.toBufferedInputStream(localFile, smbClient.getBufferSize());
+			// 文件输入流；拷贝时按缓存区大小整块读取，无需再包装缓冲流
+			input = new FileInputStream(localFile);
 			//断点上传输入流
 			return SMBClientUtils.appendStream(sharedFile, input, skipOffset);
 		} finally {
@@ -185,11 +195,9 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		if(targetDir == null){
 			return smbClient;
 		}
-		//当前目录
+		//当前目录；已知存在时不再检查
 		SmbFile1 currentDir = new SmbFile1(smbClient,targetDir);
-		if(!currentDir.exists()){
-			currentDir.mkdirs();
-		}
+		SmbFile1StreamUtils.makeSharedDir(currentDir);
 		return currentDir;
 	}
 	
@@ -256,6 +264,35 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		return fileList;
 	}
 	
+	/**
+	 * 列举目录下的文件元数据：属性取自目录列举时服务端返回的目录项，不再逐个查询；展开方式与 {@link #listFiles(SmbFile1, String, boolean)} 一致
+	 * @param smbClient	：SMBClient对象，元数据的路径相对该对象
+	 * @param sharedDir	：相对SMBClient路径的共享目录
+	 * @param recursion	：是否展开子目录
+	 */
+	public static List<FileMetadata> listMetadata(SmbFile1 smbClient,String sharedDir,boolean recursion) throws IOException{
+		//当前目录
+		SmbFile1 currentDir = new SmbFile1(smbClient,SMBPathUtils.getSharedDir(sharedDir));
+		//异常检查
+		Smb1Assert.assertDir(currentDir);
+		List<FileMetadata> metadataList = new ArrayList<FileMetadata>();
+		SMBClientUtils.listMetadata(smbClient.getURL().getPath(), currentDir, recursion, metadataList);
+		return metadataList;
+	}
+	
+	private static void listMetadata(String rootPath, SmbFile dir, boolean recursion, List<FileMetadata> metadataList) throws IOException{
+		//循环共享文件
+		for(SmbFile sharedFile : dir.listFiles()){
+			if (sharedFile.isDirectory() && recursion) {
+				//与 listFiles 一致：只展开下一级目录
+				SMBClientUtils.listMetadata(rootPath, sharedFile, false, metadataList);
+			} else{
+				metadataList.add(new FileMetadata(FileMetadata.relativize(rootPath, sharedFile.getURL().getPath(), sharedFile.getName()),
+						sharedFile.getName(), sharedFile.isDirectory(), sharedFile.length(), sharedFile.lastModified()));
+			}
+		}
+	}
+	
 	public static List<SmbFile1> listFiles(SmbFile1 smbClient, String sharedDir, String[] extensions, boolean recursion) throws IOException {
 		//当前目录
 		SmbFile1 currentDir = new SmbFile1(smbClient,SMBPathUtils.getSharedDir(sharedDir));
@@ -264,7 +301,7 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		//创建文件类型的文件集合
 		List<SmbFile1> fileList = new ArrayList<SmbFile1>();
 		//列出当前工作目录的文件信息
-		Collection<SmbFile> files = Smb1FileUtils.listFiles(currentDir.listFiles(), extensions);
+		Collection<SmbFile> files = Smb1FileUtils.listFiles(Smb1FileUtils.listCandidates(currentDir, extensions), extensions);
 		if(files != null && files.size() > 0){
 			//循环共享文件
 			for(SmbFile sharedFile : files){
@@ -290,7 +327,7 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		//创建文件类型的文件集合
 		List<SmbFile1> fileList = new ArrayList<SmbFile1>();
 		//列出当前工作目录的文件信息
-		Collection<SmbFile> files = Smb1FileUtils.listFiles(currentDir.listFiles(), filter);
+		Collection<SmbFile> files = Smb1FileUtils.listFiles(Smb1FileUtils.listCandidates(currentDir, filter), filter);
 		if(files != null && files.size() > 0){
 			//循环共享文件
 			for(SmbFile sharedFile : files){
@@ -308,6 +345,17 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		return fileList;
 	}
 	
+	/**
+	 * 流式遍历共享目录下的直接子项;过滤器在目录项取回时即时执行，遍历结束或关闭遍历器时释放服务端的目录句柄
+	 */
+	public static SmbFile1Iterator children(SmbFile1 smbClient, String sharedDir, Smb1FileFilter filter) throws IOException {
+		//当前目录
+		SmbFile1 currentDir = new SmbFile1(smbClient,SMBPathUtils.getSharedDir(sharedDir));
+		//异常检查
+		Smb1Assert.assertDir(currentDir);
+		return new SmbFile1Iterator(smbClient, currentDir, filter);
+	}
+	
 	/**
 	 * 
 	 * 循环创建目录，并且创建完目录后，设置工作目录为当前创建的目录下
@@ -317,12 +365,8 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 	 * @throws IOException
 	 */
 	public static boolean makeDir(SmbFile1 smbClient,String targetDir) throws IOException{
-		SmbFile sharedDir = new SmbFile(smbClient,targetDir);
-		//验证是否有该文件夹，有就转到，没有创建后转到该目录下
-		if (sharedDir.exists()) {
-			return true;
-		} 
-		sharedDir.mkdirs();
+		//验证是否有该文件夹，没有则只创建缺失的部分
+		SmbFile1StreamUtils.makeSharedDir(new SmbFile1(smbClient,targetDir));
 		return true;
 	}
 	
@@ -358,10 +402,16 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 	public static boolean remove(SmbFile1 sharedDir,String filepath) throws IOException {
 		//当前文件
 		SmbFile sharedFile = new SmbFile(sharedDir,filepath);
-		//删除【共享文件】服务器上的一个指定文件
-		if(sharedFile.exists()){
+		try {
+			//删除【共享文件】服务器上的一个指定文件;直接删除，不存在视为已删除（delete()内部会先查询文件属性）
 			sharedFile.delete();
+		} catch (IOException e) {
+			if(!Smb1BatchUtils.isDeleted(e)){
+				throw e;
+			}
 		}
+		//删除的可能是目录：已知存在的目录缓存中该路径及其下级目录失效；是文件时没有对应的条目
+		DirectoryCache.getDefault().invalidate(sharedFile.getURL().toString());
 		return true;
 	}
 	
@@ -416,6 +466,9 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 					sharedFile.delete();
 				}
 			}
+		} finally {
+			//删除之后再使已知存在的目录缓存中该目录及其下级目录失效，避免删除期间其他线程重新记录为存在
+			DirectoryCache.getDefault().invalidate(currentDir.getURL().toString());
 		}
 		return true;
 	}
@@ -426,12 +479,14 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 		//遍历当前目录下的文件
 		List<SmbFile1> fileList = SMBClientUtils.listFiles(sharedDir);
 		//循环下载文件
-		for(SmbFile sharedFile :fileList){
+		for(SmbFile1 sharedFile :fileList){
 			if(sharedFile.isDirectory()){
 				File newDir = new File(localDir ,sharedFile.getName());
 				if (!newDir.exists()) {
 					newDir.mkdirs();
 				}
+				//递归下载子目录
+				retrieveToDir(sharedFile, newDir);
 			}else{
 				//写SmbFile到指定文件路径
 				SMBClientUtils.retrieveToFile(sharedDir.wrap(sharedFile), new File(localDir, sharedFile.getName()));
@@ -509,6 +564,106 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
         }
 	}
 	
+	/**
+	 * 按字节区间下载共享文件至响应：通过随机访问直接定位到各区间的起始位置，只传输请求的数据；
+	 * response 为 {@link HttpServletResponse} 时设置 206/416 状态码及 Content-Range、Content-Length 响应头，
+	 * 多个区间时按 multipart/byteranges 格式输出
+	 * @param sharedFile	：共享文件
+	 * @param ranges		：字节区间；为null时下载完整文件
+	 * @param response		：响应对象
+	 * @throws IOException
+	 */
+	public static void retrieveToResponse(SmbFile1 sharedFile, List<ByteRange> ranges, ServletResponse response) throws IOException {
+		//异常检查
+		Smb1Assert.assertFile(sharedFile);
+		SmbRandomAccessFile input = new SmbRandomAccessFile(sharedFile, "r");
+		try {
+			SMBClientUtils.retrieveToResponse(sharedFile, input, ranges, input.length(), response);
+		} finally {
+			input.close();
+		}
+	}
+	
+	/**
+	 * 根据请求中的 Range、If-Range 请求头下载共享文件至响应，支持视频拖动播放及浏览器断点续传；
+	 * 区间的解析与数据的读取使用同一个打开的文件，文件在两次查询之间被修改时不会按旧的大小截取区间
+	 */
+	public static void retrieveToResponse(SmbFile1 sharedFile, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		//异常检查
+		Smb1Assert.assertFile(sharedFile);
+		long lastModified = sharedFile.lastModified();
+		response.setDateHeader(HttpRangeUtils.LAST_MODIFIED, lastModified);
+		SmbRandomAccessFile input = new SmbRandomAccessFile(sharedFile, "r");
+		try {
+			long length = input.length();
+			List<ByteRange> ranges = HttpRangeUtils.getRanges(request, length, lastModified);
+			SMBClientUtils.retrieveToResponse(sharedFile, input, ranges, length, response);
+		} finally {
+			input.close();
+		}
+	}
+	
+	private static void retrieveToResponse(SmbFile1 sharedFile, final SmbRandomAccessFile input, List<ByteRange> ranges, long length, ServletResponse response) throws IOException {
+		final String path = sharedFile.getURL().getPath();
+		//从缓冲池借用缓存区
+		final byte[] bytes = sharedFile.getBufferPool().acquire(sharedFile.getBufferSize());
+		try {
+			LOG.info("开始分段下载...url：" + path + "，区间：" + ranges);
+			HttpRangeUtils.send(response, ranges, length, new HttpRangeUtils.RangeWriter() {
+				
+				@Override
+				public long write(ByteRange range, OutputStream output) throws IOException {
+					return SMBClientUtils.copyRange(input, bytes, output, range.getStart(), range.getEnd() + 1, path);
+				}
+				
+			});
+		} finally {
+			//归还缓存区
+			sharedFile.getBufferPool().release(bytes);
+		}
+	}
+	
+	/**
+	 * 定位到共享文件的 start 位置，读取 [start, end) 区间的数据写出到输出流；不关闭输入及输出
+	 */
+	protected static long copyRange(SmbRandomAccessFile input, byte[] bytes, OutputStream output, long start, long end,
+			String path) throws IOException {
+		//直接定位，不读取起始位置之前的数据
+		input.seek(start);
+		long position = start;
+		while (position < end) {
+			int bytesRead = input.read(bytes, 0, (int) Math.min(bytes.length, end - position));
+			if (bytesRead == -1) {
+				throw new EOFException("Range [" + start + "," + end + ") of [" + path + "] : unexpected EOF");
+			}
+			output.write(bytes, 0, bytesRead);
+			position += bytesRead;
+		}
+		return end - start;
+	}
+	
+	/**
+	 * 通过本地读穿透缓存下载共享文件至输出流：以共享文件路径、修改时间及大小确定缓存，
+	 * 未命中时先完整下载到本地缓存（并发请求同一文件只下载一次），再从本地文件写出
+	 */
+	public static void retrieveToStream(final SmbFile1 sharedFile, OutputStream output, ContentCache contentCache) throws IOException {
+		//异常检查
+		Smb1Assert.assertFile(sharedFile);
+		String key = ContentCache.key(sharedFile.getUncPath(), sharedFile.lastModified(), sharedFile.length());
+		contentCache.transferTo(key, new ContentCache.Loader() {
+			
+			@Override
+			public void load(File target) throws IOException {
+				SMBClientUtils.retrieveToFile(sharedFile, target);
+			}
+			
+		}, output);
+	}
+	
+	public static void retrieveToResponse(SmbFile1 sharedFile, ServletResponse response, ContentCache contentCache) throws IOException {
+		SMBClientUtils.retrieveToStream(sharedFile, response.getOutputStream(), contentCache);
+	}
+	
 	/**
 	 * 
 	 * 上传文件至【文件共享服务器】
@@ -528,8 +683,8 @@ protected static Logger LOG = LoggerFactory.getLogger(SMBClientUtils.class);
 			}
 			//初始进度监听
 			SMBCopyListenerUtils.initCopyListener(sharedFile, localFile.getName());
-			// 包装文件输入流  
-			input = SmbFile1StreamUtils.toBufferedInputStream(localFile, sharedFile.getBufferSize());
+			// 文件输入流；拷贝时按缓存区大小整块读取，无需再包装缓冲流
+			input = new FileInputStream(localFile);
 			// 拷贝文件内容
 			long totalRead = SmbFile1StreamUtils.copyLarge(input, sharedFile);
 			//异常检查
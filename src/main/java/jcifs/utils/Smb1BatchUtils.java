@@ -0,0 +1,300 @@
+package jcifs.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.io.BatchReport;
+import jcifs.io.DirectoryCache;
+import jcifs.io.BatchReport.Item;
+import jcifs.io.BatchReport.Status;
+import jcifs.smb1.ISMBClient;
+import jcifs.smb1.SmbFile1;
+import jcifs.smb1.smb1.NtStatus;
+import jcifs.smb1.smb1.SmbException;
+
+/**
+ * 共享文件批量删除/重命名/上传工具：多个工作线程各自从连接池借出一个SMBClient对象，并行处理请求中的各项；
+ * 每项直接调用删除/重命名，调用前不再单独检查文件是否存在，文件不存在记为 {@link Status#NOT_FOUND}；
+ * jcifs 的 delete() 内部仍会先查询一次文件属性，因此批量删除节省的是逐项借出连接的开销及调用方的 exists() 检查，
+ * 每项的服务端往返次数与逐个删除相同；
+ * 批量上传小文件时，每个文件只需打开（覆盖创建）、写入、关闭，上级目录仅在打开失败时才创建缺失的部分
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb1BatchUtils {
+
+	protected static Logger LOG = LoggerFactory.getLogger(Smb1BatchUtils.class);
+
+	/**
+	 * 批量删除文件
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param filepaths		：相对SMBClient路径的文件路径
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @return 逐项结果报告
+	 */
+	public static BatchReport remove(final ISMBClient client, final String[] filepaths, int parallelism) {
+		return Smb1BatchUtils.execute(client, filepaths.length, parallelism, new BatchTask() {
+
+			@Override
+			public Item process(SmbFile1 smbClient, int index) throws Exception {
+				SmbFile1 sharedFile = smbClient.get(filepaths[index]);
+				sharedFile.delete();
+				//删除的可能是目录：已知存在的目录缓存中该路径及其下级目录失效
+				DirectoryCache.getDefault().invalidate(sharedFile.getURL().toString());
+				return new Item(filepaths[index], null, Status.SUCCESS, null);
+			}
+
+			@Override
+			public Item failed(int index, Throwable error) {
+				return Smb1BatchUtils.toRemoveItem(filepaths[index], error);
+			}
+
+		});
+	}
+
+	/**
+	 * 批量移动或重命名文件
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param filepaths		：原文件路径与目标路径的映射，均相对SMBClient路径
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @return 逐项结果报告，顺序与映射的迭代顺序一致
+	 */
+	public static BatchReport rename(final ISMBClient client, Map<String, String> filepaths, int parallelism) {
+		final List<String> sources = new ArrayList<String>(filepaths.keySet());
+		final List<String> targets = new ArrayList<String>(filepaths.values());
+		return Smb1BatchUtils.execute(client, sources.size(), parallelism, new BatchTask() {
+
+			@Override
+			public Item process(SmbFile1 smbClient, int index) throws Exception {
+				SmbFile1 sharedFile = smbClient.get(sources.get(index));
+				sharedFile.renameTo(smbClient.get(targets.get(index)));
+				//移动的可能是目录：原路径及其下级目录不再存在
+				DirectoryCache.getDefault().invalidate(sharedFile.getURL().toString());
+				return new Item(sources.get(index), targets.get(index), Status.SUCCESS, null);
+			}
+
+			@Override
+			public Item failed(int index, Throwable error) {
+				return Smb1BatchUtils.toItem(sources.get(index), targets.get(index), error);
+			}
+
+		});
+	}
+
+	/**
+	 * 批量上传小文件：每个工作线程在整个批次中只借出一次SMBClient对象；打开文件时直接覆盖创建，
+	 * 不再逐个检查文件是否存在、删除及创建空文件，也不逐级检查上级目录
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param files			：相对SMBClient路径的文件路径与文件内容的映射
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @return 逐项结果报告，顺序与映射的迭代顺序一致；{@link BatchReport#getThroughput()} 为每秒上传的文件数
+	 */
+	public static BatchReport upload(final ISMBClient client, Map<String, byte[]> files, int parallelism) {
+		final List<String> filepaths = new ArrayList<String>(files.keySet());
+		final List<byte[]> contents = new ArrayList<byte[]>(files.values());
+		return Smb1BatchUtils.execute(client, filepaths.size(), parallelism, new BatchTask() {
+
+			@Override
+			public Item process(SmbFile1 smbClient, int index) throws Exception {
+				Smb1BatchUtils.write(smbClient, filepaths.get(index), contents.get(index));
+				return new Item(filepaths.get(index), null, Status.SUCCESS, null);
+			}
+
+			@Override
+			public Item failed(int index, Throwable error) {
+				LOG.warn("Batch upload of [" + filepaths.get(index) + "] failed : " + error.getMessage());
+				return new Item(filepaths.get(index), null, Status.FAILED, error);
+			}
+
+		});
+	}
+
+	/**
+	 * 覆盖写入共享文件；上级目录不存在导致打开失败时，创建上级目录后重试一次
+	 */
+	protected static void write(SmbFile1 smbClient, String filepath, byte[] bytes) throws IOException {
+		SmbFile1 sharedFile = smbClient.get(filepath);
+		OutputStream output;
+		try {
+			output = sharedFile.getOutputStream();
+		} catch (SmbException e) {
+			if (e.getNtStatus() != NtStatus.NT_STATUS_OBJECT_PATH_NOT_FOUND) {
+				throw e;
+			}
+			SmbFile1 parentDir = new SmbFile1(smbClient, SMBPathUtils.getSharedDir(FilenameUtils.getFullPath(filepath)));
+			//已知存在的目录可能已被其他客户端删除
+			DirectoryCache.getDefault().invalidate(parentDir.getURL().toString());
+			SmbFile1StreamUtils.makeSharedDir(parentDir);
+			output = sharedFile.getOutputStream();
+		}
+		try {
+			output.write(bytes);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * 判断异常是否表示文件或路径不存在
+	 */
+	public static boolean isNotFound(Throwable error) {
+		if (!(error instanceof SmbException)) {
+			return false;
+		}
+		int status = ((SmbException) error).getNtStatus();
+		return status == NtStatus.NT_STATUS_OBJECT_NAME_NOT_FOUND || status == NtStatus.NT_STATUS_OBJECT_PATH_NOT_FOUND
+				|| status == NtStatus.NT_STATUS_NOT_FOUND;
+	}
+
+	/**
+	 * 判断删除失败的异常是否表示文件已不存在；文件已处于删除挂起状态（其他句柄关闭后即被删除）时也视为已删除，
+	 * 其他操作遇到删除挂起仍是失败
+	 */
+	public static boolean isDeleted(Throwable error) {
+		if (Smb1BatchUtils.isNotFound(error)) {
+			return true;
+		}
+		return error instanceof SmbException && ((SmbException) error).getNtStatus() == NtStatus.NT_STATUS_DELETE_PENDING;
+	}
+
+	/**
+	 * 删除失败的结果：文件已不存在记为 {@link Status#NOT_FOUND}
+	 */
+	protected static Item toRemoveItem(String path, Throwable error) {
+		if (Smb1BatchUtils.isDeleted(error)) {
+			return new Item(path, null, Status.NOT_FOUND, null);
+		}
+		LOG.warn("Batch remove of [" + path + "] failed : " + error.getMessage());
+		return new Item(path, null, Status.FAILED, error);
+	}
+
+	protected static Item toItem(String path, String target, Throwable error) {
+		if (Smb1BatchUtils.isNotFound(error)) {
+			return new Item(path, target, Status.NOT_FOUND, null);
+		}
+		LOG.warn("Batch operation on [" + path + "] failed : " + error.getMessage());
+		return new Item(path, target, Status.FAILED, error);
+	}
+
+	/**
+	 * 单项处理逻辑
+	 */
+	protected static interface BatchTask {
+
+		/**
+		 * 处理一项；返回该项的结果，不可为null
+		 */
+		Item process(SmbFile1 smbClient, int index) throws Exception;
+
+		/**
+		 * process 抛出异常或未能处理的项的结果；每项最多调用一次，process 正常返回的项不再调用
+		 */
+		Item failed(int index, Throwable error);
+
+	}
+
+	/**
+	 * 启动 min(parallelism, size) 个工作线程，各自借出一个SMBClient对象后依次领取未处理的项；
+	 * 单项失败只记录在报告中，不影响其他项；未领取的项（借出对象失败或被中断）记为失败。
+	 * 每项只由领取它的工作线程调用一次 process 或 failed，所有工作线程结束后才处理未领取的项
+	 */
+	protected static BatchReport execute(final ISMBClient client, final int size, int parallelism, final BatchTask task) {
+		final BatchReport report = new BatchReport(size);
+		if (size == 0) {
+			return report;
+		}
+		long start = System.currentTimeMillis();
+		final AtomicInteger nextIndex = new AtomicInteger();
+		final AtomicReference<Throwable> abortCause = new AtomicReference<Throwable>();
+		int threads = Math.max(1, Math.min(parallelism, size));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+				.namingPattern("smb-batch-%d").daemon(true).build());
+		try {
+			List<Callable<Void>> workers = new ArrayList<Callable<Void>>(threads);
+			for (int i = 0; i < threads; i++) {
+				workers.add(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						SmbFile1 smbClient = null;
+						try {
+							//每个工作线程持有独立的SMBClient对象
+							smbClient = client.getSMBClient();
+						} catch (Exception e) {
+							abortCause.compareAndSet(null, e);
+							return null;
+						}
+						try {
+							int index;
+							//先检查中断再领取，被领取的项一定会被处理
+							while (!Thread.currentThread().isInterrupted() && (index = nextIndex.getAndIncrement()) < size) {
+								try {
+									report.set(index, task.process(smbClient, index));
+								} catch (Exception e) {
+									report.set(index, task.failed(index, e));
+								}
+							}
+							if (Thread.currentThread().isInterrupted()) {
+								abortCause.compareAndSet(null, new InterruptedIOException("Batch operation interrupted"));
+							}
+							return null;
+						} finally {
+							client.releaseClient(smbClient);
+						}
+					}
+
+				});
+			}
+			executor.invokeAll(workers);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abortCause.compareAndSet(null, new InterruptedIOException("Batch operation interrupted"));
+		} finally {
+			executor.shutdownNow();
+			//等待被中断的工作线程结束，避免与其继续写入的结果冲突
+			Smb1BatchUtils.awaitTermination(executor);
+		}
+		//未领取的项记为失败
+		Throwable cause = abortCause.get();
+		for (int i = Math.min(nextIndex.get(), size); i < size; i++) {
+			report.set(i, task.failed(i, cause != null ? cause : new IllegalStateException("Not processed")));
+		}
+		report.setElapsed(System.currentTimeMillis() - start);
+		LOG.info(report.toString());
+		return report;
+	}
+
+	/**
+	 * 等待线程池中的任务全部结束；等待期间调用线程被中断时继续等待，结束后恢复中断标记
+	 */
+	protected static void awaitTermination(ExecutorService executor) {
+		boolean interrupted = Thread.interrupted();
+		while (true) {
+			try {
+				if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -18,7 +18,11 @@ package jcifs.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +31,7 @@ import jcifs.smb1.filter.FalseFileFilter;
 import jcifs.smb1.filter.FileFileFilter;
 import jcifs.smb1.filter.Smb1FileFilter;
 import jcifs.smb1.filter.Smb1FileFilters;
+import jcifs.smb1.filter.SmbFileAttributes;
 import jcifs.smb1.filter.SuffixFileFilter;
 import jcifs.smb1.filter.TrueFileFilter;
 import jcifs.smb1.smb1.SmbException;
@@ -49,21 +54,83 @@ public class Smb1FileUtils {
      * @throws IOException 
      */
     private static void innerListFiles(final Collection<SmbFile> files, final SmbFile directory,
-                                       final SmbFileFilter filter, final boolean includeSubDirectories) throws IOException {
+                                       final Smb1FileFilter filter, final boolean includeSubDirectories) throws IOException {
     	
-    	SmbFile[] found = directory.listFiles(filter);
-        if (found != null) {
-            for (final SmbFile file : found) {
-                if (file.isDirectory()) {
-                    if (includeSubDirectories) {
-                        files.add(file);
-                    }
-                    innerListFiles(files, file, filter, includeSubDirectories);
-                } else {
-                    files.add(file);
+    	// 枚举目录时即按过滤器声明的属性生成快照，此时属性来自枚举结果；过滤及目录判断均基于快照，不再逐个查询服务器
+    	final int required = Smb1FileFilters.getRequiredAttributes(filter) | SmbFileAttributes.TYPE;
+    	final List<SmbFileAttributes> found = new ArrayList<SmbFileAttributes>();
+    	final SmbFileFilter snapshotFilter = new SmbFileFilter() {
+			
+			@Override
+			public boolean accept(SmbFile file) throws SmbException {
+				SmbFileAttributes attributes = SmbFileAttributes.of(file, required);
+				if (Smb1FileFilters.accept(filter, attributes)) {
+					found.add(attributes);
+				}
+				return false;
+			}
+			
+		};
+    	final List<String> wildcards = Smb1FileFilters.toWildcards(filter);
+    	if (wildcards == null) {
+    		directory.listFiles(snapshotFilter);
+    	} else {
+    		// 文件名过滤下推为服务端通配符查询，只有匹配的条目才会返回
+    		for (final SmbFile file : listCandidates(directory, wildcards)) {
+    			snapshotFilter.accept(file);
+    		}
+    	}
+        for (final SmbFileAttributes attributes : found) {
+            if (attributes.isDirectory()) {
+                if (includeSubDirectories) {
+                    files.add(attributes.getFile());
+                }
+                innerListFiles(files, attributes.getFile(), filter, includeSubDirectories);
+            } else {
+                files.add(attributes.getFile());
+            }
+        }
+    }
+    
+    /**
+     * 列出目录中可能被过滤器接受的条目：文件名过滤可转换为通配符时由服务端按通配符匹配，只返回匹配的条目，
+     * 否则列出全部条目；返回的条目仍需经过滤器判断
+     *
+     * @param directory the directory to list
+     * @param filter    the filter that will be applied to the entries
+     * @return the candidate entries
+     * @throws SmbException 
+     */
+    public static SmbFile[] listCandidates(final SmbFile directory, final Smb1FileFilter filter) throws SmbException {
+        return listCandidates(directory, filter == null ? null : Smb1FileFilters.toWildcards(filter));
+    }
+
+    /**
+     * 列出目录中后缀为指定扩展名之一的候选条目
+     *
+     * @param directory  the directory to list
+     * @param extensions an array of extensions. Format: {"java", "xml"}
+     * @return the candidate entries
+     * @throws SmbException 
+     */
+    public static SmbFile[] listCandidates(final SmbFile directory, final String[] extensions) throws SmbException {
+        return listCandidates(directory, extensions == null ? null : new SuffixFileFilter(toSuffixes(extensions)));
+    }
+
+    private static SmbFile[] listCandidates(final SmbFile directory, final List<String> wildcards) throws SmbException {
+        if (wildcards == null) {
+            return directory.listFiles();
+        }
+        // 同一条目可能匹配多个通配符，按名称去重
+        final Map<String, SmbFile> found = new LinkedHashMap<String, SmbFile>();
+        for (final String wildcard : wildcards) {
+            for (final SmbFile file : directory.listFiles(wildcard)) {
+                if (!found.containsKey(file.getName())) {
+                    found.put(file.getName(), file);
                 }
             }
         }
+        return found.values().toArray(new SmbFile[found.size()]);
     }
     
 	//-----------------------------------------------------------------------
@@ -94,7 +161,7 @@ public class Smb1FileUtils {
                 final String[] suffixes = toSuffixes(extensions);
                 filter = new SuffixFileFilter(suffixes);
             }
-            filter = Smb1FileFilters.and(filter, FileFileFilter.FILE);
+            filter = Smb1FileFilters.compile(Smb1FileFilters.and(filter, FileFileFilter.FILE));
 			//循环文件
 			for(SmbFile SmbFile :files){
 				if(filter.accept(SmbFile)){
@@ -113,7 +180,7 @@ public class Smb1FileUtils {
         	if (fileFilter == null) {
                 filter = TrueFileFilter.INSTANCE;
             } else {
-                filter = fileFilter;
+                filter = Smb1FileFilters.compile(fileFilter);
             }
 			//循环文件
 			for(SmbFile SmbFile :files){
@@ -155,7 +222,7 @@ public class Smb1FileUtils {
 
         //Find files
         final Collection<SmbFile> files = new java.util.LinkedList<SmbFile>();
-        innerListFiles(files, directory, Smb1FileFilters.or(effFileFilter, effDirFilter), false);
+        innerListFiles(files, directory, Smb1FileFilters.compile(Smb1FileFilters.or(effFileFilter, effDirFilter)), false);
         return files;
     }
     
@@ -174,6 +174,12 @@ public class Smb2Assert {
         }
 	}
 	
+	public static void assertDir(File localDir) throws IOException {
+		if(!localDir.isDirectory()){
+			throw new IOException("Local directory [" + localDir.getPath() + "] was not found.");
+        }
+	}
+	
 	public static void renderException(HttpServletResponse response, String text) {
 		PrintWriter out = null;
 		try {
@@ -15,15 +15,13 @@ public class Smb2ChannelUtils extends SmbFile2StreamUtils {
     
 	public static boolean copyLarge(FileChannel inChannel,OutputStream output, SmbFile2 sharedFile) throws IOException{
 		ByteBuffer byteBuffer = null;
+		byte[] bytes = null;
 		try {
 			//进度监听
 			CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
-			//根据不同大小分配不同类型的缓存区;可能2M
-			if(sharedFile.getChannelWriteBufferSize() > 1024 * 10000){
-				byteBuffer = ByteBuffer.allocateDirect(sharedFile.getChannelReadBufferSize());
-			} else {
-				byteBuffer = ByteBuffer.allocate(sharedFile.getChannelReadBufferSize());
-			}
+			//从缓冲池借用堆内缓存区;可能2M；SMB写出只接受byte[]，直接使用缓存区的底层数组可避免每次读取都分配新的byte[]并拷贝
+			bytes = sharedFile.getBufferPool().acquire(sharedFile.getChannelReadBufferSize());
+			byteBuffer = ByteBuffer.wrap(bytes);
 			//Java.nio.charset.Charset处理了字符转换问题。它通过构造CharsetEncoder和CharsetDecoder将字符序列转换成字节和逆转换。
 			//Charset charset = Charset.forName("GBK");  
 			//CharsetDecoder decoder = charset.newDecoder();  
@@ -37,12 +35,8 @@ public class Smb2ChannelUtils extends SmbFile2StreamUtils {
 				//反转缓冲区。首先将限制设置为当前位置，然后将位置设置为 0。如果已定义了标记，则丢弃该标记。 常与compact方法一起使用。通常情况下，在准备从缓冲区中读取数据时调用flip方法
 				//翻转，也就是让flip之后的position到limit这块区域变成之前的0到position这块，翻转就是将一个处于存数据状态的缓冲区变为一个处于准备取数据的状态 
 				byteBuffer.flip();
-				//定义byte[]缓冲区
-				byte[] bytes = new byte[bytesRead];
-				//取ByteBuffer的缓冲到byte[]
-				byteBuffer.get(bytes, 0, bytes.length);
-				//写byte[]
-				output.write(bytes);
+				//直接写出缓存区的底层数组
+				output.write(bytes, 0, byteBuffer.limit());
 				//clear方法将缓冲区清空，一般是在重新写缓冲区时调用
 				byteBuffer.clear();
 				//计算距上次刷新已读取量
@@ -69,24 +63,23 @@ public class Smb2ChannelUtils extends SmbFile2StreamUtils {
         		byteBuffer.clear();
         		byteBuffer = null;
         	}
+        	//归还缓存区
+        	sharedFile.getBufferPool().release(bytes);
         }
 	} 
 	
 	public static boolean copyLarge(InputStream input,FileChannel outChannel, SmbFile2 sharedFile) throws IOException{
 		ByteBuffer 	 byteBuffer = null;
+		byte[] bytes = null;
 		try {
 			//通过调用position()方法跳过已经存在的长度
 			outChannel.position(outChannel.size()); 
 			//进度监听
 			CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
-			//分配缓存区;可能8M
-			byte[] bytes = new byte[sharedFile.getChannelWriteBufferSize()];
-			//根据不同大小分配不同类型的缓存区;可能2M
-	    	if(sharedFile.getChannelWriteBufferSize() > 1024 * 10000){
-	    		byteBuffer = ByteBuffer.allocateDirect(sharedFile.getChannelWriteBufferSize());
-	    	}else{
-	    		byteBuffer = ByteBuffer.allocate(sharedFile.getChannelWriteBufferSize());
-	    	}
+			//从缓冲池借用缓存区;可能2M
+			bytes = sharedFile.getBufferPool().acquire(sharedFile.getChannelWriteBufferSize());
+			//包装byte[]为ByteBuffer，与byte[]共享同一块内存，避免每次读取后再拷贝一次
+			byteBuffer = ByteBuffer.wrap(bytes);
 	        long totalRead = outChannel.position();
 		    int bytesRead = 0;
 		    long bytesBlock = 0;
@@ -99,11 +92,8 @@ public class Smb2ChannelUtils extends SmbFile2StreamUtils {
 	        while (( bytesRead = input.read(bytes)) != -1) {
 	        	//clear方法将缓冲区清空，一般是在重新写缓冲区时调用
 	    		byteBuffer.clear();
-	    		//拷贝byte[]到ByteBuffer,注意这里要使用bytesRead标记结束位置，可能最后一次读取不够一个缓存区
-	    		byteBuffer.put(bytes,0,bytesRead);
-	    		//反转缓冲区。首先将限制设置为当前位置，然后将位置设置为 0。如果已定义了标记，则丢弃该标记。 常与compact方法一起使用。通常情况下，在准备从缓冲区中读取数据时调用flip方法
-	    		//也就是让flip之后的position到limit这块区域变成之前的0到position这块，翻转就是将一个处于存数据状态的缓冲区变为一个处于准备取数据的状态 
-	    		byteBuffer.flip();
+	    		//注意这里要使用bytesRead标记结束位置，可能最后一次读取不够一个缓存区
+	    		byteBuffer.limit(bytesRead);
 	    		while(byteBuffer.hasRemaining()) {
 	    			//写ByteBuffer到文件
 	    			outChannel.write(byteBuffer);
@@ -139,6 +129,8 @@ public class Smb2ChannelUtils extends SmbFile2StreamUtils {
         		byteBuffer.clear();
         		byteBuffer = null;
         	}
+        	//归还缓存区
+        	sharedFile.getBufferPool().release(bytes);
         }
 	}
 }
@@ -0,0 +1,161 @@
+package jcifs.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.io.FileMetadata;
+import jcifs.smb.ISMBClient;
+import jcifs.smb.SmbFile;
+import jcifs.smb.SmbFile2;
+import jcifs.smb.filter.Smb2FileFilter;
+import jcifs.smb.filter.TrueFileFilter;
+
+/**
+ * 共享目录并行递归列举工具：多个工作线程各自从连接池借出一个SMBClient对象，从共享的待列举目录队列中领取目录；
+ * 列举出的子目录先经过目录过滤器，被排除的子目录不再入队即整棵子树被剪除，其余子目录重新入队供空闲的工作线程领取；
+ * 结果为列举时记录的 {@link FileMetadata}，不引用工作线程借出的会话，读取属性不再访问服务器，传输内容时再在借出的对象上按路径打开
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2ListUtils {
+
+	protected static Logger LOG = LoggerFactory.getLogger(Smb2ListUtils.class);
+
+	/** 工作线程等待新目录入队的间隔： 50 毫秒 */
+	protected static final long POLL_INTERVAL = 50;
+
+	/**
+	 * 并行递归列举共享目录下的文件元数据
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param sharedDir		：相对SMBClient路径的共享目录
+	 * @param fileFilter	：文件过滤器;为null时接受所有文件
+	 * @param dirFilter		：目录过滤器，决定是否进入子目录;为null时进入所有子目录
+	 * @param parallelism	：并行度，即同时使用的连接数上限
+	 * @return 所有匹配的文件（不含目录）的元数据，路径相对SMBClient；结果顺序不固定
+	 * @throws IOException 任一目录列举失败或被中断时抛出
+	 */
+	public static List<FileMetadata> listMetadata(final ISMBClient client, String sharedDir, Smb2FileFilter fileFilter,
+			Smb2FileFilter dirFilter, int parallelism) throws IOException {
+
+		final Smb2FileFilter effFileFilter = fileFilter == null ? TrueFileFilter.INSTANCE : fileFilter;
+		final Smb2FileFilter effDirFilter = dirFilter == null ? TrueFileFilter.INSTANCE : dirFilter;
+		final String rootPath = SMBPathUtils.getSharedDir(sharedDir);
+
+		//待列举的目录（相对SMBClient路径）
+		final LinkedBlockingDeque<String> pendingDirs = new LinkedBlockingDeque<String>();
+		//已入队但尚未列举完成的目录数;为0时表示整棵目录树已遍历完成
+		final AtomicInteger pending = new AtomicInteger(1);
+		final AtomicInteger listedDirs = new AtomicInteger();
+		final ConcurrentLinkedQueue<FileMetadata> found = new ConcurrentLinkedQueue<FileMetadata>();
+		//借出SMBClient对象失败的原因;只要有一个工作线程借出成功遍历即可继续
+		final AtomicReference<Throwable> borrowCause = new AtomicReference<Throwable>();
+		//目录列举失败的原因;任一目录失败即终止遍历
+		final AtomicReference<Throwable> listCause = new AtomicReference<Throwable>();
+
+		pendingDirs.offer(rootPath);
+
+		int threads = Math.max(1, parallelism);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+				.namingPattern("smb-list-%d").daemon(true).build());
+		try {
+			List<Callable<Void>> workers = new ArrayList<Callable<Void>>(threads);
+			for (int i = 0; i < threads; i++) {
+				workers.add(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						SmbFile2 smbClient = null;
+						try {
+							//每个工作线程持有独立的SMBClient对象
+							smbClient = client.getSMBClient();
+						} catch (Exception e) {
+							LOG.warn("Borrow SMBClient for listing failed : " + e.getMessage());
+							borrowCause.compareAndSet(null, e);
+							return null;
+						}
+						try {
+							while (pending.get() > 0 && listCause.get() == null) {
+								if (Thread.currentThread().isInterrupted()) {
+									listCause.compareAndSet(null, new InterruptedIOException("Listing of [" + rootPath + "] interrupted"));
+									break;
+								}
+								String currentPath = pendingDirs.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+								if (currentPath == null) {
+									continue;
+								}
+								try {
+									SmbFile2 currentDir = new SmbFile2(smbClient, currentPath);
+									if (currentPath.equals(rootPath)) {
+										//异常检查
+										Smb2Assert.assertDir(currentDir);
+									}
+									SmbFile[] files = currentDir.listFiles();
+									listedDirs.incrementAndGet();
+									for (int j = 0; files != null && j < files.length; j++) {
+										SmbFile sharedFile = files[j];
+										if (sharedFile.isDirectory()) {
+											//被目录过滤器排除的子目录不再列举，整棵子树被剪除
+											if (effDirFilter.accept(sharedFile)) {
+												pending.incrementAndGet();
+												//新目录放在队首，深度优先以减少队列中积压的目录
+												pendingDirs.offerFirst(currentPath + sharedFile.getName());
+											}
+										} else if (effFileFilter.accept(sharedFile)) {
+											//属性取自列举时返回的目录项，不再访问服务器
+											found.add(new FileMetadata(currentPath + sharedFile.getName(), sharedFile.getName(), false,
+													sharedFile.length(), sharedFile.lastModified()));
+										}
+									}
+								} catch (Exception e) {
+									listCause.compareAndSet(null, e);
+								} finally {
+									pending.decrementAndGet();
+								}
+							}
+							return null;
+						} finally {
+							client.releaseClient(smbClient);
+						}
+					}
+
+				});
+			}
+			executor.invokeAll(workers);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Listing of [" + rootPath + "] interrupted");
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Throwable cause = listCause.get();
+		if (cause == null && pending.get() > 0) {
+			//所有工作线程均未能借出SMBClient对象
+			cause = borrowCause.get();
+		}
+		if (cause != null) {
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Listing of [" + rootPath + "] failed", cause);
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Listed " + listedDirs.get() + " directories and found " + found.size() + " files under [" + rootPath + "]");
+		}
+		return new ArrayList<FileMetadata>(found);
+	}
+
+}
@@ -0,0 +1,387 @@
+package jcifs.utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.io.BatchReport;
+import jcifs.io.BatchReport.Item;
+import jcifs.io.BatchReport.Status;
+import jcifs.io.CopyStreamProcessListener;
+import jcifs.io.FileMetadata;
+import jcifs.smb.ISMBClient;
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile;
+import jcifs.smb.SmbFile2;
+import jcifs.smb.SmbRandomAccessFile;
+import jcifs.smb.filter.AbstractFileFilter;
+
+/**
+ * 共享目录到本地目录的并行递归镜像下载：并行列举整棵目录树，大小及修改时间与本地一致的文件直接跳过；
+ * 需要下载的文件按分段切分后由多个连接并行下载，小文件为一个分段，大文件按 rangeSize 切分为多个分段，
+ * 各分段定位写入本地文件的对应位置；分段失败时从已写入的位置继续重试，重试次数由 rangeRetries 决定。<br/>
+ * 下载完成后把本地文件的修改时间设置为共享文件的修改时间，下次镜像时未修改的文件直接跳过
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2MirrorUtils {
+
+	protected static Logger LOG = LoggerFactory.getLogger(Smb2MirrorUtils.class);
+
+	/**
+	 * 单个下载分段：文件的 [start, end) 区间
+	 */
+	protected static class Range {
+
+		/** 所属文件在文件列表中的序号 */
+		private final int file;
+		private final long start;
+		private final long end;
+
+		public Range(int file, long start, long end) {
+			this.file = file;
+			this.start = start;
+			this.end = end;
+		}
+
+		public int getFile() {
+			return file;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+	}
+
+	/**
+	 * 分段下载任务：每个分段只计入所属文件一次，文件的最后一个分段结束时在报告中记录该文件的结果；
+	 * 同一文件已有分段失败时，其余分段不再下载
+	 */
+	protected static class RangeTask implements Smb2BatchUtils.BatchTask {
+
+		/** 相对SMBClient路径的共享目录，以 / 结尾 */
+		private final String sharedDir;
+		private final File localDir;
+		/** 各文件相对共享目录的路径 */
+		private final String[] paths;
+		/** 各文件在共享目录中的修改时间 */
+		private final long[] lastModified;
+		private final List<Range> ranges;
+		/** 逐个文件的结果 */
+		private final BatchReport report;
+		private final int retries;
+		private final CopyStreamProcessListener listener;
+		private final long streamSize;
+		private final AtomicLong totalRead = new AtomicLong();
+		/** 各文件尚未完成的分段数 */
+		private final AtomicIntegerArray remaining;
+		/** 各分段是否已计入所属文件 */
+		private final AtomicIntegerArray completed;
+		/** 各文件第一个失败分段的原因 */
+		private final AtomicReferenceArray<Throwable> errors;
+
+		public RangeTask(String sharedDir, File localDir, String[] paths, long[] lastModified, List<Range> ranges,
+				BatchReport report, int retries, CopyStreamProcessListener listener, long streamSize) {
+			this.sharedDir = sharedDir;
+			this.localDir = localDir;
+			this.paths = paths;
+			this.lastModified = lastModified;
+			this.ranges = ranges;
+			this.report = report;
+			this.retries = retries;
+			this.listener = listener;
+			this.streamSize = streamSize;
+			this.remaining = new AtomicIntegerArray(paths.length);
+			this.completed = new AtomicIntegerArray(ranges.size());
+			this.errors = new AtomicReferenceArray<Throwable>(paths.length);
+			for (Range range : ranges) {
+				remaining.incrementAndGet(range.file);
+			}
+		}
+
+		@Override
+		public Item process(SmbFile2 smbClient, int index) throws Exception {
+			Range range = ranges.get(index);
+			//同一文件的其他分段已失败，不再下载
+			if (errors.get(range.file) != null) {
+				complete(index, null);
+				return new Item(paths[range.file], null, Status.SKIPPED, null);
+			}
+			try {
+				retrieve(smbClient, range);
+			} catch (Exception e) {
+				complete(index, e);
+				return new Item(paths[range.file], null, Status.FAILED, e);
+			}
+			complete(index, null);
+			return new Item(paths[range.file], null, Status.SUCCESS, null);
+		}
+
+		@Override
+		public Item failed(int index, Throwable e) {
+			complete(index, e);
+			return new Item(paths[ranges.get(index).file], null, Status.FAILED, e);
+		}
+
+		/**
+		 * 下载一个分段并定位写入本地文件
+		 */
+		protected void retrieve(SmbFile2 smbClient, Range range) throws IOException {
+			File localFile = new File(localDir, paths[range.file]);
+			SmbFile2 sharedFile = smbClient.get(sharedDir + paths[range.file]);
+			RandomAccessFile randomAccessFile = new RandomAccessFile(localFile, "rw");
+			try {
+				Smb2MirrorUtils.retrieveRange(sharedFile, randomAccessFile.getChannel(), range.start, range.end, retries,
+						totalRead, listener, streamSize);
+			} finally {
+				IOUtils.closeQuietly(randomAccessFile);
+			}
+		}
+
+		/**
+		 * 分段结束：记录失败原因；文件的最后一个分段结束时记录该文件的结果，重复结束的分段不再计数
+		 */
+		private void complete(int index, Throwable error) {
+			int file = ranges.get(index).file;
+			if (error != null) {
+				errors.compareAndSet(file, null, error);
+			}
+			if (!completed.compareAndSet(index, 0, 1) || remaining.decrementAndGet(file) > 0) {
+				return;
+			}
+			Throwable cause = errors.get(file);
+			if (cause == null) {
+				new File(localDir, paths[file]).setLastModified(lastModified[file]);
+				report.set(file, new Item(paths[file], null, Status.SUCCESS, null));
+			} else {
+				LOG.warn("Retrieve [" + paths[file] + "] failed : " + cause.getMessage());
+				report.set(file, new Item(paths[file], null, Status.FAILED, cause));
+			}
+		}
+
+		/**
+		 * 文件尚未完成的分段数
+		 */
+		public int getRemaining(int file) {
+			return remaining.get(file);
+		}
+
+		public long getTotalRead() {
+			return totalRead.get();
+		}
+
+	}
+
+	/**
+	 * 递归镜像共享目录到本地目录
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param sharedDir		：相对SMBClient路径的共享目录
+	 * @param localDir		：本地目录，不存在时创建
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @param listener		：汇总进度监听，streamSize 为所有需要下载的文件的总大小;可为null
+	 * @return 逐个文件的结果，未变化的文件记为 {@link Status#SKIPPED}
+	 * @throws IOException 列举共享目录失败时抛出
+	 */
+	public static BatchReport retrieveToDir(final ISMBClient client, final String sharedDir, final File localDir,
+			int parallelism, final CopyStreamProcessListener listener) throws Exception {
+		long begin = System.currentTimeMillis();
+		//获得一个SMBClient对象读取根目录及分段参数
+		final String rootPath;
+		final long rangeSize;
+		final int retries;
+		SmbFile2 smbClient = client.getSMBClient();
+		try {
+			SmbFile2 root = new SmbFile2(smbClient, SMBPathUtils.getSharedDir(sharedDir));
+			//异常检查
+			Smb2Assert.assertDir(root);
+			rootPath = root.getURL().getPath();
+			rangeSize = root.getRangeThreads() > 1 && root.getRangeSize() > 0 ? root.getRangeSize() : Long.MAX_VALUE;
+			retries = Math.max(0, root.getRangeRetries());
+		} finally {
+			//释放对象，避免与工作线程争用连接池
+			client.releaseClient(smbClient);
+		}
+
+		//并行递归列举，同时记录所有子目录以便创建空目录
+		//列举结果为元数据，比较大小及修改时间不再访问服务器
+		final ConcurrentLinkedQueue<String> sharedDirs = new ConcurrentLinkedQueue<String>();
+		List<FileMetadata> sharedFiles = Smb2ListUtils.listMetadata(client, sharedDir, null, new AbstractFileFilter() {
+
+			@Override
+			public boolean accept(SmbFile file) throws SmbException {
+				sharedDirs.add(Smb2MirrorUtils.getRelativePath(rootPath, file));
+				return true;
+			}
+
+		}, parallelism);
+		if (!localDir.exists()) {
+			localDir.mkdirs();
+		}
+		for (String dir : sharedDirs) {
+			File newDir = new File(localDir, dir);
+			if (!newDir.exists()) {
+				newDir.mkdirs();
+			}
+		}
+
+		//比较大小及修改时间，切分需要下载的文件
+		final int size = sharedFiles.size();
+		final BatchReport report = new BatchReport(size);
+		final String sharedPrefix = SMBPathUtils.getSharedDir(sharedDir);
+		final String[] paths = new String[size];
+		final long[] lastModified = new long[size];
+		final List<Range> ranges = new ArrayList<Range>();
+		long totalSize = 0;
+		for (int i = 0; i < size; i++) {
+			FileMetadata sharedFile = sharedFiles.get(i);
+			paths[i] = sharedFile.getPath().substring(sharedPrefix.length());
+			File localFile = new File(localDir, paths[i]);
+			long length = sharedFile.getLength();
+			lastModified[i] = sharedFile.getLastModified();
+			if (Smb2MirrorUtils.isUnchanged(localFile, length, lastModified[i])) {
+				report.set(i, new Item(paths[i], null, Status.SKIPPED, null));
+				continue;
+			}
+			try {
+				//预先分配本地文件大小，旧内容被截断，各分段直接写入对应位置
+				Smb2MirrorUtils.allocate(localFile, length);
+			} catch (IOException e) {
+				report.set(i, new Item(paths[i], null, Status.FAILED, e));
+				continue;
+			}
+			if (length == 0) {
+				localFile.setLastModified(lastModified[i]);
+				report.set(i, new Item(paths[i], null, Status.SUCCESS, null));
+				continue;
+			}
+			for (long start = 0; start < length; start += rangeSize) {
+				ranges.add(new Range(i, start, Math.min(length, start + rangeSize)));
+			}
+			totalSize += length;
+		}
+		LOG.info("开始镜像下载...url：" + rootPath + "，文件数：" + size + "，分段数：" + ranges.size() + "，总大小：" + totalSize);
+
+		if (listener != null) {
+			listener.setFileName(rootPath);
+		}
+		Smb2BatchUtils.execute(client, ranges.size(), parallelism, new RangeTask(sharedPrefix, localDir,
+				paths, lastModified, ranges, report, retries, listener, totalSize));
+		//未能执行的分段（借出对象失败或被中断）所属文件记为失败
+		for (int i = 0; i < size; i++) {
+			if (report.get(i) == null) {
+				report.set(i, new Item(paths[i], null, Status.FAILED, new IOException("Retrieve [" + paths[i] + "] was not completed.")));
+			}
+		}
+		report.setElapsed(System.currentTimeMillis() - begin);
+		LOG.info("镜像下载完成：" + rootPath + "，" + report);
+		return report;
+	}
+
+	/**
+	 * 读取共享文件 [start, end) 区间的数据并定位写入本地文件通道；失败时从已写入的位置重新打开共享文件继续读取，
+	 * 已写入的数据不重复传输，汇总进度也不重复计算
+	 */
+	protected static void retrieveRange(SmbFile2 sharedFile, FileChannel outChannel, long start, long end, int retries,
+			AtomicLong totalRead, CopyStreamProcessListener listener, long streamSize) throws IOException {
+		long position = start;
+		int attempt = 0;
+		while (true) {
+			SmbRandomAccessFile input = null;
+			byte[] bytes = null;
+			try {
+				input = new SmbRandomAccessFile(sharedFile, "r");
+				//定位到未完成部分的起始位置
+				input.seek(position);
+				//从缓冲池借用缓存区
+				bytes = sharedFile.getBufferPool().acquire((int) Math.min(sharedFile.getChannelWriteBufferSize(), end - start));
+				while (position < end) {
+					int bytesRead = input.read(bytes, 0, (int) Math.min(bytes.length, end - position));
+					if (bytesRead == -1) {
+						throw new EOFException("Range [" + start + "," + end + ") of [" + sharedFile.getURL().getPath() + "] : unexpected EOF");
+					}
+					ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, bytesRead);
+					long offset = position;
+					while (byteBuffer.hasRemaining()) {
+						//定位写入，各分段互不影响通道的当前位置
+						offset += outChannel.write(byteBuffer, offset);
+					}
+					position = offset;
+					long total = totalRead.addAndGet(bytesRead);
+					if (listener != null) {
+						//监听对象非线程安全，汇总进度时串行通知
+						synchronized (listener) {
+							listener.bytesTransferred(total, bytesRead, streamSize);
+						}
+					}
+				}
+				return;
+			} catch (IOException e) {
+				if (attempt >= retries || Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+				attempt++;
+				LOG.warn("Range [" + position + "," + end + ") of [" + sharedFile.getURL().getPath() + "] failed, retry "
+						+ attempt + "/" + retries + " : " + e.getMessage());
+			} finally {
+				if (input != null) {
+					try {
+						input.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+				//归还缓存区
+				sharedFile.getBufferPool().release(bytes);
+			}
+		}
+	}
+
+	/**
+	 * 本地文件大小一致且修改时间相同（按秒比较，兼容只精确到秒的本地文件系统）时视为未变化；镜像下载与同步上传共用
+	 */
+	protected static boolean isUnchanged(File localFile, long length, long lastModified) {
+		return localFile.isFile() && localFile.length() == length && localFile.lastModified() / 1000 == lastModified / 1000;
+	}
+
+	/**
+	 * 创建上级目录并把本地文件调整为指定大小
+	 */
+	protected static void allocate(File localFile, long length) throws IOException {
+		File dir = localFile.getParentFile();
+		if (dir != null && !dir.exists()) {
+			dir.mkdirs();
+		}
+		RandomAccessFile randomAccessFile = new RandomAccessFile(localFile, "rw");
+		try {
+			randomAccessFile.setLength(length);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * 相对根目录的路径，使用 / 分隔；目录以 / 结尾
+	 */
+	protected static String getRelativePath(String rootPath, SmbFile sharedFile) {
+		String path = sharedFile.getURL().getPath();
+		return path.startsWith(rootPath) ? path.substring(rootPath.length()) : sharedFile.getName();
+	}
+
+}
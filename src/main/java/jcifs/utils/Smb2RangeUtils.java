@@ -0,0 +1,387 @@
+package jcifs.utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.io.CopyStreamProcessListener;
+import jcifs.smb.ISMBClient;
+import jcifs.smb.SmbFile2;
+import jcifs.smb.SmbRandomAccessFile;
+
+/**
+ * 共享文件分段并行传输工具：将文件切分为多个字节区间，由多个线程各自持有独立的SmbFile2对象并行读写，
+ * 下载时通过 FileChannel 的定位写入写到本地文件的对应位置，上传时通过共享文件的随机访问写入到对应偏移
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2RangeUtils {
+
+	protected static Logger LOG = LoggerFactory.getLogger(Smb2RangeUtils.class);
+
+	/**
+	 * 判断共享文件是否满足分段并行下载的条件：开启了多线程并且文件至少可以切分为两个分段
+	 * @param sharedFile	：共享文件
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isRangeable(SmbFile2 sharedFile) throws IOException {
+		if(sharedFile.getRangeThreads() <= 1 || sharedFile.getRangeSize() <= 0){
+			return false;
+		}
+		return sharedFile.isFile() && sharedFile.length() > sharedFile.getRangeSize();
+	}
+
+	/**
+	 * 判断本地文件是否满足分段并行上传的条件：开启了多线程并且文件至少可以切分为两个分段
+	 * @param smbClient		：SMBClient对象，提供分段参数
+	 * @param localFile		：本地文件
+	 * @return
+	 */
+	public static boolean isRangeable(SmbFile2 smbClient, File localFile) {
+		if(smbClient.getRangeThreads() <= 1 || smbClient.getRangeSize() <= 0){
+			return false;
+		}
+		return localFile.isFile() && localFile.length() > smbClient.getRangeSize();
+	}
+
+	/**
+	 * 分段并行下载共享文件到本地文件；每个工作线程通过 {@link ISMBClient#getSMBClient()} 获取独立的SmbFile2对象
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param filepath		：相对SMBClient路径的文件路径
+	 * @param localFile		：本地文件
+	 * @throws Exception
+	 */
+	public static void retrieveToFile(final ISMBClient client, final String filepath, File localFile) throws Exception {
+		//获得一个SMBClient对象读取文件信息
+		SmbFile2 smbClient = client.getSMBClient();
+		final SmbFile2 sharedFile;
+		final long length;
+		try {
+			sharedFile = smbClient.get(filepath);
+			if (!sharedFile.exists()) {
+				throw new FileNotFoundException("The File [" + sharedFile.getURL().getPath() + "] was not found on File sharing server.");
+	        }
+			length = sharedFile.length();
+		} finally {
+			//释放对象，避免与工作线程争用连接池
+			client.releaseClient(smbClient);
+		}
+		//分段数量
+		final long rangeSize = Math.max(1, sharedFile.getRangeSize());
+		final int ranges = (int) ((length + rangeSize - 1) / rangeSize);
+		if(!localFile.exists()){
+			File dir = localFile.getParentFile();
+			if(dir != null && !dir.exists()){
+				dir.mkdirs();
+			}
+		}
+		RandomAccessFile randomAccessFile = null;
+		FileChannel outChannel = null;
+		try {
+			//预先分配本地文件大小，各分段直接写入对应位置
+			randomAccessFile = new RandomAccessFile(localFile, "rw");
+			randomAccessFile.setLength(length);
+			outChannel = randomAccessFile.getChannel();
+			//初始进度监听
+			SMBCopyListenerUtils.initCopyListener(sharedFile, localFile.getName());
+			final CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
+			final AtomicLong totalRead = new AtomicLong();
+			final AtomicInteger nextRange = new AtomicInteger();
+			final FileChannel channel = outChannel;
+			LOG.info("开始分段拷贝...url：" + sharedFile.getURL().getPath() + "，分段数：" + ranges);
+			Smb2RangeUtils.execute(sharedFile, ranges, new Callable<Long>() {
+
+				@Override
+				public Long call() throws Exception {
+					//每个工作线程持有独立的SMBClient对象
+					SmbFile2 smbClient = client.getSMBClient();
+					try {
+						SmbFile2 rangeFile = smbClient.get(filepath);
+						long copied = 0;
+						int index;
+						while ((index = nextRange.getAndIncrement()) < ranges && !Thread.currentThread().isInterrupted()) {
+							long start = index * rangeSize;
+							long end = Math.min(length, start + rangeSize);
+							copied += Smb2RangeUtils.copyRange(rangeFile, channel, start, end, totalRead, listener, length);
+						}
+						return copied;
+					} finally {
+						client.releaseClient(smbClient);
+					}
+				}
+
+			});
+			LOG.info("拷贝完成：" + sharedFile.getURL().getPath());
+			Smb2Assert.assertRead(totalRead.get(), sharedFile.getURL().getPath());
+		} finally {
+			//关闭输出通道
+        	IOUtils.closeQuietly(outChannel);
+        	IOUtils.closeQuietly(randomAccessFile);
+		}
+	}
+
+	/**
+	 * 分段并行上传本地文件至【文件共享服务器】；先按本地文件大小预先分配共享文件，再由多个工作线程各自通过
+	 * {@link ISMBClient#getSMBClient()} 获取独立的SmbFile2对象，将固定大小的分段写入共享文件的对应偏移；
+	 * 分段写入失败时仅重试该分段，重试次数由 rangeRetries 决定
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param localFile		：本地文件
+	 * @param filepath		：相对SMBClient路径的共享文件路径
+	 * @return
+	 * @throws Exception
+	 */
+	@SuppressWarnings("resource")
+	public static boolean storeFile(final ISMBClient client, File localFile, final String filepath) throws Exception {
+		//异常检查
+		Smb2Assert.assertFile(localFile);
+		final long length = localFile.length();
+		//获得一个SMBClient对象创建并预分配共享文件
+		SmbFile2 smbClient = client.getSMBClient();
+		final SmbFile2 sharedFile;
+		try {
+			String sharedDir = FilenameUtils.getFullPath(filepath);
+			if(StringUtils.isNotEmpty(sharedDir)){
+				Smb2FileUtils.changeExistsDir(smbClient, sharedDir);
+			}
+			sharedFile = smbClient.get(filepath);
+			SmbRandomAccessFile output = new SmbRandomAccessFile(sharedFile, "rw");
+			try {
+				//设置共享文件长度，同时截断已存在的旧内容
+				output.setLength(length);
+			} finally {
+				output.close();
+			}
+		} finally {
+			//释放对象，避免与工作线程争用连接池
+			client.releaseClient(smbClient);
+		}
+		//分段数量
+		final long rangeSize = Math.max(1, sharedFile.getRangeSize());
+		final int ranges = (int) ((length + rangeSize - 1) / rangeSize);
+		FileChannel inChannel = null;
+		try {
+			inChannel = new RandomAccessFile(localFile, "r").getChannel();
+			//初始进度监听
+			SMBCopyListenerUtils.initCopyListener(sharedFile, localFile.getName());
+			final CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
+			final AtomicLong totalWrite = new AtomicLong();
+			final AtomicInteger nextRange = new AtomicInteger();
+			final FileChannel channel = inChannel;
+			LOG.info("开始分段上传...url：" + sharedFile.getURL().getPath() + "，分段数：" + ranges);
+			Smb2RangeUtils.execute(sharedFile, ranges, new Callable<Long>() {
+
+				@Override
+				public Long call() throws Exception {
+					//每个工作线程持有独立的SMBClient对象；分段重试时替换为重新获取的对象
+					SmbFile2[] smbClient = new SmbFile2[] { client.getSMBClient() };
+					try {
+						long copied = 0;
+						int index;
+						while ((index = nextRange.getAndIncrement()) < ranges && !Thread.currentThread().isInterrupted()) {
+							long start = index * rangeSize;
+							long end = Math.min(length, start + rangeSize);
+							copied += Smb2RangeUtils.storeRange(client, smbClient, filepath, channel, start, end);
+							long total = totalWrite.addAndGet(end - start);
+							if(listener != null){
+								//监听对象非线程安全，汇总进度时串行通知；超过 2G 的分段按 Integer.MAX_VALUE 通知
+								synchronized (listener) {
+									listener.bytesTransferred(total, (int) Math.min(Integer.MAX_VALUE, end - start), length);
+								}
+							}
+						}
+						return copied;
+					} finally {
+						if(smbClient[0] != null){
+							client.releaseClient(smbClient[0]);
+						}
+					}
+				}
+
+			});
+			LOG.info("上传完成：" + sharedFile.getURL().getPath());
+			return Smb2Assert.assertRead(totalWrite.get(), sharedFile.getURL().getPath());
+		} finally {
+			//关闭输入通道
+        	IOUtils.closeQuietly(inChannel);
+		}
+	}
+
+	/**
+	 * 启动 min(rangeThreads, ranges) 个工作线程执行分段任务，任意一个工作线程失败时取消其余线程并抛出异常
+	 */
+	protected static void execute(SmbFile2 sharedFile, int ranges, Callable<Long> worker) throws IOException {
+		//工作线程数量
+		int threads = Math.max(1, Math.min(sharedFile.getRangeThreads(), ranges));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+				.namingPattern("smb-range-%d").daemon(true).build());
+		try {
+			List<Future<Long>> futures = new ArrayList<Future<Long>>(threads);
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(worker));
+			}
+			try {
+				for (Future<Long> future : futures) {
+					future.get();
+				}
+			} catch (ExecutionException e) {
+				//任意分段失败，取消其余分段
+				for (Future<Long> future : futures) {
+					future.cancel(true);
+				}
+				Throwable cause = e.getCause();
+				if(cause instanceof IOException){
+					throw (IOException) cause;
+				}
+				throw new IOException("Range transfer of [" + sharedFile.getURL().getPath() + "] failed.", cause);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Range transfer of [" + sharedFile.getURL().getPath() + "] was interrupted.", e);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 读取共享文件 [start, end) 区间的数据，并写入到本地文件通道的相同位置
+	 */
+	protected static long copyRange(SmbFile2 sharedFile, FileChannel outChannel, long start, long end, AtomicLong totalRead,
+			CopyStreamProcessListener listener, long streamSize) throws IOException {
+		SmbRandomAccessFile input = null;
+		byte[] bytes = null;
+		try {
+			input = new SmbRandomAccessFile(sharedFile, "r");
+			//定位到分段起始位置
+			input.seek(start);
+			//从缓冲池借用缓存区
+			bytes = sharedFile.getBufferPool().acquire((int) Math.min(sharedFile.getChannelWriteBufferSize(), end - start));
+			long position = start;
+			int bytesRead = 0;
+			while (position < end) {
+				bytesRead = input.read(bytes, 0, (int) Math.min(bytes.length, end - position));
+				if (bytesRead == -1) {
+					throw new EOFException("Range [" + start + "," + end + ") of [" + sharedFile.getURL().getPath() + "] : unexpected EOF");
+				}
+				ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, bytesRead);
+				while (byteBuffer.hasRemaining()) {
+					//定位写入，各分段互不影响通道的当前位置
+					position += outChannel.write(byteBuffer, position);
+				}
+				long total = totalRead.addAndGet(bytesRead);
+				if(listener != null){
+					//监听对象非线程安全，汇总进度时串行通知
+					synchronized (listener) {
+						listener.bytesTransferred(total, bytesRead, streamSize);
+					}
+				}
+			}
+			return end - start;
+		} finally {
+			if(input != null){
+				input.close();
+			}
+			//归还缓存区
+			sharedFile.getBufferPool().release(bytes);
+		}
+	}
+
+	/**
+	 * 定位到共享文件的 start 位置，读取 [start, end) 区间的数据写出到输出流；不关闭输入及输出
+	 */
+	protected static long copyRange(SmbRandomAccessFile input, byte[] bytes, OutputStream output, long start, long end,
+			String path) throws IOException {
+		//直接定位，不读取起始位置之前的数据
+		input.seek(start);
+		long position = start;
+		while (position < end) {
+			int bytesRead = input.read(bytes, 0, (int) Math.min(bytes.length, end - position));
+			if (bytesRead == -1) {
+				throw new EOFException("Range [" + start + "," + end + ") of [" + path + "] : unexpected EOF");
+			}
+			output.write(bytes, 0, bytesRead);
+			position += bytesRead;
+		}
+		return end - start;
+	}
+
+	/**
+	 * 读取本地文件 [start, end) 区间的数据，并写入到共享文件的相同偏移；失败时归还当前SMBClient对象，
+	 * 从连接池重新获取对象仅重试该分段，会话断开后的重试不再使用原会话
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param smbClient		：工作线程当前持有的SMBClient对象，重试时替换为重新获取的对象；获取失败时为null
+	 * @param filepath		：相对SMBClient路径的共享文件路径
+	 */
+	protected static long storeRange(ISMBClient client, SmbFile2[] smbClient, String filepath, FileChannel inChannel,
+			long start, long end) throws Exception {
+		int attempts = Math.max(0, smbClient[0].getRangeRetries()) + 1;
+		for (int attempt = 1; ; attempt++) {
+			SmbFile2 sharedFile = smbClient[0].get(filepath);
+			try {
+				return Smb2RangeUtils.writeRange(inChannel, sharedFile, start, end);
+			} catch (IOException e) {
+				if(attempt >= attempts || Thread.currentThread().isInterrupted()){
+					throw e;
+				}
+				LOG.warn("Range [" + start + "," + end + ") of [" + sharedFile.getURL().getPath() + "] failed, retry " + attempt + "/" + (attempts - 1) + " : " + e.getMessage());
+				SmbFile2 failed = smbClient[0];
+				smbClient[0] = null;
+				client.releaseClient(failed);
+				smbClient[0] = client.getSMBClient();
+			}
+		}
+	}
+
+	protected static long writeRange(FileChannel inChannel, SmbFile2 sharedFile, long start, long end) throws IOException {
+		SmbRandomAccessFile output = null;
+		byte[] bytes = null;
+		try {
+			output = new SmbRandomAccessFile(sharedFile, "rw");
+			//定位到分段起始位置
+			output.seek(start);
+			//从缓冲池借用缓存区
+			bytes = sharedFile.getBufferPool().acquire((int) Math.min(sharedFile.getChannelReadBufferSize(), end - start));
+			ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+			long position = start;
+			while (position < end) {
+				byteBuffer.clear();
+				byteBuffer.limit((int) Math.min(bytes.length, end - position));
+				//定位读取，各分段互不影响通道的当前位置
+				int bytesRead = inChannel.read(byteBuffer, position);
+				if (bytesRead == -1) {
+					throw new EOFException("Range [" + start + "," + end + ") of local file : unexpected EOF");
+				}
+				output.write(bytes, 0, bytesRead);
+				position += bytesRead;
+			}
+			return end - start;
+		} finally {
+			if(output != null){
+				output.close();
+			}
+			//归还缓存区
+			sharedFile.getBufferPool().release(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,320 @@
+package jcifs.utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.io.BatchReport;
+import jcifs.io.BatchReport.Item;
+import jcifs.io.BatchReport.Status;
+import jcifs.io.DirectoryCache;
+import jcifs.io.FileMetadata;
+import jcifs.io.SyncOptions;
+import jcifs.io.SyncPlan;
+import jcifs.io.SyncPlan.Action;
+import jcifs.io.SyncPlan.Entry;
+import jcifs.smb.ISMBClient;
+import jcifs.smb.SmbFile2;
+import jcifs.smb.SmbRandomAccessFile;
+
+/**
+ * 本地目录到共享目录的增量同步工具：先比较文件大小及修改时间生成同步计划，只传输发生变化的文件；
+ * 开启块比较时，对内容可能变化的文件按固定大小的块逐块比较，只把内容不同的块定位写入共享文件；
+ * SMB 协议不提供服务端计算校验和的接口，比较时需读取共享文件的对应块，适合上行带宽小于下行带宽或文件只局部修改的场景。<br/>
+ * 上传完成后把共享文件的修改时间设置为本地文件的修改时间，下次同步时未修改的文件直接跳过
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2SyncUtils {
+
+	protected static Logger LOG = LoggerFactory.getLogger(Smb2SyncUtils.class);
+
+	/**
+	 * 生成同步计划而不执行，即演练（dry-run）；计划可通过 {@link SyncPlan#describe()} 输出
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param localDir		：本地目录
+	 * @param sharedDir		：相对SMBClient路径的共享目录
+	 * @param options		：同步参数
+	 * @return 同步计划
+	 * @throws IOException 列举共享目录失败时抛出
+	 */
+	public static SyncPlan plan(final ISMBClient client, final File localDir, final String sharedDir, final SyncOptions options) throws Exception {
+		//异常检查
+		Smb2Assert.assertDir(localDir);
+		//本地文件
+		Map<String, File> localFiles = new HashMap<String, File>();
+		Smb2SyncUtils.collect(localDir, "", localFiles);
+		//共享文件
+		Map<String, FileMetadata> sharedFiles = Smb2SyncUtils.listShared(client, sharedDir, options.getParallelism());
+
+		final int blockSize = Math.max(1, options.getBlockSize());
+		final SyncPlan plan = new SyncPlan(blockSize);
+		//需要逐块比较的文件
+		final List<String> candidates = new ArrayList<String>();
+		for (Map.Entry<String, File> local : localFiles.entrySet()) {
+			String path = local.getKey();
+			File localFile = local.getValue();
+			//列举时记录的元数据，比较大小及修改时间不再访问服务器
+			FileMetadata sharedFile = sharedFiles.get(path);
+			if (sharedFile == null) {
+				plan.add(new Entry(path, Action.CREATE, localFile.length(), null, localFile.length(), "not exists"));
+			} else if (Smb2MirrorUtils.isUnchanged(localFile, sharedFile.getLength(), sharedFile.getLastModified())) {
+				plan.add(new Entry(path, Action.SKIP, localFile.length(), null, 0, null));
+			} else if (options.isChecksum() && sharedFile.getLength() > 0 && localFile.length() > 0) {
+				candidates.add(path);
+			} else {
+				plan.add(new Entry(path, Action.REPLACE, localFile.length(), null, localFile.length(), "size or time changed"));
+			}
+		}
+		if (options.isDelete()) {
+			for (String path : sharedFiles.keySet()) {
+				if (!localFiles.containsKey(path)) {
+					plan.add(new Entry(path, Action.DELETE, 0, null, 0, "not exists locally"));
+				}
+			}
+		}
+		//并行逐块比较各候选文件；比较失败时退化为整文件上传
+		Smb2BatchUtils.execute(client, candidates.size(), options.getParallelism(), new Smb2BatchUtils.BatchTask() {
+
+			@Override
+			public Item process(SmbFile2 smbClient, int index) throws Exception {
+				String path = candidates.get(index);
+				File localFile = new File(localDir, path);
+				SmbFile2 sharedFile = smbClient.get(Smb2SyncUtils.getSharedPath(sharedDir, path));
+				plan.add(Smb2SyncUtils.compare(path, localFile, sharedFile, blockSize));
+				return new Item(path, null, Status.SUCCESS, null);
+			}
+
+			@Override
+			public Item failed(int index, Throwable error) {
+				String path = candidates.get(index);
+				long length = new File(localDir, path).length();
+				plan.add(new Entry(path, Action.REPLACE, length, null, length, "compare failed : " + error.getMessage()));
+				return new Item(path, null, Status.FAILED, error);
+			}
+
+		});
+		LOG.info(plan.toString());
+		return plan;
+	}
+
+	/**
+	 * 生成同步计划并执行
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param localDir		：本地目录
+	 * @param sharedDir		：相对SMBClient路径的共享目录
+	 * @param options		：同步参数
+	 * @return 需要执行的各项操作的结果，不含跳过的文件
+	 */
+	public static BatchReport sync(ISMBClient client, File localDir, String sharedDir, SyncOptions options) throws Exception {
+		SyncPlan plan = Smb2SyncUtils.plan(client, localDir, sharedDir, options);
+		return Smb2SyncUtils.execute(client, localDir, sharedDir, plan, options.getParallelism());
+	}
+
+	/**
+	 * 并行执行同步计划中需要执行的操作
+	 * @param client		：SMBClient共享文件资源服务客户端
+	 * @param localDir		：本地目录
+	 * @param sharedDir		：相对SMBClient路径的共享目录
+	 * @param plan			：同步计划
+	 * @param parallelism	：并行度，即同时使用的连接数
+	 * @return 各项操作的结果，顺序与 {@link SyncPlan#getChanges()} 一致
+	 */
+	public static BatchReport execute(ISMBClient client, final File localDir, final String sharedDir, SyncPlan plan, int parallelism) {
+		final List<Entry> changes = plan.getChanges();
+		final int blockSize = plan.getBlockSize();
+		return Smb2BatchUtils.execute(client, changes.size(), parallelism, new Smb2BatchUtils.BatchTask() {
+
+			@Override
+			public Item process(SmbFile2 smbClient, int index) throws Exception {
+				Entry entry = changes.get(index);
+				String filepath = Smb2SyncUtils.getSharedPath(sharedDir, entry.getPath());
+				Smb2SyncUtils.apply(smbClient, new File(localDir, entry.getPath()), filepath, entry, blockSize);
+				return new Item(entry.getPath(), null, Status.SUCCESS, null);
+			}
+
+			@Override
+			public Item failed(int index, Throwable error) {
+				Entry entry = changes.get(index);
+				if (entry.getAction() == Action.DELETE) {
+					return Smb2BatchUtils.toRemoveItem(entry.getPath(), error);
+				}
+				return Smb2BatchUtils.toItem(entry.getPath(), null, error);
+			}
+
+		});
+	}
+
+	/**
+	 * 执行单个文件的同步操作
+	 */
+	protected static void apply(SmbFile2 smbClient, File localFile, String filepath, Entry entry, int blockSize) throws IOException {
+		if (entry.getAction() == Action.DELETE) {
+			SmbFile2 sharedFile = smbClient.get(filepath);
+			sharedFile.delete();
+			//已知存在的目录缓存中该路径及其下级目录失效
+			DirectoryCache.getDefault().invalidate(sharedFile.getURL().toString());
+			return;
+		}
+		String parentDir = FilenameUtils.getFullPath(filepath);
+		if (StringUtils.isNotEmpty(parentDir)) {
+			Smb2FileUtils.changeExistsDir(smbClient, parentDir);
+		}
+		SmbFile2 sharedFile = smbClient.get(filepath);
+		if (entry.getAction() == Action.PATCH) {
+			Smb2SyncUtils.patch(localFile, sharedFile, entry.getBlocks(), blockSize);
+		} else {
+			Smb2FileUtils.storeFile(localFile, sharedFile);
+		}
+		//与本地文件保持一致的修改时间，下次同步时直接跳过
+		sharedFile.setLastModified(localFile.lastModified());
+	}
+
+	/**
+	 * 按块比较本地文件与共享文件：只比较两者共有的长度，超出共享文件长度的部分整体写入
+	 */
+	protected static Entry compare(String path, File localFile, SmbFile2 sharedFile, int blockSize) throws IOException {
+		long localLength = localFile.length();
+		long common = Math.min(localLength, sharedFile.length());
+		List<Long> blocks = new ArrayList<Long>();
+		RandomAccessFile local = null;
+		SmbRandomAccessFile shared = null;
+		try {
+			local = new RandomAccessFile(localFile, "r");
+			shared = new SmbRandomAccessFile(sharedFile, "r");
+			FileChannel localChannel = local.getChannel();
+			byte[] localBytes = new byte[blockSize];
+			byte[] sharedBytes = new byte[blockSize];
+			for (long offset = 0; offset < common; offset += blockSize) {
+				int length = (int) Math.min(blockSize, common - offset);
+				Smb2SyncUtils.readFully(localChannel, localBytes, offset, length);
+				shared.readFully(sharedBytes, 0, length);
+				if (!Smb2SyncUtils.equals(localBytes, sharedBytes, length)) {
+					blocks.add(offset);
+				}
+			}
+		} finally {
+			IOUtils.closeQuietly(local);
+			if (shared != null) {
+				shared.close();
+			}
+		}
+		//本地文件较长的部分
+		for (long offset = common; offset < localLength; offset += blockSize) {
+			blocks.add(offset);
+		}
+		long transferBytes = 0;
+		long[] offsets = new long[blocks.size()];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = blocks.get(i);
+			transferBytes += Math.min(blockSize, localLength - offsets[i]);
+		}
+		if (offsets.length == 0 && localLength == sharedFile.length()) {
+			//内容一致，仅修改时间不同
+			return new Entry(path, Action.PATCH, localLength, offsets, 0, "time changed");
+		}
+		return new Entry(path, Action.PATCH, localLength, offsets, transferBytes, offsets.length + " blocks changed");
+	}
+
+	/**
+	 * 将本地文件指定的块写入共享文件的相同位置，并把共享文件长度调整为本地文件长度
+	 */
+	protected static void patch(File localFile, SmbFile2 sharedFile, long[] blocks, int blockSize) throws IOException {
+		long length = localFile.length();
+		RandomAccessFile local = null;
+		SmbRandomAccessFile shared = null;
+		byte[] bytes = null;
+		try {
+			local = new RandomAccessFile(localFile, "r");
+			shared = new SmbRandomAccessFile(sharedFile, "rw");
+			FileChannel localChannel = local.getChannel();
+			bytes = new byte[blockSize];
+			for (long offset : blocks) {
+				int size = (int) Math.min(blockSize, length - offset);
+				Smb2SyncUtils.readFully(localChannel, bytes, offset, size);
+				shared.seek(offset);
+				shared.write(bytes, 0, size);
+			}
+			if (shared.length() != length) {
+				shared.setLength(length);
+			}
+		} finally {
+			IOUtils.closeQuietly(local);
+			if (shared != null) {
+				shared.close();
+			}
+		}
+	}
+
+	protected static void readFully(FileChannel channel, byte[] bytes, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new EOFException("Block at [" + position + "] of local file : unexpected EOF");
+			}
+		}
+	}
+
+	protected static boolean equals(byte[] bytes1, byte[] bytes2, int length) {
+		for (int i = 0; i < length; i++) {
+			if (bytes1[i] != bytes2[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 递归收集本地文件，键为相对本地目录的路径
+	 */
+	protected static void collect(File dir, String prefix, Map<String, File> files) {
+		File[] children = dir.listFiles();
+		for (int i = 0; children != null && i < children.length; i++) {
+			String path = prefix + children[i].getName();
+			if (children[i].isDirectory()) {
+				Smb2SyncUtils.collect(children[i], path + "/", files);
+			} else {
+				files.put(path, children[i]);
+			}
+		}
+	}
+
+	/**
+	 * 并行递归列举共享目录的文件元数据，键为相对共享目录的路径；共享目录不存在时返回空集合
+	 */
+	protected static Map<String, FileMetadata> listShared(ISMBClient client, String sharedDir, int parallelism) throws Exception {
+		Map<String, FileMetadata> files = new HashMap<String, FileMetadata>();
+		//获得一个SMBClient对象
+		SmbFile2 smbClient = client.getSMBClient();
+		try {
+			if (!new SmbFile2(smbClient, SMBPathUtils.getSharedDir(sharedDir)).exists()) {
+				return files;
+			}
+		} finally {
+			//释放对象，避免与工作线程争用连接池
+			client.releaseClient(smbClient);
+		}
+		String sharedPrefix = SMBPathUtils.getSharedDir(sharedDir);
+		for (FileMetadata sharedFile : Smb2ListUtils.listMetadata(client, sharedDir, null, null, parallelism)) {
+			files.put(sharedFile.getPath().substring(sharedPrefix.length()), sharedFile);
+		}
+		return files;
+	}
+
+	protected static String getSharedPath(String sharedDir, String path) {
+		return SMBPathUtils.getSharedDir(sharedDir) + path;
+	}
+
+}
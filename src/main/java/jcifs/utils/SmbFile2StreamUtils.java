@@ -7,19 +7,24 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedList;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jcifs.io.CopyStreamProcessListener;
+import jcifs.io.DirectoryCache;
+import jcifs.smb.NtStatus;
+import jcifs.smb.SmbException;
 import jcifs.smb.SmbFile;
 import jcifs.smb.SmbFile2;
+import jcifs.smb.SmbFile2RandomAccessInputStream;
 
 public class SmbFile2StreamUtils {
 	
@@ -44,13 +49,14 @@ public class SmbFile2StreamUtils {
      */
     public static long copyLarge(SmbFile2 sharedFile,OutputStream output,long skipOffset) throws IOException {
     	InputStream input = null;
+    	byte[] bytes = null;
 		try {
 			LOG.info("开始连接...url："+ sharedFile.getURL().getPath());
 			//尝试连接 ;SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
 			sharedFile.connect(); 
 			LOG.info("连接成功."); 
-			//获得共享文件的输入流，以便进行读取
-			input = SmbFile2StreamUtils.toBufferedInputStream(sharedFile.getInputStream(), sharedFile.getBufferSize());
+			//获得共享文件的输入流，以便进行读取；已按缓存区大小整块读取，无需再包装缓冲流
+			input = sharedFile.getInputStream();
 			try {
 				// 跳过已经存在的长度,实现断点续传  
 				SmbFile2StreamUtils.skip(input, skipOffset);
@@ -60,8 +66,8 @@ public class SmbFile2StreamUtils {
 			}
 			//进度监听
 			CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
-			//分配缓存区;可能8M
-			byte[] bytes = new byte[sharedFile.getBufferSize()];
+			//从缓冲池借用缓存区;可能8M
+			bytes = sharedFile.getBufferPool().acquire(sharedFile.getBufferSize());
 			long totalRead = 0;
 			int bytesRead = 0;
 			long bytesBlock = 0;
@@ -72,6 +78,8 @@ public class SmbFile2StreamUtils {
 			LOG.info("开始拷贝...");
 		    //读取数据到byte[]
 	        while (( bytesRead = input.read(bytes)) != -1) {
+	        	//任务被取消（线程中断）时中止拷贝
+	        	checkInterrupted(totalRead);
 	        	output.write(bytes, 0, bytesRead);
 	    		//计算距上次刷新已写出量
 	    		bytesBlock = bytesBlock + bytesRead;
@@ -93,6 +101,8 @@ public class SmbFile2StreamUtils {
         	IOUtils.closeQuietly(input);
         	//关闭输出流
         	IOUtils.closeQuietly(output);
+        	//归还缓存区
+        	sharedFile.getBufferPool().release(bytes);
         }
     }
     
@@ -101,44 +111,42 @@ public class SmbFile2StreamUtils {
     }
     
     
+    /**
+     * 创建共享目录及缺失的上级目录：自下而上查找最深的已存在目录，已知存在的目录不再检查，只创建缺失的部分
+     */
     public static void makeSharedDir(SmbFile2 sharedDir) throws IOException{
-    	//目录不存在则继续
-    	if(!sharedDir.exists()){
-    		//共享的根目录
-    		String rootPath = sharedDir.getParent();
-    		//当前访问路径
-    		String filePath = sharedDir.getPath();
-    		String tmpPath =  filePath.substring(rootPath.length());
-    		tmpPath = SMBPathUtils.getPath(tmpPath);
-    		if (tmpPath.endsWith(SMBPathUtils.BACKSLASHES)) {
-    			tmpPath = tmpPath.substring(0, (tmpPath.length() - SMBPathUtils.BACKSLASHES.length()));
+    	DirectoryCache directoryCache = DirectoryCache.getDefault();
+    	//缺失的目录，由浅至深
+    	LinkedList<SmbFile> missingDirs = new LinkedList<SmbFile>();
+    	SmbFile currentDir = sharedDir;
+    	while (!isShareRoot(currentDir) && !directoryCache.contains(currentDir.getURL().toString())) {
+    		if (currentDir.exists()) {
+    			directoryCache.add(currentDir.getURL().toString());
+    			break;
     		}
-    		//解析目录
-    		List<String> dirList = new ArrayList<String>();
-    		String[] dirArr = tmpPath.split("\\"+SMBPathUtils.BACKSLASHES);
-    		StringBuilder builder = new StringBuilder();
-    		for (int i = 0; i < dirArr.length; i++) {
-    			builder.delete(0, builder.length());
-    			for (int j = 0; j <= i; j++) {
-    				builder.append(dirArr[j]);
-    				if(j < i){
-    					builder.append(SMBPathUtils.BACKSLASHES);
-    				}
-				}
-    			dirList.add(new String(builder.toString()));
-			}
-    		
-    		for (String tmpDir : dirList) {
-    			
-    			//父级目录
-        		SmbFile2 parentDir = sharedDir.wrap(new SmbFile(rootPath + tmpDir));
-        		if(!parentDir.exists()){
-        			parentDir.mkdir();
-        		}else{
-        			continue;
-        		}
-			}
-		}
+    		missingDirs.addFirst(currentDir);
+    		//父级目录
+    		currentDir = new SmbFile(currentDir.getParent(), currentDir.getContext());
+    	}
+    	for (SmbFile missingDir : missingDirs) {
+    		try {
+    			missingDir.mkdir();
+    		} catch (SmbException e) {
+    			//其他线程或客户端已创建该目录
+    			if (e.getNtStatus() != NtStatus.NT_STATUS_OBJECT_NAME_COLLISION) {
+    				throw e;
+    			}
+    		}
+    		directoryCache.add(missingDir.getURL().toString());
+    	}
+    }
+    
+    /**
+     * 是否是共享的根目录；共享的根目录总是存在，无需检查
+     */
+    protected static boolean isShareRoot(SmbFile sharedDir) {
+    	String path = StringUtils.strip(sharedDir.getURL().getPath(), "/");
+    	return path.indexOf('/') < 0;
     }
     
     /**
@@ -146,6 +154,7 @@ public class SmbFile2StreamUtils {
      */
 	public static long copyLarge(InputStream input,SmbFile2 sharedFile,long skipOffset) throws IOException {
 		OutputStream output = null;
+		byte[] bytes = null;
 		try {
 			LOG.info("开始连接...url："+ sharedFile.getURL().getPath());
 			//尝试连接 ;SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
@@ -164,12 +173,13 @@ public class SmbFile2StreamUtils {
 				makeSharedDir(sharedDir);
 				sharedFile.createNewFile();
 			}
-			//获得共享文件的输出流，以便进行写入
-			output = SmbFile2StreamUtils.toBufferedOutputStream(sharedFile.getOutputStream(), sharedFile.getBufferSize());
+			//获得共享文件的输出流，以便进行写入；已按缓存区大小整块写出，无需再包装缓冲流
+			//断点续传时定位到已存在的长度继续写入，不截断已上传的内容
+			output = skipOffset > 0 ? sharedFile.getOutputStream(skipOffset) : sharedFile.getOutputStream();
 			//进度监听
 			CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
-			//分配缓存区;可能8M
-			byte[] bytes = new byte[sharedFile.getBufferSize()];
+			//从缓冲池借用缓存区;可能8M
+			bytes = sharedFile.getBufferPool().acquire(sharedFile.getBufferSize());
 			long totalRead = 0;
 			int bytesRead = 0;
 			long bytesBlock = 0;
@@ -180,6 +190,8 @@ public class SmbFile2StreamUtils {
 			LOG.info("开始拷贝...");
 		    //读取数据到byte[]
 	        while (( bytesRead = input.read(bytes)) != -1) {
+	        	//任务被取消（线程中断）时中止拷贝
+	        	checkInterrupted(totalRead);
 	        	 output.write(bytes, 0, bytesRead);
 	    		//计算距上次刷新已写出量
 	    		bytesBlock = bytesBlock + bytesRead;
@@ -201,6 +213,8 @@ public class SmbFile2StreamUtils {
         	IOUtils.closeQuietly(input);
         	//关闭输出流
         	IOUtils.closeQuietly(output);
+        	//归还缓存区
+        	sharedFile.getBufferPool().release(bytes);
         }
 	}
 	
@@ -209,17 +223,41 @@ public class SmbFile2StreamUtils {
 	 * 跳过指定的长度,实现断点续传  
 	 */
 	public static long skip(InputStream input,long offset) throws IOException{
+		//共享文件的随机访问输入流直接定位
+		if (input instanceof SmbFile2RandomAccessInputStream) {
+			SmbFile2RandomAccessInputStream randomInput = (SmbFile2RandomAccessInputStream) input;
+			if (randomInput.getPosition() + offset > randomInput.length()) {
+				throw new EOFException("offset [" + offset + "] larger than the length of input stream : unexpected EOF");  
+			}
+			randomInput.seek(randomInput.getPosition() + offset);
+			return 0;
+		}
 		long at = offset;
 		while (at > 0) {
 			long amt = input.skip(at);
-			if (amt == -1) {
-				throw new EOFException("offset [" + offset + "] larger than the length of input stream : unexpected EOF");  
+			if (amt <= 0) {
+				//skip 无法区分是否已到末尾，读取一个字节确认
+				if (input.read() == -1) {
+					throw new EOFException("offset [" + offset + "] larger than the length of input stream : unexpected EOF");  
+				}
+				amt = 1;
 			}
 			at -= amt;
 		}
 		return at;
 	}
 	
+	/**
+	 * 当前线程已被中断（如异步任务被取消）时抛出 InterruptedIOException 以中止拷贝
+	 */
+	public static void checkInterrupted(long totalRead) throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) {
+			InterruptedIOException ex = new InterruptedIOException("copy interrupted after " + totalRead + " bytes");
+			ex.bytesTransferred = (int) Math.min(Integer.MAX_VALUE, totalRead);
+			throw ex;
+		}
+	}
+	
 	/**
 	 * 跳过指定的长度,实现断点续传  
 	 */
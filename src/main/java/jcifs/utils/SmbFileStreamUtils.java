@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
@@ -44,13 +45,14 @@ public class SmbFileStreamUtils {
      */
     public static long copyLarge(SmbFile1 sharedFile,OutputStream output,long skipOffset) throws IOException {
     	InputStream input = null;
+    	byte[] bytes = null;
 		try {
 			LOG.info("开始连接...url："+ sharedFile.getURL().getPath());
 			//尝试连接 ;SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
 			sharedFile.connect(); 
 			LOG.info("连接成功."); 
-			//获得共享文件的输入流，以便进行读取
-			input = SmbFileStreamUtils.toBufferedInputStream(sharedFile.getInputStream(), sharedFile.getBufferSize());
+			//获得共享文件的输入流，以便进行读取；已按缓存区大小整块读取，无需再包装缓冲流
+			input = sharedFile.getInputStream();
 			try {
 				// 跳过已经存在的长度,实现断点续传  
 				SmbFileStreamUtils.skip(input, skipOffset);
@@ -60,8 +62,8 @@ public class SmbFileStreamUtils {
 			}
 			//进度监听
 			CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
-			//分配缓存区;可能8M
-			byte[] bytes = new byte[sharedFile.getBufferSize()];
+			//从缓冲池借用缓存区;可能8M
+			bytes = sharedFile.getBufferPool().acquire(sharedFile.getBufferSize());
 			long totalRead = 0;
 			int bytesRead = 0;
 			long bytesBlock = 0;
@@ -72,6 +74,8 @@ public class SmbFileStreamUtils {
 			LOG.info("开始拷贝...");
 		    //读取数据到byte[]
 	        while (( bytesRead = input.read(bytes)) != -1) {
+	        	//任务被取消（线程中断）时中止拷贝
+	        	checkInterrupted(totalRead);
 	        	output.write(bytes, 0, bytesRead);
 	    		//计算距上次刷新已写出量
 	    		bytesBlock = bytesBlock + bytesRead;
@@ -93,6 +97,8 @@ public class SmbFileStreamUtils {
         	IOUtils.closeQuietly(input);
         	//关闭输出流
         	IOUtils.closeQuietly(output);
+        	//归还缓存区
+        	sharedFile.getBufferPool().release(bytes);
         }
     }
     
@@ -146,6 +152,7 @@ public class SmbFileStreamUtils {
      */
 	public static long copyLarge(InputStream input,SmbFile1 sharedFile,long skipOffset) throws IOException {
 		OutputStream output = null;
+		byte[] bytes = null;
 		try {
 			LOG.info("开始连接...url："+ sharedFile.getURL().getPath());
 			//尝试连接 ;SmbFile的connect()方法可以尝试连接远程文件夹，如果账号或密码错误，将抛出连接异常
@@ -164,12 +171,12 @@ public class SmbFileStreamUtils {
 				makeSharedDir(sharedDir);
 				sharedFile.createNewFile();
 			}
-			//获得共享文件的输出流，以便进行写入
-			output = SmbFileStreamUtils.toBufferedOutputStream(sharedFile.getOutputStream(), sharedFile.getBufferSize());
+			//获得共享文件的输出流，以便进行写入；已按缓存区大小整块写出，无需再包装缓冲流
+			output = sharedFile.getOutputStream();
 			//进度监听
 			CopyStreamProcessListener listener = sharedFile.getCopyStreamProcessListener();
-			//分配缓存区;可能8M
-			byte[] bytes = new byte[sharedFile.getBufferSize()];
+			//从缓冲池借用缓存区;可能8M
+			bytes = sharedFile.getBufferPool().acquire(sharedFile.getBufferSize());
 			long totalRead = 0;
 			int bytesRead = 0;
 			long bytesBlock = 0;
@@ -180,6 +187,8 @@ public class SmbFileStreamUtils {
 			LOG.info("开始拷贝...");
 		    //读取数据到byte[]
 	        while (( bytesRead = input.read(bytes)) != -1) {
+	        	//任务被取消（线程中断）时中止拷贝
+	        	checkInterrupted(totalRead);
 	        	 output.write(bytes, 0, bytesRead);
 	    		//计算距上次刷新已写出量
 	    		bytesBlock = bytesBlock + bytesRead;
@@ -201,6 +210,8 @@ public class SmbFileStreamUtils {
         	IOUtils.closeQuietly(input);
         	//关闭输出流
         	IOUtils.closeQuietly(output);
+        	//归还缓存区
+        	sharedFile.getBufferPool().release(bytes);
         }
 	}
 	
@@ -220,6 +231,17 @@ public class SmbFileStreamUtils {
 		return at;
 	}
 	
+	/**
+	 * 当前线程已被中断（如异步任务被取消）时抛出 InterruptedIOException 以中止拷贝
+	 */
+	public static void checkInterrupted(long totalRead) throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) {
+			InterruptedIOException ex = new InterruptedIOException("copy interrupted after " + totalRead + " bytes");
+			ex.bytesTransferred = (int) Math.min(Integer.MAX_VALUE, totalRead);
+			throw ex;
+		}
+	}
+	
 	/**
 	 * 跳过指定的长度,实现断点续传  
 	 */
@@ -18,7 +18,11 @@ package jcifs.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import jcifs.smb.SmbException;
 import jcifs.smb.SmbFile;
@@ -27,6 +31,7 @@ import jcifs.smb.filter.FalseFileFilter;
 import jcifs.smb.filter.FileFileFilter;
 import jcifs.smb.filter.Smb2FileFilter;
 import jcifs.smb.filter.Smb2FileFilters;
+import jcifs.smb.filter.SmbFileAttributes;
 import jcifs.smb.filter.SuffixFileFilter;
 import jcifs.smb.filter.TrueFileFilter;
 
@@ -44,21 +49,83 @@ public class SmbFileUtils {
      * @throws IOException 
      */
     private static void innerListFiles(final Collection<SmbFile> files, final SmbFile directory,
-                                       final SmbFileFilter filter, final boolean includeSubDirectories) throws IOException {
+                                       final Smb2FileFilter filter, final boolean includeSubDirectories) throws IOException {
     	
-    	SmbFile[] found = directory.listFiles(filter);
-        if (found != null) {
-            for (final SmbFile file : found) {
-                if (file.isDirectory()) {
-                    if (includeSubDirectories) {
-                        files.add(file);
-                    }
-                    innerListFiles(files, file, filter, includeSubDirectories);
-                } else {
-                    files.add(file);
+    	// 枚举目录时即按过滤器声明的属性生成快照，此时属性来自枚举结果；过滤及目录判断均基于快照，不再逐个查询服务器
+    	final int required = Smb2FileFilters.getRequiredAttributes(filter) | SmbFileAttributes.TYPE;
+    	final List<SmbFileAttributes> found = new ArrayList<SmbFileAttributes>();
+    	final SmbFileFilter snapshotFilter = new SmbFileFilter() {
+			
+			@Override
+			public boolean accept(SmbFile file) throws SmbException {
+				SmbFileAttributes attributes = SmbFileAttributes.of(file, required);
+				if (Smb2FileFilters.accept(filter, attributes)) {
+					found.add(attributes);
+				}
+				return false;
+			}
+			
+		};
+    	final List<String> wildcards = Smb2FileFilters.toWildcards(filter);
+    	if (wildcards == null) {
+    		directory.listFiles(snapshotFilter);
+    	} else {
+    		// 文件名过滤下推为服务端通配符查询，只有匹配的条目才会返回
+    		for (final SmbFile file : listCandidates(directory, wildcards)) {
+    			snapshotFilter.accept(file);
+    		}
+    	}
+        for (final SmbFileAttributes attributes : found) {
+            if (attributes.isDirectory()) {
+                if (includeSubDirectories) {
+                    files.add(attributes.getFile());
+                }
+                innerListFiles(files, attributes.getFile(), filter, includeSubDirectories);
+            } else {
+                files.add(attributes.getFile());
+            }
+        }
+    }
+    
+    /**
+     * 列出目录中可能被过滤器接受的条目：文件名过滤可转换为通配符时由服务端按通配符匹配，只返回匹配的条目，
+     * 否则列出全部条目；返回的条目仍需经过滤器判断
+     *
+     * @param directory the directory to list
+     * @param filter    the filter that will be applied to the entries
+     * @return the candidate entries
+     * @throws SmbException 
+     */
+    public static SmbFile[] listCandidates(final SmbFile directory, final Smb2FileFilter filter) throws SmbException {
+        return listCandidates(directory, filter == null ? null : Smb2FileFilters.toWildcards(filter));
+    }
+
+    /**
+     * 列出目录中后缀为指定扩展名之一的候选条目
+     *
+     * @param directory  the directory to list
+     * @param extensions an array of extensions. Format: {"java", "xml"}
+     * @return the candidate entries
+     * @throws SmbException 
+     */
+    public static SmbFile[] listCandidates(final SmbFile directory, final String[] extensions) throws SmbException {
+        return listCandidates(directory, extensions == null ? null : new SuffixFileFilter(toSuffixes(extensions)));
+    }
+
+    private static SmbFile[] listCandidates(final SmbFile directory, final List<String> wildcards) throws SmbException {
+        if (wildcards == null) {
+            return directory.listFiles();
+        }
+        // 同一条目可能匹配多个通配符，按名称去重
+        final Map<String, SmbFile> found = new LinkedHashMap<String, SmbFile>();
+        for (final String wildcard : wildcards) {
+            for (final SmbFile file : directory.listFiles(wildcard)) {
+                if (!found.containsKey(file.getName())) {
+                    found.put(file.getName(), file);
                 }
             }
         }
+        return found.values().toArray(new SmbFile[found.size()]);
     }
     
 	//-----------------------------------------------------------------------
@@ -89,7 +156,7 @@ public class SmbFileUtils {
                 final String[] suffixes = toSuffixes(extensions);
                 filter = new SuffixFileFilter(suffixes);
             }
-            filter = Smb2FileFilters.and(filter, FileFileFilter.FILE);
+            filter = Smb2FileFilters.compile(Smb2FileFilters.and(filter, FileFileFilter.FILE));
 			//循环文件
 			for(SmbFile SmbFile :files){
 				if(filter.accept(SmbFile)){
@@ -108,7 +175,7 @@ public class SmbFileUtils {
         	if (fileFilter == null) {
                 filter = TrueFileFilter.INSTANCE;
             } else {
-                filter = fileFilter;
+                filter = Smb2FileFilters.compile(fileFilter);
             }
 			//循环文件
 			for(SmbFile SmbFile :files){
@@ -150,7 +217,7 @@ public class SmbFileUtils {
 
         //Find files
         final Collection<SmbFile> files = new java.util.LinkedList<SmbFile>();
-        innerListFiles(files, directory, Smb2FileFilters.or(effFileFilter, effDirFilter), false);
+        innerListFiles(files, directory, Smb2FileFilters.compile(Smb2FileFilters.or(effFileFilter, effDirFilter)), false);
         return files;
     }
     
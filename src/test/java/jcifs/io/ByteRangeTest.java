@@ -0,0 +1,81 @@
+package jcifs.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * HTTP Range 请求头的解析与区间合并
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class ByteRangeTest {
+
+	private static final long LENGTH = 1000;
+
+	@Test
+	public void closedRange() {
+		assertEquals(Arrays.asList(new ByteRange(0, 499)), ByteRange.parse("bytes=0-499", LENGTH));
+		//结束位置超出文件大小时截取到文件末尾
+		assertEquals(Arrays.asList(new ByteRange(900, 999)), ByteRange.parse("bytes=900-5000", LENGTH));
+	}
+
+	@Test
+	public void openEndedRange() {
+		assertEquals(Arrays.asList(new ByteRange(500, 999)), ByteRange.parse("bytes=500-", LENGTH));
+	}
+
+	@Test
+	public void suffixRange() {
+		assertEquals(Arrays.asList(new ByteRange(500, 999)), ByteRange.parse("bytes=-500", LENGTH));
+		//后缀长度超出文件大小时返回完整文件
+		assertEquals(Arrays.asList(new ByteRange(0, 999)), ByteRange.parse("bytes=-5000", LENGTH));
+		assertEquals(Arrays.asList(new ByteRange(0, 0), new ByteRange(999, 999)), ByteRange.parse("bytes=0-0,-1", LENGTH));
+	}
+
+	@Test
+	public void unsatisfiableRanges() {
+		//所有区间均超出文件大小：空列表，应返回 416
+		List<ByteRange> ranges = ByteRange.parse("bytes=1000-1100,2000-", LENGTH);
+		assertTrue(ranges.isEmpty());
+		assertTrue(ByteRange.parse("bytes=-0", LENGTH).isEmpty());
+		assertTrue(ByteRange.parse("bytes=-10", 0).isEmpty());
+		//部分区间超出时只保留有效区间
+		assertEquals(Arrays.asList(new ByteRange(10, 19)), ByteRange.parse("bytes=2000-,10-19", LENGTH));
+	}
+
+	@Test
+	public void malformedHeaderIsIgnored() {
+		assertNull(ByteRange.parse(null, LENGTH));
+		assertNull(ByteRange.parse(" ", LENGTH));
+		assertNull(ByteRange.parse("items=0-1", LENGTH));
+		assertNull(ByteRange.parse("bytes=", LENGTH));
+		assertNull(ByteRange.parse("bytes=5", LENGTH));
+		assertNull(ByteRange.parse("bytes=-", LENGTH));
+		assertNull(ByteRange.parse("bytes=9-1", LENGTH));
+		assertNull(ByteRange.parse("bytes=a-1", LENGTH));
+		assertNull(ByteRange.parse("bytes=0-99999999999999999999", LENGTH));
+	}
+
+	@Test
+	public void coalesceMergesOverlappingAndAdjacentRanges() {
+		List<ByteRange> ranges = Arrays.asList(new ByteRange(500, 599), new ByteRange(0, 99), new ByteRange(50, 149),
+				new ByteRange(150, 199), new ByteRange(550, 560), new ByteRange(800, 899));
+		assertEquals(Arrays.asList(new ByteRange(0, 199), new ByteRange(500, 599), new ByteRange(800, 899)),
+				ByteRange.coalesce(ranges));
+		//单个区间或null原样返回
+		assertNull(ByteRange.coalesce(null));
+		List<ByteRange> single = Arrays.asList(new ByteRange(1, 2));
+		assertEquals(single, ByteRange.coalesce(single));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidRangeIsRejected() {
+		new ByteRange(10, 9);
+	}
+
+}
@@ -0,0 +1,130 @@
+package jcifs.smb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import jcifs.SmbRandomAccess;
+
+/**
+ * 断点续传的输入流只传输起始位置之后的数据：随机访问句柄由计数的替身代替，
+ * 记录经句柄读取的字节数及读取到的最小位置
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile2RandomAccessInputStreamTest {
+
+	/** 替身文件大小： 64M */
+	private static final long LENGTH = 64L * 1024 * 1024;
+	/** 续传的起始位置 */
+	private static final long OFFSET = LENGTH - 1024 * 1024;
+
+	/**
+	 * 替身句柄：第 i 个字节的值为 (byte) i，不保存数据
+	 */
+	static class CountingHandle implements InvocationHandler {
+
+		long pointer = 0;
+		long bytesRead = 0;
+		long lowestRead = Long.MAX_VALUE;
+		boolean closed = false;
+
+		SmbRandomAccess proxy() {
+			return (SmbRandomAccess) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { SmbRandomAccess.class }, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("seek".equals(name)) {
+				pointer = (Long) args[0];
+				return null;
+			}
+			if ("getFilePointer".equals(name)) {
+				return pointer;
+			}
+			if ("length".equals(name)) {
+				return LENGTH;
+			}
+			if ("close".equals(name)) {
+				closed = true;
+				return null;
+			}
+			if ("read".equals(name) && args == null) {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+			}
+			if ("read".equals(name) && args.length == 3) {
+				return read((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+			}
+			throw new UnsupportedOperationException(name);
+		}
+
+		private int read(byte[] b, int off, int len) {
+			if (pointer >= LENGTH) {
+				return -1;
+			}
+			int n = (int) Math.min(len, LENGTH - pointer);
+			lowestRead = Math.min(lowestRead, pointer);
+			for (int i = 0; i < n; i++) {
+				b[off + i] = (byte) (pointer + i);
+			}
+			pointer += n;
+			bytesRead += n;
+			return n;
+		}
+
+	}
+
+	@Test
+	public void resumeTransfersOnlyBytesAfterOffset() throws Exception {
+		CountingHandle handle = new CountingHandle();
+		SmbFile2RandomAccessInputStream input = new SmbFile2RandomAccessInputStream(handle.proxy(), OFFSET);
+		byte[] bytes = new byte[64 * 1024];
+		long position = OFFSET;
+		int bytesRead = 0;
+		while ((bytesRead = input.read(bytes, 0, bytes.length)) != -1) {
+			for (int i = 0; i < bytesRead; i++) {
+				assertEquals((byte) (position + i), bytes[i]);
+			}
+			position += bytesRead;
+		}
+		input.close();
+		assertEquals(LENGTH, position);
+		//起始位置之前的数据没有经句柄读取
+		assertEquals(LENGTH - OFFSET, handle.bytesRead);
+		assertEquals(OFFSET, handle.lowestRead);
+		assertTrue(handle.closed);
+	}
+
+	@Test
+	public void skipSeeksWithoutReading() throws Exception {
+		CountingHandle handle = new CountingHandle();
+		SmbFile2RandomAccessInputStream input = new SmbFile2RandomAccessInputStream(handle.proxy(), 0);
+		assertEquals(OFFSET, input.skip(OFFSET));
+		assertEquals(0, handle.bytesRead);
+		assertEquals((int) (OFFSET & 0xFF), input.read());
+		//跳过超出文件末尾时停在末尾
+		assertEquals(LENGTH - OFFSET - 1, input.skip(LENGTH));
+		assertEquals(-1, input.read());
+		assertEquals(1, handle.bytesRead);
+		input.close();
+	}
+
+	@Test(expected = EOFException.class)
+	public void offsetBeyondLengthFails() throws Exception {
+		CountingHandle handle = new CountingHandle();
+		try {
+			new SmbFile2RandomAccessInputStream(handle.proxy(), LENGTH + 1);
+		} finally {
+			assertTrue(handle.closed);
+		}
+	}
+
+}
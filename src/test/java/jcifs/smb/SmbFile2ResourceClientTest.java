@@ -0,0 +1,122 @@
+package jcifs.smb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import jcifs.io.FileMetadata;
+import jcifs.io.MetadataCache;
+import jcifs.smb.filter.SuffixFileFilter;
+
+/**
+ * 元数据缓存命中时的目录列举：缓存中只有不可变的元数据，返回的文件对象在每次调用获得的SMBClient对象上重新包装，
+ * 属性直接取自元数据；按扩展名和过滤器列举同样经过缓存。替身地址上没有服务器，任何属性查询都会失败
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile2ResourceClientTest {
+
+	private static final String SHARED_URL = "smb://127.0.0.1/shared/";
+
+	/**
+	 * 每次调用都获得一个新的SMBClient对象，模拟从连接池借出；不连接服务器
+	 */
+	static class StandInClient extends SmbFile2ResourceClient {
+
+		final AtomicInteger borrowed = new AtomicInteger();
+		final AtomicInteger released = new AtomicInteger();
+
+		@Override
+		public SmbFile2 getSMBClient() throws Exception {
+			borrowed.incrementAndGet();
+			return new SmbFile2(SHARED_URL);
+		}
+
+		@Override
+		public void releaseClient(SmbFile2 smbClient) throws Exception {
+			released.incrementAndGet();
+		}
+
+	}
+
+	@Test
+	public void cachedListingIsWrappedPerCall() throws Exception {
+		StandInClient client = new StandInClient();
+		MetadataCache cache = new MetadataCache();
+		client.setMetadataCache(cache);
+		FileMetadata[] metadata = new FileMetadata[] {
+				new FileMetadata("dir/a.txt", "a.txt", false, 10, 1000),
+				new FileMetadata("dir/sub/", "sub/", true, 0, 2000) };
+		cache.put(MetadataCache.FILES, "dir", metadata, cache.getGeneration());
+
+		SmbFile2[] first = client.listFiles("dir");
+		SmbFile2[] second = client.listFiles("dir");
+		assertEquals(2, first.length);
+		assertEquals(SHARED_URL + "dir/a.txt", first[0].getURL().toString());
+		assertEquals(SHARED_URL + "dir/sub/", first[1].getURL().toString());
+		for (int i = 0; i < first.length; i++) {
+			//不同调用之间不共享文件对象
+			assertNotSame(first[i], second[i]);
+			assertEquals(first[i].getURL(), second[i].getURL());
+		}
+		assertEquals(2, cache.getHits());
+		//属性取自缓存的元数据，不访问服务器
+		assertTrue(first[0].exists());
+		assertTrue(first[0].isFile());
+		assertFalse(first[0].isDirectory());
+		assertEquals(10, first[0].length());
+		assertEquals(1000, first[0].lastModified());
+		assertEquals(1000, first[0].getLastModified());
+		assertTrue(first[1].isDirectory());
+		assertEquals(2000, first[1].lastModified());
+		assertEquals(client.borrowed.get(), client.released.get());
+
+		//本客户端修改路径后条目失效
+		cache.invalidate("dir/a.txt");
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void filteredListingsUseCache() throws Exception {
+		StandInClient client = new StandInClient();
+		MetadataCache cache = new MetadataCache();
+		client.setMetadataCache(cache);
+		cache.put(MetadataCache.FILES, "dir", new FileMetadata[] {
+				new FileMetadata("dir/a.txt", "a.txt", false, 10, 1000),
+				new FileMetadata("dir/b.log", "b.log", false, 20, 1000),
+				new FileMetadata("dir/sub.txt/", "sub.txt/", true, 0, 2000) }, cache.getGeneration());
+		cache.put(MetadataCache.FILES, "dir/sub.txt", new FileMetadata[] {
+				new FileMetadata("dir/sub.txt/c.txt", "c.txt", false, 30, 3000),
+				new FileMetadata("dir/sub.txt/d.log", "d.log", false, 40, 3000),
+				new FileMetadata("dir/sub.txt/deep/", "deep/", true, 0, 3000) }, cache.getGeneration());
+		cache.put(MetadataCache.FILES, "dir/sub.txt/deep", new FileMetadata[] {
+				new FileMetadata("dir/sub.txt/deep/e.txt", "e.txt", false, 50, 4000) }, cache.getGeneration());
+
+		//按扩展名：只返回当前目录下的文件
+		SmbFile2[] files = client.listFiles("dir", new String[] { "txt" }, true);
+		assertEquals(1, files.length);
+		assertEquals(SHARED_URL + "dir/a.txt", files[0].getURL().toString());
+		assertEquals(10, files[0].length());
+
+		//按过滤器：不递归时命中的目录原样返回
+		files = client.listFiles("dir", new SuffixFileFilter(new String[] { ".txt", ".txt/" }));
+		assertEquals(2, files.length);
+		assertEquals(SHARED_URL + "dir/sub.txt/", files[1].getURL().toString());
+		assertTrue(files[1].isDirectory());
+
+		//递归时命中的目录展开为其下所有匹配的文件，各级目录都从缓存读取
+		files = client.listFiles("dir", new SuffixFileFilter(new String[] { ".txt", ".txt/" }), true);
+		assertEquals(3, files.length);
+		assertEquals(SHARED_URL + "dir/a.txt", files[0].getURL().toString());
+		assertEquals(SHARED_URL + "dir/sub.txt/c.txt", files[1].getURL().toString());
+		assertEquals(SHARED_URL + "dir/sub.txt/deep/e.txt", files[2].getURL().toString());
+		assertEquals(50, files[2].length());
+		assertEquals(0, cache.getMisses());
+		assertEquals(client.borrowed.get(), client.released.get());
+	}
+
+}
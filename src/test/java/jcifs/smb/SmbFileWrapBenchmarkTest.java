@@ -0,0 +1,188 @@
+package jcifs.smb;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang3.reflect.ConstructorUtils;
+import org.junit.Test;
+
+import jcifs.io.CopyStreamProcessListener;
+import jcifs.io.PrintCopyStreamProcessListener;
+import jcifs.smb1.SmbFile1;
+import jcifs.smb1.SmbFile1Config;
+
+/**
+ * 包装目录项的基准：包装 1M 个目录项，输出每个目录项的耗时及在当前线程上分配的字节数；
+ * 同时对比按配置拷贝参数时旧实现逐次按类名反射创建监听对象与共享传输参数、缓存构造方法后的分配量
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFileWrapBenchmarkTest {
+
+	private static final String SHARED_URL = "smb://127.0.0.1/share/";
+	/** 包装的目录项数 */
+	private static final int ENTRIES = 1000000;
+	/** 预热的目录项数 */
+	private static final int WARMUP = 100000;
+	/** 检查共享传输参数时批量包装的目录项数 */
+	private static final int BATCH = 1000;
+
+	@Test
+	public void smb2() throws Exception {
+		final SmbFile2 smbClient = new SmbFile2(SHARED_URL);
+		final SmbFile entry = new SmbFile2(SHARED_URL + "entry.txt");
+		Measure wrap = measure(new Task() {
+
+			@Override
+			public void run(int index) {
+				smbClient.wrap(entry);
+			}
+
+		});
+		List<SmbFile> entries = new ArrayList<SmbFile>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			entries.add(entry);
+		}
+		Collection<SmbFile2> wrapped = smbClient.wrapAll(entries);
+		for (SmbFile2 file : wrapped) {
+			//包装的目录项引用同一份传输参数，不逐个拷贝
+			assertSame(smbClient.getSettings(), file.getSettings());
+		}
+
+		final SmbFile2Config config = new SmbFile2Config();
+		config.setCopyStreamProcessListenerName(PrintCopyStreamProcessListener.class.getName());
+		final SmbFile2 dest = new SmbFile2(SHARED_URL + "dest.txt");
+		Measure legacy = measure(new Task() {
+
+			@Override
+			public void run(int index) throws Exception {
+				legacyListener(config.getCopyStreamProcessListenerName());
+			}
+
+		});
+		Measure shared = measure(new Task() {
+
+			@Override
+			public void run(int index) {
+				smbClient.copy(dest, config);
+			}
+
+		});
+		assertSame(config.getSettings(), dest.getSettings());
+		//监听对象有状态，按配置拷贝出的对象各自持有一个
+		CopyStreamProcessListener listener = dest.getCopyStreamProcessListener();
+		smbClient.copy(dest, config);
+		assertNotSame(listener, dest.getCopyStreamProcessListener());
+		report("smb", wrap, legacy, shared);
+	}
+
+	@Test
+	public void smb1() throws Exception {
+		final SmbFile1 smbClient = new SmbFile1(SHARED_URL);
+		final jcifs.smb1.smb1.SmbFile entry = new SmbFile1(SHARED_URL + "entry.txt");
+		Measure wrap = measure(new Task() {
+
+			@Override
+			public void run(int index) {
+				smbClient.wrap(entry);
+			}
+
+		});
+		List<jcifs.smb1.smb1.SmbFile> entries = new ArrayList<jcifs.smb1.smb1.SmbFile>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			entries.add(entry);
+		}
+		Collection<SmbFile1> wrapped = smbClient.wrapAll(entries);
+		for (SmbFile1 file : wrapped) {
+			assertSame(smbClient.getSettings(), file.getSettings());
+		}
+
+		final SmbFile1Config config = new SmbFile1Config();
+		config.setCopyStreamProcessListenerName(PrintCopyStreamProcessListener.class.getName());
+		final SmbFile1 dest = new SmbFile1(SHARED_URL + "dest.txt");
+		Measure legacy = measure(new Task() {
+
+			@Override
+			public void run(int index) throws Exception {
+				legacyListener(config.getCopyStreamProcessListenerName());
+			}
+
+		});
+		Measure shared = measure(new Task() {
+
+			@Override
+			public void run(int index) {
+				smbClient.copy(dest, config);
+			}
+
+		});
+		assertSame(config.getSettings(), dest.getSettings());
+		//监听对象有状态，按配置拷贝出的对象各自持有一个
+		CopyStreamProcessListener listener = dest.getCopyStreamProcessListener();
+		smbClient.copy(dest, config);
+		assertNotSame(listener, dest.getCopyStreamProcessListener());
+		report("smb1", wrap, legacy, shared);
+	}
+
+	private static void report(String variant, Measure wrap, Measure legacy, Measure shared) {
+		System.out.println("[" + variant + "] wrap " + ENTRIES + " entries : " + wrap);
+		System.out.println("[" + variant + "] copy from config, legacy listener : " + legacy + ", shared settings : " + shared);
+		//旧实现每次拷贝都按类名加载并反射创建一个监听对象
+		assertTrue(legacy.allocated >= ENTRIES * 16L);
+		//共享传输参数后按配置拷贝只通过缓存的构造方法创建监听对象，不再拷贝参数或按类名查找
+		assertTrue("shared copy allocated " + shared.allocated + " bytes", shared.allocated < legacy.allocated);
+	}
+
+	/**
+	 * 修改前按配置拷贝时创建监听对象的方式：每次按类名加载并反射调用构造方法
+	 */
+	private static CopyStreamProcessListener legacyListener(String className) throws Exception {
+		@SuppressWarnings("unchecked")
+		Class<CopyStreamProcessListener> listenerClazz = (Class<CopyStreamProcessListener>) Class.forName(className);
+		return ConstructorUtils.invokeConstructor(listenerClazz);
+	}
+
+	/**
+	 * 预热后执行 ENTRIES 次，返回耗时及在当前线程上分配的字节数
+	 */
+	private static Measure measure(Task task) throws Exception {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		for (int i = 0; i < WARMUP; i++) {
+			task.run(i);
+		}
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		long begin = System.nanoTime();
+		for (int i = 0; i < ENTRIES; i++) {
+			task.run(i);
+		}
+		Measure measure = new Measure();
+		measure.elapsed = System.nanoTime() - begin;
+		measure.allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+		return measure;
+	}
+
+	private interface Task {
+
+		void run(int index) throws Exception;
+
+	}
+
+	private static class Measure {
+
+		private long elapsed;
+		private long allocated;
+
+		@Override
+		public String toString() {
+			return (elapsed / ENTRIES) + " ns/entry, " + (allocated / ENTRIES) + " bytes/entry";
+		}
+
+	}
+
+}
@@ -0,0 +1,202 @@
+package jcifs.smb.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import jcifs.SmbRandomAccess;
+import jcifs.smb.SmbFile;
+
+/**
+ * 大文件魔数过滤的基准：替身共享文件大小为 2G，只保存文件头；统计过滤时打开句柄的次数、
+ * 经句柄读取的字节数及每个文件的过滤耗时，与旧实现下载整个文件的传输量对比
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class MagicNumberFileFilterBenchmarkTest {
+
+	private static final String SHARED_URL = "smb://127.0.0.1/share/";
+	/** 替身文件大小： 2G */
+	private static final long FILE_SIZE = 2L * 1024 * 1024 * 1024;
+	/** 过滤的文件数 */
+	private static final int FILES = 10000;
+
+	private static final byte[] PNG = new byte[] { (byte) 0x89, 'P', 'N', 'G' };
+	private static final byte[] JPEG = new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+	private static final byte[] PDF = "%PDF".getBytes(Charset.forName("US-ASCII"));
+	/** MP4 的 ftyp 位于第 4 个字节 */
+	private static final byte[] MP4 = new byte[] { 0, 0, 0, 0x18, 'f', 't', 'y', 'p' };
+
+	private final AtomicLong opens = new AtomicLong();
+	private final AtomicLong bytesRead = new AtomicLong();
+
+	/**
+	 * 替身共享文件：只保存文件头，其余内容按 0 读取
+	 */
+	class LargeFile extends SmbFile {
+
+		private final byte[] header;
+
+		LargeFile(String name, byte[] header) throws MalformedURLException {
+			super(SHARED_URL + name);
+			this.header = header;
+		}
+
+		@Override
+		public boolean isFile() {
+			return true;
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return false;
+		}
+
+		@Override
+		public boolean canRead() {
+			return true;
+		}
+
+		@Override
+		public long length() {
+			return FILE_SIZE;
+		}
+
+		SmbRandomAccess open() {
+			opens.incrementAndGet();
+			return (SmbRandomAccess) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { SmbRandomAccess.class },
+					new InvocationHandler() {
+
+						private long pointer = 0;
+
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							String name = method.getName();
+							if ("seek".equals(name)) {
+								pointer = (Long) args[0];
+								return null;
+							}
+							if ("close".equals(name)) {
+								return null;
+							}
+							if ("read".equals(name) && args != null && args.length == 3) {
+								byte[] b = (byte[]) args[0];
+								int off = (Integer) args[1];
+								int n = (int) Math.min((Integer) args[2], FILE_SIZE - pointer);
+								if (n <= 0) {
+									return -1;
+								}
+								for (int i = 0; i < n; i++) {
+									long position = pointer + i;
+									b[off + i] = position < header.length ? header[(int) position] : 0;
+								}
+								pointer += n;
+								bytesRead.addAndGet(n);
+								return n;
+							}
+							throw new UnsupportedOperationException(name);
+						}
+
+					});
+		}
+
+	}
+
+	/**
+	 * 从替身文件读取文件头的魔数过滤器
+	 */
+	static class StandInMagicNumberFileFilter extends MagicNumberFileFilter {
+
+		StandInMagicNumberFileFilter(byte[] magicNumber, long offset) {
+			super(magicNumber, offset);
+		}
+
+		@Override
+		protected SmbRandomAccess open(SmbFile file) throws IOException {
+			return ((LargeFile) file).open();
+		}
+
+	}
+
+	private List<LargeFile> createFiles() throws MalformedURLException {
+		byte[][] headers = new byte[][] { PNG, JPEG, PDF, MP4, "text".getBytes(Charset.forName("US-ASCII")) };
+		List<LargeFile> files = new ArrayList<LargeFile>(FILES);
+		for (int i = 0; i < FILES; i++) {
+			files.add(new LargeFile("video-" + i + ".bin", headers[i % headers.length]));
+		}
+		return files;
+	}
+
+	@Test
+	public void singleFilterReadsOnlyHeader() throws Exception {
+		List<LargeFile> files = createFiles();
+		Smb2FileFilter filter = new StandInMagicNumberFileFilter(PNG, 0);
+		Measure measure = measure(filter, files);
+		report("single", measure);
+		assertEquals(FILES / 5, measure.accepted);
+		assertEquals(FILES, measure.opens);
+		assertEquals((long) FILES * PNG.length, measure.bytesRead);
+	}
+
+	@Test
+	public void orFilterSharesOneHeaderRead() throws Exception {
+		List<LargeFile> files = createFiles();
+		Smb2FileFilter filter = new OrFileFilter(Arrays.<Smb2FileFilter>asList(
+				new StandInMagicNumberFileFilter(PNG, 0),
+				new StandInMagicNumberFileFilter(JPEG, 0),
+				new StandInMagicNumberFileFilter(PDF, 0),
+				new StandInMagicNumberFileFilter(Arrays.copyOfRange(MP4, 4, 8), 4)));
+		Measure measure = measure(filter, files);
+		report("or x4", measure);
+		assertEquals(FILES * 4 / 5, measure.accepted);
+		//四个魔数过滤器共用一次读取，每个文件只打开一次
+		assertEquals(FILES, measure.opens);
+		assertEquals((long) FILES * 8, measure.bytesRead);
+	}
+
+	private Measure measure(Smb2FileFilter filter, List<LargeFile> files) throws Exception {
+		//预热
+		for (LargeFile file : files) {
+			filter.accept(file);
+		}
+		opens.set(0);
+		bytesRead.set(0);
+		Measure measure = new Measure();
+		long begin = System.nanoTime();
+		for (LargeFile file : files) {
+			if (filter.accept(file)) {
+				measure.accepted++;
+			}
+		}
+		measure.elapsed = System.nanoTime() - begin;
+		measure.opens = opens.get();
+		measure.bytesRead = bytesRead.get();
+		return measure;
+	}
+
+	private static void report(String variant, Measure measure) {
+		System.out.println("[smb] magic number filter (" + variant + ") on " + FILES + " files of " + (FILE_SIZE >> 30)
+				+ "G : " + (measure.elapsed / FILES) + " ns/file, " + measure.opens + " opens, " + measure.bytesRead
+				+ " bytes read; whole-file copy would transfer " + (FILE_SIZE * FILES) + " bytes");
+	}
+
+	private static class Measure {
+
+		private int accepted;
+		private long elapsed;
+		private long opens;
+		private long bytesRead;
+
+	}
+
+}
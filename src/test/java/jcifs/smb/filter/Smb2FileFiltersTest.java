@@ -0,0 +1,170 @@
+package jcifs.smb.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.junit.Test;
+
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile;
+import jcifs.utils.SmbFileUtils;
+
+/**
+ * 文件名过滤转换为服务端通配符：服务端匹配的结果必须是过滤结果的超集；
+ * 替身目录按通配符（不区分大小写）在内存中匹配条目，记录每次目录查询使用的通配符
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2FileFiltersTest {
+
+	private static final String SHARED_URL = "smb://127.0.0.1/share/dir/";
+	private static final String[] NAMES = new String[] { "a.pdf", "b.PDF", "report.pdf", "report.txt", "Report.doc",
+			"readme", "data.tar.gz", "x.gz", "log-2018.txt", "log-2019.pdf", "pdf" };
+
+	/**
+	 * 替身目录：不连接服务器，按通配符匹配内存中的条目
+	 */
+	static class StandInDirectory extends SmbFile {
+
+		final List<String> queries = new ArrayList<String>();
+
+		StandInDirectory() throws MalformedURLException {
+			super(SHARED_URL);
+		}
+
+		@Override
+		public SmbFile[] listFiles() throws SmbException {
+			return listFiles("*");
+		}
+
+		@Override
+		public SmbFile[] listFiles(String wildcard) throws SmbException {
+			queries.add(wildcard);
+			List<SmbFile> files = new ArrayList<SmbFile>();
+			for (String name : NAMES) {
+				if (FilenameUtils.wildcardMatch(name, wildcard, IOCase.INSENSITIVE)) {
+					try {
+						files.add(new SmbFile(SHARED_URL + name));
+					} catch (MalformedURLException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			}
+			return files.toArray(new SmbFile[files.size()]);
+		}
+
+	}
+
+	/**
+	 * 过滤器接受的条目都能被通配符匹配，且服务端按通配符返回的条目经过滤器判断后，与列出全部条目再过滤的结果一致
+	 */
+	private static List<String> assertSuperset(Smb2FileFilter filter) throws Exception {
+		List<String> wildcards = Smb2FileFilters.toWildcards(filter);
+		List<String> accepted = new ArrayList<String>();
+		for (String name : NAMES) {
+			SmbFile file = new SmbFile(SHARED_URL + name);
+			if (filter.accept(file)) {
+				accepted.add(name);
+				if (wildcards != null) {
+					boolean matched = false;
+					for (String wildcard : wildcards) {
+						matched |= FilenameUtils.wildcardMatch(name, wildcard, IOCase.INSENSITIVE);
+					}
+					assertTrue(name + " accepted by " + filter + " but not matched by " + wildcards, matched);
+				}
+			}
+		}
+		StandInDirectory directory = new StandInDirectory();
+		Collection<SmbFile> files = SmbFileUtils.listFiles(SmbFileUtils.listCandidates(directory, filter), filter);
+		List<String> listed = new ArrayList<String>();
+		for (SmbFile file : files) {
+			listed.add(file.getName());
+		}
+		//按通配符查询时条目按通配符的顺序返回
+		Collections.sort(accepted);
+		Collections.sort(listed);
+		assertEquals(accepted, listed);
+		assertEquals(wildcards == null ? Arrays.asList("*") : wildcards, directory.queries);
+		return wildcards;
+	}
+
+	@Test
+	public void nameFiltersArePushedDown() throws Exception {
+		assertEquals(Arrays.asList("*.pdf"), assertSuperset(new SuffixFileFilter(".pdf")));
+		assertEquals(Arrays.asList("report*"), assertSuperset(new PrefixFileFilter("report")));
+		assertEquals(Arrays.asList("readme", "pdf"), assertSuperset(new NameFileFilter(new String[] { "readme", "pdf" })));
+		//含通配字符或为空时无法准确表达，列出全部条目
+		assertNull(assertSuperset(new SuffixFileFilter("?.gz")));
+		assertNull(assertSuperset(new PrefixFileFilter("")));
+	}
+
+	@Test
+	public void caseInsensitiveFiltersAreNotPushedDown() throws Exception {
+		assertNull(assertSuperset(new SuffixFileFilter(".pdf", IOCase.INSENSITIVE)));
+		assertNull(assertSuperset(new PrefixFileFilter("REPORT", IOCase.INSENSITIVE)));
+		assertNull(assertSuperset(new NameFileFilter("README", IOCase.INSENSITIVE)));
+		//或过滤器的任一子过滤器无法转换时整体不转换
+		assertNull(assertSuperset(new OrFileFilter(new SuffixFileFilter(".txt"), new SuffixFileFilter(".pdf", IOCase.INSENSITIVE))));
+	}
+
+	@Test
+	public void andTakesTheChildWithFewestWildcards() throws Exception {
+		Smb2FileFilter suffixes = new SuffixFileFilter(new String[] { ".pdf", ".txt", ".doc" });
+		assertEquals(Arrays.asList("log*"), assertSuperset(new AndFileFilter(suffixes, new PrefixFileFilter("log"))));
+		assertEquals(Arrays.asList("log*"), assertSuperset(new AndFileFilter(new PrefixFileFilter("log"), suffixes)));
+		//无法转换的子过滤器被跳过
+		assertEquals(Arrays.asList("*.pdf"),
+				assertSuperset(new AndFileFilter(new NotFileFilter(new PrefixFileFilter("a")), new SuffixFileFilter(".pdf"))));
+		assertEquals(Arrays.asList("*.pdf"),
+				assertSuperset(new AndFileFilter(new SuffixFileFilter(".pdf", IOCase.INSENSITIVE), new SuffixFileFilter(".pdf"))));
+	}
+
+	@Test
+	public void orTakesTheUnion() throws Exception {
+		assertEquals(Arrays.asList("*.pdf", "*.gz", "readme"), assertSuperset(new OrFileFilter(Arrays.<Smb2FileFilter>asList(
+				new SuffixFileFilter(".pdf"), new SuffixFileFilter(new String[] { ".gz", ".pdf" }), new NameFileFilter("readme")))));
+		//嵌套的与或组合
+		assertEquals(Arrays.asList("log*", "*.gz"), assertSuperset(new OrFileFilter(
+				new AndFileFilter(new SuffixFileFilter(new String[] { ".pdf", ".txt" }), new PrefixFileFilter("log")),
+				new SuffixFileFilter(".gz"))));
+		//编译后的过滤器按开销重排子过滤器，通配符集合与原过滤器一致
+		Smb2FileFilter filter = new OrFileFilter(new SuffixFileFilter(".pdf"), new PrefixFileFilter("log"));
+		assertEquals(new HashSet<String>(Smb2FileFilters.toWildcards(filter)),
+				new HashSet<String>(assertSuperset(Smb2FileFilters.compile(filter))));
+	}
+
+	@Test
+	public void notCombinationsAreNotPushedDown() throws Exception {
+		assertNull(assertSuperset(new NotFileFilter(new SuffixFileFilter(".pdf"))));
+		assertNull(assertSuperset(new OrFileFilter(new NotFileFilter(new SuffixFileFilter(".pdf")), new SuffixFileFilter(".txt"))));
+		assertNull(assertSuperset(new AndFileFilter(new NotFileFilter(new SuffixFileFilter(".pdf")),
+				new NotFileFilter(new PrefixFileFilter("log")))));
+		assertNull(assertSuperset(new NotFileFilter(new AndFileFilter(new SuffixFileFilter(".pdf"), new PrefixFileFilter("log")))));
+	}
+
+	@Test
+	public void fallbackAboveMaxWildcards() throws Exception {
+		String[] suffixes = new String[Smb2FileFilters.MAX_WILDCARDS];
+		for (int i = 0; i < suffixes.length; i++) {
+			suffixes[i] = ".ext" + i;
+		}
+		suffixes[0] = ".pdf";
+		assertEquals(Smb2FileFilters.MAX_WILDCARDS, assertSuperset(new SuffixFileFilter(suffixes)).size());
+		String[] tooMany = Arrays.copyOf(suffixes, suffixes.length + 1);
+		tooMany[suffixes.length] = ".txt";
+		assertNull(assertSuperset(new SuffixFileFilter(tooMany)));
+		//并集超出上限时同样列出全部条目
+		assertNull(assertSuperset(new OrFileFilter(new SuffixFileFilter(suffixes), new SuffixFileFilter(".txt"))));
+	}
+
+}
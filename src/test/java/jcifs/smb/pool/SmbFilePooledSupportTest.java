@@ -0,0 +1,76 @@
+package jcifs.smb.pool;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import jcifs.smb.SmbFile;
+
+/**
+ * 连接探测的线程池有界：替身共享文件的探测一直不返回且不响应中断，模拟无响应的服务器，
+ * 验证超时的探测占满线程后新的探测被拒绝并视为检测失败，而不是继续创建线程
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFilePooledSupportTest {
+
+	/**
+	 * 替身共享文件：查询磁盘可用空间时一直阻塞，忽略中断
+	 */
+	static class HungFile extends SmbFile {
+
+		private final CountDownLatch release;
+
+		HungFile(CountDownLatch release) throws MalformedURLException {
+			super("smb://127.0.0.1/share/");
+			this.release = release;
+		}
+
+		@Override
+		public long getDiskFreeSpace() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					release.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			return 0;
+		}
+
+	}
+
+	@Test
+	public void hungProbesDoNotLeakThreads() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		SmbFilePooledSupport<SmbFile> support = new SmbFilePooledSupport<SmbFile>();
+		support.setValidateTimeout(10);
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) SmbFilePooledSupport.PROBE_EXECUTOR;
+		try {
+			for (int i = 0; i < SmbFilePooledSupport.MAX_PROBE_THREADS * 4; i++) {
+				assertFalse(support.probe(new HungFile(release)));
+			}
+			assertTrue(executor.getPoolSize() <= SmbFilePooledSupport.MAX_PROBE_THREADS);
+		} finally {
+			release.countDown();
+		}
+		//服务器恢复响应后探测线程归还，新的探测可以执行
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		while (executor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		support.setValidateTimeout(1000);
+		assertTrue(support.probe(new HungFile(release)));
+	}
+
+}
@@ -0,0 +1,172 @@
+package jcifs.smb1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import jcifs.RuntimeCIFSException;
+import jcifs.smb1.smb1.SmbException;
+import jcifs.smb1.smb1.SmbFile;
+import jcifs.smb1.smb1.SmbFileFilter;
+
+/**
+ * 流式目录遍历器的测试：目录由不连接服务器的替身提供，在 listFiles 中把目录项逐个交给过滤器，
+ * 验证完整遍历、提前关闭及未关闭即丢弃时后台遍历都能结束
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1IteratorTest {
+
+	private static final String SHARED_URL = "smb://127.0.0.1/shared/";
+	/** 替身目录的目录项数，远大于预取队列容量 */
+	private static final int ENTRIES = 100000;
+	private static final int QUEUE_SIZE = 16;
+
+	/**
+	 * 替身目录：listFiles 逐个回调过滤器，记录回调次数并在遍历结束时计数
+	 */
+	static class StandInDirectory extends SmbFile {
+
+		final AtomicInteger offered = new AtomicInteger();
+		final CountDownLatch finished = new CountDownLatch(1);
+		final SmbFile entry;
+
+		StandInDirectory() throws MalformedURLException {
+			super(SHARED_URL);
+			this.entry = new SmbFile(SHARED_URL + "entry.txt");
+		}
+
+		@Override
+		public SmbFile[] listFiles(SmbFileFilter filter) throws SmbException {
+			try {
+				for (int i = 0; i < ENTRIES; i++) {
+					offered.incrementAndGet();
+					filter.accept(entry);
+				}
+				return new SmbFile[0];
+			} finally {
+				finished.countDown();
+			}
+		}
+
+	}
+
+	@Test
+	public void iteratesAllEntries() throws Exception {
+		StandInDirectory directory = new StandInDirectory();
+		SmbFile1Iterator iterator = new SmbFile1Iterator(new SmbFile1(SHARED_URL), directory, null, QUEUE_SIZE);
+		int count = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		iterator.close();
+		assertEquals(ENTRIES, count);
+		assertTrue(directory.finished.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void closeStopsProducer() throws Exception {
+		StandInDirectory directory = new StandInDirectory();
+		SmbFile1Iterator iterator = new SmbFile1Iterator(new SmbFile1(SHARED_URL), directory, null, QUEUE_SIZE);
+		assertTrue(iterator.hasNext());
+		iterator.next();
+		iterator.close();
+		//关闭后剩余目录项被直接丢弃，listFiles 正常结束
+		assertTrue(directory.finished.await(10, TimeUnit.SECONDS));
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * 替身目录：交出第一个目录项后阻塞在 listFiles 中，直到放行
+	 */
+	static class BlockingDirectory extends StandInDirectory {
+
+		final CountDownLatch proceed = new CountDownLatch(1);
+
+		BlockingDirectory() throws MalformedURLException {
+			super();
+		}
+
+		@Override
+		public SmbFile[] listFiles(SmbFileFilter filter) throws SmbException {
+			try {
+				filter.accept(entry);
+				proceed.await();
+				return new SmbFile[0];
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return new SmbFile[0];
+			} finally {
+				finished.countDown();
+			}
+		}
+
+	}
+
+	@Test
+	public void clientReleasedAfterProducerFinishes() throws Exception {
+		BlockingDirectory directory = new BlockingDirectory();
+		SmbFile1Iterator iterator = new SmbFile1Iterator(new SmbFile1(SHARED_URL), directory, null, QUEUE_SIZE);
+		assertTrue(iterator.hasNext());
+		iterator.close();
+		final CountDownLatch released = new CountDownLatch(1);
+		iterator.whenFinished(new Runnable() {
+
+			@Override
+			public void run() {
+				released.countDown();
+			}
+
+		});
+		//后台线程仍在 listFiles 中使用会话，不能归还
+		assertFalse(released.await(200, TimeUnit.MILLISECONDS));
+		directory.proceed.countDown();
+		assertTrue(released.await(10, TimeUnit.SECONDS));
+		assertEquals(0, directory.finished.getCount());
+	}
+
+	@Test
+	public void abandonedIteratorStopsProducer() throws Exception {
+		StandInDirectory directory = new StandInDirectory();
+		SmbFile1Iterator iterator = new SmbFile1Iterator(new SmbFile1(SHARED_URL), directory, null, QUEUE_SIZE, 0);
+		assertTrue(iterator.hasNext());
+		iterator.next();
+		//不关闭直接丢弃遍历器
+		iterator = null;
+		for (int i = 0; i < 100 && directory.finished.getCount() > 0; i++) {
+			System.gc();
+			directory.finished.await(100, TimeUnit.MILLISECONDS);
+		}
+		assertEquals(0, directory.finished.getCount());
+	}
+
+	@Test
+	public void idleConsumerTimesOut() throws Exception {
+		StandInDirectory directory = new StandInDirectory();
+		SmbFile1Iterator iterator = new SmbFile1Iterator(new SmbFile1(SHARED_URL), directory, null, QUEUE_SIZE, 200);
+		assertTrue(iterator.hasNext());
+		//消费端停顿超过空闲超时，后台遍历放弃取回
+		assertTrue(directory.finished.await(10, TimeUnit.SECONDS));
+		iterator.next();
+		try {
+			while (iterator.hasNext()) {
+				iterator.next();
+			}
+			fail("idle timeout expected");
+		} catch (RuntimeCIFSException e) {
+			assertTrue(e.getCause() instanceof InterruptedIOException);
+		} finally {
+			iterator.close();
+		}
+	}
+
+}
@@ -0,0 +1,196 @@
+package jcifs.smb1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.PooledObject;
+import org.junit.After;
+import org.junit.Test;
+
+import jcifs.io.CallbackFuture;
+import jcifs.io.FutureCallback;
+import jcifs.smb1.pool.SmbFilePool;
+import jcifs.smb1.pool.SmbFilePoolConfig;
+import jcifs.smb1.pool.SmbFilePooledFactory;
+
+/**
+ * 异步借出的压力测试：连接池对象由不连接服务器的替身工厂创建，
+ * 验证大量并发借出只占用有界线程、取消可中止阻塞的借出、截止时间沿用到异步借出
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class SmbFile1PooledResourceClientStressTest {
+
+	/** 并发借出请求数 */
+	private static final int REQUESTS = 10000;
+	/** 连接池对象总数 */
+	private static final int MAX_TOTAL = 8;
+
+	private SmbFilePool pool;
+
+	@After
+	public void closePool() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void concurrentBorrowsUseBoundedThreads() throws Exception {
+		final SmbFile1PooledResourceClient client = newClient(MAX_TOTAL);
+		final CountDownLatch latch = new CountDownLatch(REQUESTS);
+		final AtomicInteger succeeded = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		long begin = System.currentTimeMillis();
+		for (int i = 0; i < REQUESTS; i++) {
+			client.getSMBClientAsync().addCallback(new FutureCallback<SmbFile1>() {
+
+				@Override
+				public void onSuccess(SmbFile1 smbClient) {
+					try {
+						//模拟一次短传输
+						Thread.sleep(1);
+						succeeded.incrementAndGet();
+					} catch (InterruptedException e) {
+						failed.incrementAndGet();
+					} finally {
+						try {
+							client.releaseClient(smbClient);
+						} catch (Exception e) {
+							failed.incrementAndGet();
+						}
+						latch.countDown();
+					}
+				}
+
+				@Override
+				public void onFailure(Throwable e) {
+					failed.incrementAndGet();
+					latch.countDown();
+				}
+
+			});
+		}
+		assertTrue("borrows did not finish", latch.await(60, TimeUnit.SECONDS));
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) client.getAsyncExecutor();
+		System.out.println(REQUESTS + " async borrows in " + (System.currentTimeMillis() - begin) + " ms, largest borrow thread pool "
+				+ executor.getLargestPoolSize() + ", objects created " + pool.getCreatedCount());
+		assertEquals(REQUESTS, succeeded.get());
+		assertEquals(0, failed.get());
+		//等待借出的请求在队列中排队，不另外占用线程
+		assertTrue(executor.getLargestPoolSize() <= MAX_TOTAL);
+		assertTrue(pool.getCreatedCount() <= MAX_TOTAL);
+		assertEquals(0, pool.getNumActive());
+	}
+
+	@Test
+	public void cancelAbortsBlockedBorrow() throws Exception {
+		SmbFile1PooledResourceClient client = newClient(1);
+		SmbFile1 held = client.getSMBClient();
+		CallbackFuture<SmbFile1> future = client.getSMBClientAsync();
+		awaitWaiters(1);
+		assertTrue(future.cancel(true));
+		//被中断的借出不再等待对象
+		awaitWaiters(0);
+		assertTrue(future.isCancelled());
+		client.releaseClient(held);
+		//取消的借出没有占用对象
+		assertEquals(0, pool.getNumActive());
+		assertNotNull(pool.borrowObject(1000));
+	}
+
+	@Test
+	public void asyncBorrowKeepsCallerDeadline() throws Exception {
+		SmbFile1PooledResourceClient client = newClient(1);
+		SmbFile1 held = client.getSMBClient();
+		try {
+			//已过截止时间的请求不再借出
+			client.setDeadline(System.currentTimeMillis() - 1);
+			assertCause(client.getSMBClientAsync(), TimeoutException.class);
+			//截止时间前没有可用对象
+			client.setDeadline(System.currentTimeMillis() + 200);
+			long begin = System.currentTimeMillis();
+			assertCause(client.getSMBClientAsync(), NoSuchElementException.class);
+			assertTrue(System.currentTimeMillis() - begin < 5000);
+		} finally {
+			client.clearDeadline();
+			client.releaseClient(held);
+		}
+		assertEquals(0, pool.getNumActive());
+	}
+
+	private static void assertCause(CallbackFuture<SmbFile1> future, Class<? extends Throwable> type) throws Exception {
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail("borrow should fail with " + type.getSimpleName());
+		} catch (ExecutionException e) {
+			assertTrue(String.valueOf(e.getCause()), type.isInstance(e.getCause()));
+		}
+	}
+
+	private void awaitWaiters(int waiters) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getNumWaiters() != waiters) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("expected " + waiters + " waiters but was " + pool.getNumWaiters());
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private SmbFile1PooledResourceClient newClient(int maxTotal) {
+		SmbFilePoolConfig config = new SmbFilePoolConfig();
+		config.setMaxTotal(maxTotal);
+		config.setMaxIdle(maxTotal);
+		config.setTestOnBorrow(false);
+		config.setTestWhileIdle(false);
+		config.setTimeBetweenEvictionRunsMillis(-1);
+		config.setMaxWaitMillis(-1);
+		pool = new SmbFilePool(new StandInFactory(), config);
+		return new SmbFile1PooledResourceClient(pool, null);
+	}
+
+	/**
+	 * 替身工厂：创建不连接服务器的共享目录对象
+	 */
+	private static class StandInFactory extends SmbFilePooledFactory {
+
+		StandInFactory() {
+			super(null);
+		}
+
+		@Override
+		public SmbFile1 create() throws Exception {
+			return new SmbFile1("smb://127.0.0.1/share/");
+		}
+
+		@Override
+		public PooledObject<SmbFile1> makeObject() throws Exception {
+			return wrap(create());
+		}
+
+		@Override
+		public void activateObject(PooledObject<SmbFile1> poolObject) {
+		}
+
+		@Override
+		public boolean validateObject(PooledObject<SmbFile1> poolObject) {
+			return true;
+		}
+
+		@Override
+		public void destroyObject(PooledObject<SmbFile1> poolObject) {
+		}
+
+	}
+
+}
@@ -0,0 +1,170 @@
+package jcifs.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jcifs.io.BufferPool;
+import jcifs.smb.SmbFile2;
+import jcifs.smb1.SmbFile1;
+
+/**
+ * FileChannel 到共享文件输出流拷贝的分配量基准：对比逐次分配 byte[] 的旧拷贝循环与复用缓冲区的
+ * {@link Smb2ChannelUtils} / {@link SMBChannelUtils}，输出每次拷贝在当前线程上分配的字节数
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class ChannelCopyAllocationBenchmarkTest {
+
+	/** 拷贝的本地文件大小： 64M */
+	private static final int FILE_SIZE = 64 * 1024 * 1024;
+	/** 预热及计量的拷贝次数 */
+	private static final int ROUNDS = 5;
+
+	private static File localFile;
+
+	@BeforeClass
+	public static void createFile() throws IOException {
+		localFile = File.createTempFile("channel-copy", ".bin");
+		RandomAccessFile randomAccessFile = new RandomAccessFile(localFile, "rw");
+		try {
+			randomAccessFile.setLength(FILE_SIZE);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	@AfterClass
+	public static void deleteFile() {
+		localFile.delete();
+	}
+
+	@Test
+	public void smb2() throws Exception {
+		final SmbFile2 sharedFile = new SmbFile2("smb://127.0.0.1/share/channel-copy.bin");
+		sharedFile.setBufferPool(new BufferPool(BufferPool.DEFAULT_POOL_SIZE));
+		long legacy = measure(new Copy() {
+
+			@Override
+			public void copy(FileChannel inChannel, CountingOutputStream output) throws IOException {
+				legacyCopy(inChannel, output, sharedFile.getChannelReadBufferSize());
+			}
+
+		});
+		long pooled = measure(new Copy() {
+
+			@Override
+			public void copy(FileChannel inChannel, CountingOutputStream output) throws IOException {
+				Smb2ChannelUtils.copyLarge(inChannel, output, sharedFile);
+			}
+
+		});
+		report("smb", legacy, pooled);
+	}
+
+	@Test
+	public void smb1() throws Exception {
+		final SmbFile1 sharedFile = new SmbFile1("smb://127.0.0.1/share/channel-copy.bin");
+		sharedFile.setBufferPool(new BufferPool(BufferPool.DEFAULT_POOL_SIZE));
+		long legacy = measure(new Copy() {
+
+			@Override
+			public void copy(FileChannel inChannel, CountingOutputStream output) throws IOException {
+				legacyCopy(inChannel, output, sharedFile.getChannelReadBufferSize());
+			}
+
+		});
+		long pooled = measure(new Copy() {
+
+			@Override
+			public void copy(FileChannel inChannel, CountingOutputStream output) throws IOException {
+				SMBChannelUtils.copyLarge(inChannel, output, sharedFile);
+			}
+
+		});
+		report("smb1", legacy, pooled);
+	}
+
+	private static void report(String variant, long legacy, long pooled) {
+		System.out.println("[" + variant + "] copy " + (FILE_SIZE >> 20) + "M : legacy allocated " + legacy
+				+ " bytes/copy, pooled allocated " + pooled + " bytes/copy");
+		//旧循环每次读取都分配与读取量相同的数组，至少分配一个文件大小
+		assertTrue(legacy >= FILE_SIZE);
+		//复用缓冲区后分配量与文件大小无关
+		assertTrue("pooled copy allocated " + pooled + " bytes", pooled < FILE_SIZE / 16);
+	}
+
+	/**
+	 * 执行若干轮拷贝，返回最后一轮在当前线程上分配的字节数；前几轮用于预热及填充缓冲池
+	 */
+	private static long measure(Copy copy) throws IOException {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long allocated = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			FileChannel inChannel = new RandomAccessFile(localFile, "r").getChannel();
+			CountingOutputStream output = new CountingOutputStream();
+			long before = threadMXBean.getThreadAllocatedBytes(threadId);
+			copy.copy(inChannel, output);
+			allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+			assertEquals(FILE_SIZE, output.count);
+		}
+		return allocated;
+	}
+
+	/**
+	 * 修改前的拷贝循环：每次读取都新分配 byte[bytesRead] 并从 ByteBuffer 拷贝
+	 */
+	private static void legacyCopy(FileChannel inChannel, OutputStream output, int bufferSize) throws IOException {
+		try {
+			ByteBuffer byteBuffer = ByteBuffer.allocate(bufferSize);
+			int bytesRead = 0;
+			while ((bytesRead = inChannel.read(byteBuffer)) != -1) {
+				byteBuffer.flip();
+				byte[] bytes = new byte[bytesRead];
+				byteBuffer.get(bytes);
+				output.write(bytes);
+				byteBuffer.clear();
+			}
+		} finally {
+			inChannel.close();
+			output.close();
+		}
+	}
+
+	private interface Copy {
+
+		void copy(FileChannel inChannel, CountingOutputStream output) throws IOException;
+
+	}
+
+	/**
+	 * 只计数不保存数据的输出流，代替共享文件输出流
+	 */
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+
+	}
+
+}
@@ -0,0 +1,174 @@
+package jcifs.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+import jcifs.io.ByteRange;
+
+/**
+ * 按区间写出响应：状态码、Content-Range 及 Content-Length 与实际写出的内容一致；
+ * 响应由替身代替，区间数据直接取自内存中的文件内容
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class HttpRangeUtilsTest {
+
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+	private static final byte[] CONTENT = new byte[1000];
+
+	static {
+		for (int i = 0; i < CONTENT.length; i++) {
+			CONTENT[i] = (byte) i;
+		}
+	}
+
+	/**
+	 * 替身响应：记录状态码、响应头及写出的内容
+	 */
+	static class StandInResponse implements InvocationHandler {
+
+		final Map<String, String> headers = new HashMap<String, String>();
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		int status = HttpServletResponse.SC_OK;
+		String contentType;
+
+		HttpServletResponse proxy() {
+			return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { HttpServletResponse.class }, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("setHeader".equals(name)) {
+				headers.put((String) args[0], (String) args[1]);
+			} else if ("setStatus".equals(name)) {
+				status = (Integer) args[0];
+			} else if ("setContentType".equals(name)) {
+				contentType = (String) args[0];
+			} else if ("getContentType".equals(name)) {
+				return contentType;
+			} else if ("getOutputStream".equals(name)) {
+				return new ServletOutputStream() {
+
+					@Override
+					public void write(int b) throws IOException {
+						body.write(b);
+					}
+
+				};
+			}
+			return null;
+		}
+
+	}
+
+	private static final HttpRangeUtils.RangeWriter WRITER = new HttpRangeUtils.RangeWriter() {
+
+		@Override
+		public long write(ByteRange range, OutputStream output) throws IOException {
+			output.write(CONTENT, (int) range.getStart(), (int) range.getLength());
+			return range.getLength();
+		}
+
+	};
+
+	private static byte[] slice(long start, long end) {
+		return Arrays.copyOfRange(CONTENT, (int) start, (int) end + 1);
+	}
+
+	@Test
+	public void fullContent() throws IOException {
+		StandInResponse response = new StandInResponse();
+		assertEquals(CONTENT.length, HttpRangeUtils.send(response.proxy(), null, CONTENT.length, WRITER));
+		assertEquals(HttpServletResponse.SC_OK, response.status);
+		assertEquals("1000", response.headers.get(HttpRangeUtils.CONTENT_LENGTH));
+		assertEquals(ByteRange.BYTES_UNIT, response.headers.get(HttpRangeUtils.ACCEPT_RANGES));
+		assertArrayEquals(CONTENT, response.body.toByteArray());
+	}
+
+	@Test
+	public void suffixRange() throws IOException {
+		StandInResponse response = new StandInResponse();
+		List<ByteRange> ranges = ByteRange.parse("bytes=-100", CONTENT.length);
+		assertEquals(100, HttpRangeUtils.send(response.proxy(), ranges, CONTENT.length, WRITER));
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.status);
+		assertEquals("bytes 900-999/1000", response.headers.get(HttpRangeUtils.CONTENT_RANGE));
+		assertEquals("100", response.headers.get(HttpRangeUtils.CONTENT_LENGTH));
+		assertArrayEquals(slice(900, 999), response.body.toByteArray());
+	}
+
+	@Test
+	public void openEndedRange() throws IOException {
+		StandInResponse response = new StandInResponse();
+		List<ByteRange> ranges = ByteRange.parse("bytes=990-", CONTENT.length);
+		assertEquals(10, HttpRangeUtils.send(response.proxy(), ranges, CONTENT.length, WRITER));
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.status);
+		assertEquals("bytes 990-999/1000", response.headers.get(HttpRangeUtils.CONTENT_RANGE));
+		assertEquals("10", response.headers.get(HttpRangeUtils.CONTENT_LENGTH));
+		assertArrayEquals(slice(990, 999), response.body.toByteArray());
+	}
+
+	@Test
+	public void unsatisfiableRange() throws IOException {
+		StandInResponse response = new StandInResponse();
+		List<ByteRange> ranges = ByteRange.parse("bytes=1000-", CONTENT.length);
+		assertEquals(0, HttpRangeUtils.send(response.proxy(), ranges, CONTENT.length, WRITER));
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.status);
+		assertEquals("bytes */1000", response.headers.get(HttpRangeUtils.CONTENT_RANGE));
+		assertEquals("0", response.headers.get(HttpRangeUtils.CONTENT_LENGTH));
+		assertEquals(0, response.body.size());
+	}
+
+	@Test
+	public void multipartContentLengthMatchesBody() throws IOException {
+		StandInResponse response = new StandInResponse();
+		response.contentType = "video/mp4";
+		//重叠的区间合并后输出两个分段
+		List<ByteRange> ranges = ByteRange.parse("bytes=0-9,5-19,-10", CONTENT.length);
+		assertEquals(30, HttpRangeUtils.send(response.proxy(), ranges, CONTENT.length, WRITER));
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.status);
+		assertNull(response.headers.get(HttpRangeUtils.CONTENT_RANGE));
+		assertTrue(response.contentType.startsWith("multipart/byteranges; boundary="));
+		String boundary = response.contentType.substring("multipart/byteranges; boundary=".length());
+		byte[] body = response.body.toByteArray();
+		assertEquals(String.valueOf(body.length), response.headers.get(HttpRangeUtils.CONTENT_LENGTH));
+
+		String text = new String(body, ISO_8859_1);
+		//两个分段的分隔行及结束行
+		assertEquals(4, text.split("--" + boundary, -1).length);
+		assertTrue(text.contains("Content-Type: video/mp4\r\nContent-Range: bytes 0-19/1000\r\n\r\n"
+				+ new String(slice(0, 19), ISO_8859_1)));
+		assertTrue(text.contains("Content-Range: bytes 990-999/1000\r\n\r\n" + new String(slice(990, 999), ISO_8859_1)));
+		assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+	}
+
+	@Test
+	public void emptyFile() throws IOException {
+		StandInResponse response = new StandInResponse();
+		assertEquals(0, HttpRangeUtils.send(response.proxy(), null, 0, WRITER));
+		assertEquals("0", response.headers.get(HttpRangeUtils.CONTENT_LENGTH));
+		assertEquals(0, HttpRangeUtils.send(response.proxy(), Collections.<ByteRange>emptyList(), 0, WRITER));
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.status);
+	}
+
+}
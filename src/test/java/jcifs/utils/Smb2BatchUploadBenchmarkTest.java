@@ -0,0 +1,182 @@
+package jcifs.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jcifs.io.BatchReport;
+import jcifs.io.BatchReport.Status;
+import jcifs.smb.ISMBClient;
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile2;
+
+/**
+ * 小文件上传的吞吐量基准：共享文件由替身代替，每次服务端往返（连接、存在性检查、创建、打开、写出、关闭）
+ * 固定耗时 {@link #ROUND_TRIP_MICROS} 微秒；对比逐个文件上传与批量上传，记录每秒上传的文件数。
+ * 吞吐量受运行环境影响只输出不断言，断言只针对往返次数及借出次数
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2BatchUploadBenchmarkTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(Smb2BatchUploadBenchmarkTest.class);
+
+	/** 模拟的单次服务端往返耗时： 200 微秒 */
+	private static final long ROUND_TRIP_MICROS = 200;
+	/** 上传的文件数 */
+	private static final int FILES = 1000;
+	/** 单个文件大小： 1K */
+	private static final int FILE_SIZE = 1024;
+	/** 批量上传的并行度 */
+	private static final int PARALLELISM = 8;
+
+	private final AtomicLong roundTrips = new AtomicLong();
+
+	private void roundTrip() {
+		roundTrips.incrementAndGet();
+		LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ROUND_TRIP_MICROS));
+	}
+
+	/**
+	 * 替身共享目录：按路径返回替身共享文件
+	 */
+	class StandInShare extends SmbFile2 {
+
+		StandInShare() throws MalformedURLException {
+			super(StandInClients.SHARED_URL);
+		}
+
+		@Override
+		public SmbFile2 get(String name) throws MalformedURLException {
+			return new StandInFile(StandInClients.SHARED_URL + name);
+		}
+
+	}
+
+	/**
+	 * 替身共享文件：每个服务端操作计一次往返，文件总是不存在
+	 */
+	class StandInFile extends SmbFile2 {
+
+		StandInFile(String url) throws MalformedURLException {
+			super(url);
+		}
+
+		@Override
+		public void connect() throws IOException {
+			roundTrip();
+		}
+
+		@Override
+		public boolean exists() throws SmbException {
+			roundTrip();
+			return false;
+		}
+
+		@Override
+		public void delete() throws SmbException {
+			roundTrip();
+		}
+
+		@Override
+		public void createNewFile() throws SmbException {
+			roundTrip();
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			roundTrip();
+			return new OutputStream() {
+
+				@Override
+				public void write(int b) {
+					roundTrip();
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					roundTrip();
+				}
+
+				@Override
+				public void close() {
+					roundTrip();
+				}
+
+			};
+		}
+
+	}
+
+	@Test
+	public void filesPerSecond() throws Exception {
+		StandInClients clients = new StandInClients() {
+
+			@Override
+			protected SmbFile2 newClient() throws Exception {
+				return new StandInShare();
+			}
+
+		};
+		ISMBClient client = clients.smb2();
+		Map<String, byte[]> files = new LinkedHashMap<String, byte[]>();
+		for (int i = 0; i < FILES; i++) {
+			files.put("report-" + i + ".txt", new byte[FILE_SIZE]);
+		}
+
+		//逐个文件上传：每个文件借出一次对象，存在性检查、连接、创建后再打开写出
+		roundTrips.set(0);
+		long begin = System.nanoTime();
+		for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+			SmbFile2 smbClient = client.getSMBClient();
+			try {
+				assertTrue(Smb2FileUtils.storeStream(new ByteArrayInputStream(entry.getValue()), smbClient, entry.getKey()));
+			} finally {
+				client.releaseClient(smbClient);
+			}
+		}
+		double single = FILES * 1e9 / (System.nanoTime() - begin);
+		long singleTrips = roundTrips.get();
+
+		//批量上传：单线程
+		roundTrips.set(0);
+		BatchReport serial = Smb2BatchUtils.upload(client, files, 1);
+		long batchTrips = roundTrips.get();
+
+		//批量上传：并行
+		int borrowed = clients.getBorrowed();
+		BatchReport parallel = Smb2BatchUtils.upload(client, files, PARALLELISM);
+		int parallelBorrowed = clients.getBorrowed() - borrowed;
+
+		LOG.info("[smb] upload " + FILES + " files of " + FILE_SIZE + " bytes, round trip " + ROUND_TRIP_MICROS
+				+ " us : single " + (long) single + " files/s (" + singleTrips / FILES + " round trips/file), batch "
+				+ (long) serial.getThroughput() + " files/s (" + batchTrips / FILES + " round trips/file), batch x"
+				+ PARALLELISM + " " + (long) parallel.getThroughput() + " files/s");
+
+		for (BatchReport report : new BatchReport[] { serial, parallel }) {
+			assertEquals(FILES, report.size());
+			for (int i = 0; i < FILES; i++) {
+				assertEquals(Status.SUCCESS, report.get(i).getStatus());
+			}
+		}
+		//批量上传只打开、写出、关闭
+		assertEquals(3L * FILES, batchTrips);
+		assertTrue(singleTrips > batchTrips);
+		//每个工作线程整批只借出一次对象
+		assertTrue(parallelBorrowed <= PARALLELISM);
+		assertEquals(clients.getBorrowed(), clients.getReleased());
+	}
+
+}
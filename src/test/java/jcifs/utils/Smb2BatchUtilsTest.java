@@ -0,0 +1,146 @@
+package jcifs.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import jcifs.SmbResource;
+import jcifs.io.BatchReport;
+import jcifs.io.BatchReport.Item;
+import jcifs.io.BatchReport.Status;
+import jcifs.io.DirectoryCache;
+import jcifs.smb.NtStatus;
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile2;
+
+/**
+ * {@link Smb2BatchUtils} 的执行及结果映射测试
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2BatchUtilsTest {
+
+	@Test
+	public void everyItemIsReportedOnceWhenInterrupted() throws Exception {
+		final int size = 2000;
+		final AtomicIntegerArray results = new AtomicIntegerArray(size);
+		final AtomicReference<BatchReport> result = new AtomicReference<BatchReport>();
+		final StandInClients clients = new StandInClients();
+		Thread caller = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				result.set(Smb2BatchUtils.execute(clients.smb2(), size, 4, new Smb2BatchUtils.BatchTask() {
+
+					@Override
+					public Item process(SmbFile2 smbClient, int index) throws Exception {
+						//处理中被中断时抛出异常，由 failed 给出结果
+						Thread.sleep(2);
+						results.incrementAndGet(index);
+						return new Item(String.valueOf(index), null, Status.SUCCESS, null);
+					}
+
+					@Override
+					public Item failed(int index, Throwable error) {
+						results.incrementAndGet(index);
+						return new Item(String.valueOf(index), null, Status.FAILED, error);
+					}
+
+				}));
+			}
+
+		});
+		caller.start();
+		Thread.sleep(100);
+		caller.interrupt();
+		caller.join(30000);
+		assertFalse(caller.isAlive());
+		BatchReport report = result.get();
+		int failed = 0;
+		for (int i = 0; i < size; i++) {
+			assertEquals("results of item " + i, 1, results.get(i));
+			assertNotNull(report.get(i));
+			if (report.get(i).getStatus() == Status.FAILED) {
+				failed++;
+			}
+		}
+		//中断后未领取的项记为失败
+		assertTrue(failed > 0);
+		assertEquals(clients.getBorrowed(), clients.getReleased());
+	}
+
+	@Test
+	public void deletePendingOnlyCountsAsDeleted() {
+		SmbException deletePending = new SmbException(NtStatus.NT_STATUS_DELETE_PENDING, false);
+		SmbException notFound = new SmbException(NtStatus.NT_STATUS_OBJECT_NAME_NOT_FOUND, false);
+		assertFalse(Smb2BatchUtils.isNotFound(deletePending));
+		assertTrue(Smb2BatchUtils.isDeleted(deletePending));
+		assertTrue(Smb2BatchUtils.isDeleted(notFound));
+		//删除挂起对删除而言视为已删除，对重命名仍是失败
+		assertEquals(Status.NOT_FOUND, Smb2BatchUtils.toRemoveItem("a.txt", deletePending).getStatus());
+		assertEquals(Status.FAILED, Smb2BatchUtils.toItem("a.txt", "b.txt", deletePending).getStatus());
+		assertEquals(Status.NOT_FOUND, Smb2BatchUtils.toItem("a.txt", "b.txt", notFound).getStatus());
+	}
+
+	/**
+	 * 替身共享文件：删除及移动不访问服务器；删除期间其他线程把该目录重新记录为已知存在
+	 */
+	static class StandInDir extends SmbFile2 {
+
+		StandInDir(String url) throws MalformedURLException {
+			super(url);
+		}
+
+		@Override
+		public SmbFile2 get(String name) throws MalformedURLException {
+			return new StandInDir(StandInClients.SHARED_URL + name);
+		}
+
+		@Override
+		public void delete() {
+			DirectoryCache.getDefault().add(getURL().toString());
+		}
+
+		@Override
+		public void renameTo(SmbResource dest) {
+			DirectoryCache.getDefault().add(getURL().toString());
+		}
+
+	}
+
+	@Test
+	public void removedOrMovedDirectoriesAreInvalidated() throws Exception {
+		DirectoryCache cache = DirectoryCache.getDefault();
+		String[] dirs = new String[] { "removed/", "removed/sub/", "moved/", "moved/sub/", "kept/" };
+		for (String dir : dirs) {
+			cache.add(StandInClients.SHARED_URL + dir);
+		}
+		StandInClients clients = new StandInClients() {
+
+			@Override
+			protected SmbFile2 newClient() throws Exception {
+				return new StandInDir(StandInClients.SHARED_URL);
+			}
+
+		};
+		Map<String, String> moves = new LinkedHashMap<String, String>();
+		moves.put("moved/", "target/");
+		assertEquals(Status.SUCCESS, Smb2BatchUtils.remove(clients.smb2(), new String[] { "removed/" }, 1).get(0).getStatus());
+		assertEquals(Status.SUCCESS, Smb2BatchUtils.rename(clients.smb2(), moves, 1).get(0).getStatus());
+		//删除或移动之后失效，删除期间重新记录的条目也被清除
+		for (int i = 0; i < 4; i++) {
+			assertFalse(dirs[i], cache.contains(StandInClients.SHARED_URL + dirs[i]));
+		}
+		assertTrue(cache.contains(StandInClients.SHARED_URL + "kept/"));
+		cache.invalidate(StandInClients.SHARED_URL + "kept/");
+	}
+
+}
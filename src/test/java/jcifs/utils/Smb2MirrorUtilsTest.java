@@ -0,0 +1,130 @@
+package jcifs.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jcifs.io.BatchReport;
+import jcifs.io.BatchReport.Status;
+import jcifs.smb.SmbFile2;
+import jcifs.utils.Smb2MirrorUtils.Range;
+import jcifs.utils.Smb2MirrorUtils.RangeTask;
+
+/**
+ * 镜像下载的分段任务：分段下载由替身代替，验证每个分段只计入所属文件一次，
+ * 分段结果不为null，文件的最后一个分段结束时记录结果并设置修改时间
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class Smb2MirrorUtilsTest {
+
+	private static final long LAST_MODIFIED = 1500000000000L;
+	/** 各文件的分段数 */
+	private static final int[] RANGES = new int[] { 3, 1, 2 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * 替身分段任务：不连接服务器，指定的分段抛出运行时异常
+	 */
+	static class StandInRangeTask extends RangeTask {
+
+		private final int failedFile;
+
+		StandInRangeTask(File localDir, String[] paths, long[] lastModified, List<Range> ranges, BatchReport report,
+				int failedFile) {
+			super("", localDir, paths, lastModified, ranges, report, 0, null, 0);
+			this.failedFile = failedFile;
+		}
+
+		@Override
+		protected void retrieve(SmbFile2 smbClient, Range range) throws IOException {
+			if (range.getFile() == failedFile && range.getStart() > 0) {
+				throw new IllegalStateException("range " + range.getStart() + " of file " + range.getFile());
+			}
+		}
+
+	}
+
+	private String[] paths;
+	private long[] lastModified;
+	private List<Range> ranges;
+
+	private RangeTask createTask(BatchReport report, int failedFile) throws IOException {
+		paths = new String[RANGES.length];
+		lastModified = new long[RANGES.length];
+		ranges = new ArrayList<Range>();
+		for (int i = 0; i < RANGES.length; i++) {
+			paths[i] = "file-" + i + ".bin";
+			lastModified[i] = LAST_MODIFIED;
+			folder.newFile(paths[i]).setLastModified(0);
+			for (int j = 0; j < RANGES[i]; j++) {
+				ranges.add(new Range(i, j * 100L, (j + 1) * 100L));
+			}
+		}
+		return new StandInRangeTask(folder.getRoot(), paths, lastModified, ranges, report, failedFile);
+	}
+
+	@Test
+	public void everyFileSucceeds() throws Exception {
+		BatchReport report = new BatchReport(RANGES.length);
+		RangeTask task = createTask(report, -1);
+		BatchReport rangeReport = Smb2BatchUtils.execute(new StandInClients().smb2(), ranges.size(), 4, task);
+		for (int i = 0; i < ranges.size(); i++) {
+			assertNotNull(rangeReport.get(i));
+			assertEquals(Status.SUCCESS, rangeReport.get(i).getStatus());
+		}
+		for (int i = 0; i < RANGES.length; i++) {
+			assertEquals(Status.SUCCESS, report.get(i).getStatus());
+			assertEquals(0, task.getRemaining(i));
+			assertEquals(LAST_MODIFIED, new File(folder.getRoot(), paths[i]).lastModified());
+		}
+	}
+
+	@Test
+	public void runtimeFailureCompletesRangeOnce() throws Exception {
+		BatchReport report = new BatchReport(RANGES.length);
+		RangeTask task = createTask(report, 0);
+		BatchReport rangeReport = Smb2BatchUtils.execute(new StandInClients().smb2(), ranges.size(), 1, task);
+		for (int i = 0; i < ranges.size(); i++) {
+			assertNotNull(rangeReport.get(i));
+		}
+		//第二个分段失败，第三个分段不再下载
+		assertEquals(Status.FAILED, rangeReport.get(1).getStatus());
+		assertEquals(Status.SKIPPED, rangeReport.get(2).getStatus());
+		assertEquals(Status.FAILED, report.get(0).getStatus());
+		assertEquals(IllegalStateException.class, report.get(0).getError().getClass());
+		assertEquals(0, task.getRemaining(0));
+		assertEquals(0, new File(folder.getRoot(), paths[0]).lastModified());
+		for (int i = 1; i < RANGES.length; i++) {
+			assertEquals(Status.SUCCESS, report.get(i).getStatus());
+			assertEquals(0, task.getRemaining(i));
+		}
+	}
+
+	@Test
+	public void repeatedCompletionIsIgnored() throws Exception {
+		BatchReport report = new BatchReport(RANGES.length);
+		RangeTask task = createTask(report, -1);
+		for (int i = 0; i < ranges.size(); i++) {
+			assertEquals(Status.SUCCESS, task.process(null, i).getStatus());
+		}
+		//已结束的分段再次记为失败：不重复计数，文件结果不被覆盖
+		for (int i = 0; i < ranges.size(); i++) {
+			assertEquals(Status.FAILED, task.failed(i, new IOException("late")).getStatus());
+		}
+		for (int i = 0; i < RANGES.length; i++) {
+			assertEquals(0, task.getRemaining(i));
+			assertEquals(Status.SUCCESS, report.get(i).getStatus());
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package jcifs.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jcifs.smb.ISMBClient;
+import jcifs.smb.SmbFile2;
+
+/**
+ * 测试用的SMBClient客户端替身：借出不连接服务器的共享目录对象，并统计借出、归还次数
+ * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class StandInClients {
+
+	/** 替身对象指向的共享目录 */
+	public static final String SHARED_URL = "smb://127.0.0.1/share/";
+
+	private final AtomicInteger borrowed = new AtomicInteger();
+	private final AtomicInteger released = new AtomicInteger();
+
+	/**
+	 * 只实现 getSMBClient/releaseClient 的 {@link ISMBClient}，其他方法抛出 UnsupportedOperationException
+	 */
+	public ISMBClient smb2() {
+		return (ISMBClient) Proxy.newProxyInstance(ISMBClient.class.getClassLoader(), new Class<?>[] { ISMBClient.class },
+				new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("getSMBClient".equals(method.getName())) {
+							borrowed.incrementAndGet();
+							return newClient();
+						}
+						if ("releaseClient".equals(method.getName())) {
+							released.incrementAndGet();
+							return null;
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+
+				});
+	}
+
+	/**
+	 * 创建借出的共享目录对象；子类可返回替身对象以模拟服务端操作
+	 */
+	protected SmbFile2 newClient() throws Exception {
+		return new SmbFile2(SHARED_URL);
+	}
+
+	public int getBorrowed() {
+		return borrowed.get();
+	}
+
+	public int getReleased() {
+		return released.get();
+	}
+
+}